@@ -69,6 +69,30 @@ public class RSAPrivateKey
         this.coefficient = coefficient;
     }
 
+    /**
+     * Base constructor for a multi-prime key, the version is set to multi if
+     * any other prime infos are passed in.
+     */
+    public RSAPrivateKey(
+        BigInteger       modulus,
+        BigInteger       publicExponent,
+        BigInteger       privateExponent,
+        BigInteger       prime1,
+        BigInteger       prime2,
+        BigInteger       exponent1,
+        BigInteger       exponent2,
+        BigInteger       coefficient,
+        OtherPrimeInfo[] otherPrimeInfos)
+    {
+        this(modulus, publicExponent, privateExponent, prime1, prime2, exponent1, exponent2, coefficient);
+
+        if (otherPrimeInfos != null && otherPrimeInfos.length != 0)
+        {
+            this.version = BigInteger.valueOf(1);
+            this.otherPrimeInfos = new DERSequence(otherPrimeInfos);
+        }
+    }
+
     private RSAPrivateKey(
         ASN1Sequence seq)
     {
@@ -141,6 +165,29 @@ public class RSAPrivateKey
         return coefficient;
     }
 
+    /**
+     * Return the information for the primes beyond prime1 and prime2, null if
+     * this is a two-prime key.
+     *
+     * @return the other prime infos, or null.
+     */
+    public OtherPrimeInfo[] getOtherPrimeInfos()
+    {
+        if (otherPrimeInfos == null)
+        {
+            return null;
+        }
+
+        OtherPrimeInfo[] infos = new OtherPrimeInfo[otherPrimeInfos.size()];
+
+        for (int i = 0; i != infos.length; i++)
+        {
+            infos[i] = OtherPrimeInfo.getInstance(otherPrimeInfos.getObjectAt(i));
+        }
+
+        return infos;
+    }
+
     /**
      * This outputs the key in PKCS1v2 format.
      * <pre>
@@ -159,6 +206,8 @@ public class RSAPrivateKey
      *
      *      Version ::= INTEGER { two-prime(0), multi(1) }
      *        (CONSTRAINED BY {-- version must be multi if otherPrimeInfos present --})
+     *
+     *      OtherPrimeInfos ::= SEQUENCE SIZE(1..MAX) OF OtherPrimeInfo
      * </pre>
      * <p>
      * This routine is written to output PKCS1 version 2.1, private keys.
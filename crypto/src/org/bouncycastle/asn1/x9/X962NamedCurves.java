@@ -6,6 +6,8 @@ import java.util.Hashtable;
 
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.NISTFpCurve;
+import org.bouncycastle.math.ec.NISTPrimeField;
 import org.bouncycastle.util.Strings;
 import org.bouncycastle.util.encoders.Hex;
 
@@ -133,8 +135,8 @@ public class X962NamedCurves
     {
         protected X9ECParameters createParameters()
         {
-            ECCurve cFp256v1 = new ECCurve.Fp(
-                new BigInteger("115792089210356248762697446949407573530086143415290314195533631308867097853951"),
+            ECCurve cFp256v1 = new NISTFpCurve(
+                NISTPrimeField.P256,
                 new BigInteger("ffffffff00000001000000000000000000000000fffffffffffffffffffffffc", 16),
                 new BigInteger("5ac635d8aa3a93e7b3ebbd55769886bc651d06b0cc53b0f63bce3c3e27d2604b", 16));
 
@@ -0,0 +1,15 @@
+package org.bouncycastle.crypto;
+
+/**
+ * a source of fresh block cipher engines, used where a class needs an
+ * engine of its own for each thread or task it runs.
+ */
+public interface BlockCipherProvider
+{
+    /**
+     * Return a new, uninitialised, instance of the block cipher.
+     *
+     * @return a new block cipher engine.
+     */
+    BlockCipher get();
+}
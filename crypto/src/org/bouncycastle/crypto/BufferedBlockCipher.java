@@ -218,6 +218,19 @@ public class BufferedBlockCipher
             len -= gapLen;
             inOff += gapLen;
 
+            if (cipher instanceof MultiBlockCipher)
+            {
+                int blockCount = (len - 1) / blockSize;
+
+                if (blockCount > 0)
+                {
+                    resultLen += ((MultiBlockCipher)cipher).processBlocks(in, inOff, blockCount, out, outOff + resultLen);
+
+                    len -= blockCount * blockSize;
+                    inOff += blockCount * blockSize;
+                }
+            }
+
             while (len > buf.length)
             {
                 resultLen += cipher.processBlock(in, inOff, out, outOff + resultLen);
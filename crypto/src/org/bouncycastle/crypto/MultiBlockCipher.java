@@ -0,0 +1,37 @@
+package org.bouncycastle.crypto;
+
+/**
+ * Block cipher engines which can process several contiguous blocks in a
+ * single call are expected to conform to this interface.
+ * <p>
+ * Modes of operation check for this interface and, where it is present, hand
+ * runs of blocks to the engine in one call rather than a block at a time.
+ */
+public interface MultiBlockCipher
+    extends BlockCipher
+{
+    /**
+     * Return the multi processing block size for this cipher (in bytes), that is
+     * the preferred size of a single call to processBlocks().
+     *
+     * @return the multi block size for this cipher in bytes.
+     */
+    public int getMultiBlockSize();
+
+    /**
+     * Process blockCount blocks of input from the array in and write them to
+     * the out array.
+     *
+     * @param in the array containing the input data.
+     * @param inOff offset into the in array the data starts at.
+     * @param blockCount the number of blocks to be processed.
+     * @param out the array the output data will be copied into.
+     * @param outOff the offset into the out array the output will start at.
+     * @exception DataLengthException if there isn't enough data in in, or
+     * space in out.
+     * @exception IllegalStateException if the cipher isn't initialised.
+     * @return the number of bytes processed and produced.
+     */
+    public int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException;
+}
@@ -1,5 +1,6 @@
 package org.bouncycastle.crypto.digests;
 
+import org.bouncycastle.util.Memoable;
 
 /**
  * implementation of RIPEMD 320.
@@ -33,6 +34,11 @@ public class RIPEMD320Digest
     {
         super(t);
 
+        copyIn(t);
+    }
+
+    private void copyIn(RIPEMD320Digest t)
+    {
         H0 = t.H0;
         H1 = t.H1;
         H2 = t.H2;
@@ -43,7 +49,7 @@ public class RIPEMD320Digest
         H7 = t.H7;
         H8 = t.H8;
         H9 = t.H9;
-        
+
         System.arraycopy(t.X, 0, X, 0, t.X.length);
         xOff = t.xOff;
     }
@@ -458,4 +464,17 @@ public class RIPEMD320Digest
             X[i] = 0;
         }
     }
+
+    public Memoable copy()
+    {
+        return new RIPEMD320Digest(this);
+    }
+
+    public void reset(Memoable other)
+    {
+        RIPEMD320Digest d = (RIPEMD320Digest)other;
+
+        super.copyIn(d);
+        copyIn(d);
+    }
 }
@@ -22,6 +22,7 @@ public class RSABlindedEngine
     private RSACoreEngine    core = new RSACoreEngine();
     private RSAKeyParameters key;
     private SecureRandom     random;
+    private BlindingFactors  blinding;
 
     /**
      * initialise the RSA engine.
@@ -47,6 +48,21 @@ public class RSABlindedEngine
             key = (RSAKeyParameters)param;
             random = new SecureRandom();
         }
+
+        if (key instanceof RSAPrivateCrtKeyParameters
+            && ((RSAPrivateCrtKeyParameters)key).getPublicExponent() != null)   // can't do blinding without a public exponent
+        {
+            // keep the factors when re-initialised with the same key, unless given a new source of randomness
+            if (blinding == null || blinding.key != key
+                || (param instanceof ParametersWithRandom && blinding.random != random))
+            {
+                blinding = new BlindingFactors((RSAPrivateCrtKeyParameters)key, random);
+            }
+        }
+        else
+        {
+            blinding = null;
+        }
     }
 
     /**
@@ -95,26 +111,15 @@ public class RSABlindedEngine
         BigInteger input = core.convertInput(in, inOff, inLen);
 
         BigInteger result;
-        if (key instanceof RSAPrivateCrtKeyParameters)
+        if (blinding != null)
         {
-            RSAPrivateCrtKeyParameters k = (RSAPrivateCrtKeyParameters)key;
+            BigInteger[] factors = blinding.next();
+            BigInteger   m = key.getModulus();
 
-            BigInteger e = k.getPublicExponent();
-            if (e != null)   // can't do blinding without a public exponent
-            {
-                BigInteger m = k.getModulus();
-                BigInteger r = BigIntegers.createRandomInRange(ONE, m.subtract(ONE), random);
+            BigInteger blindedInput = factors[0].multiply(input).mod(m);
+            BigInteger blindedResult = core.processBlock(blindedInput);
 
-                BigInteger blindedInput = r.modPow(e, m).multiply(input).mod(m);
-                BigInteger blindedResult = core.processBlock(blindedInput);
-
-                BigInteger rInv = r.modInverse(m);
-                result = blindedResult.multiply(rInv).mod(m);
-            }
-            else
-            {
-                result = core.processBlock(input);
-            }
+            result = blindedResult.multiply(factors[1]).mod(m);
         }
         else
         {
@@ -123,4 +128,55 @@ public class RSABlindedEngine
 
         return core.convertOutput(result);
     }
+
+    /**
+     * The blinding factors r^e and r^-1 mod m for a private key. Drawing a new r for every
+     * operation costs an exponentiation and an inversion, so instead the factors are squared
+     * between uses, giving the factors for r^2, with a new r drawn every REFRESH_INTERVAL
+     * uses (P. Kocher, "Timing Attacks on Implementations of Diffie-Hellman, RSA, DSS, and
+     * Other Systems", section 10). Each pair is only handed out once, even if the engine is
+     * used from several threads.
+     */
+    private static class BlindingFactors
+    {
+        private static final int REFRESH_INTERVAL = 32;
+
+        private RSAPrivateCrtKeyParameters key;
+        private SecureRandom               random;
+        private BigInteger                 rE;
+        private BigInteger                 rInv;
+        private int                        uses;
+
+        BlindingFactors(RSAPrivateCrtKeyParameters key, SecureRandom random)
+        {
+            this.key = key;
+            this.random = random;
+        }
+
+        /**
+         * Return the next pair of factors, { r^e mod m, r^-1 mod m }.
+         */
+        synchronized BigInteger[] next()
+        {
+            BigInteger m = key.getModulus();
+
+            if (rE == null || uses == REFRESH_INTERVAL)
+            {
+                BigInteger r = BigIntegers.createRandomInRange(ONE, m.subtract(ONE), random);
+
+                rE = r.modPow(key.getPublicExponent(), m);
+                rInv = r.modInverse(m);
+                uses = 0;
+            }
+            else
+            {
+                rE = rE.multiply(rE).mod(m);
+                rInv = rInv.multiply(rInv).mod(m);
+            }
+
+            uses++;
+
+            return new BigInteger[] { rE, rInv };
+        }
+    }
 }
@@ -4,6 +4,7 @@ import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.params.ParametersWithRandom;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.params.RSAMultiPrimeCrtKeyParameters;
 import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
 
 import java.math.BigInteger;
@@ -192,6 +193,37 @@ class RSACoreEngine
             m = h.multiply(q);
             m = m.add(mQ);
 
+            if (crtKey instanceof RSAMultiPrimeCrtKeyParameters)
+            {
+                RSAMultiPrimeCrtKeyParameters mKey = (RSAMultiPrimeCrtKeyParameters)crtKey;
+
+                BigInteger[] r = mKey.getOtherPrimes();
+                BigInteger[] d = mKey.getOtherExponents();
+                BigInteger[] t = mKey.getOtherCoefficients();
+
+                //
+                // fold in the remaining primes in turn (PKCS#1 v2.1 RSADP step 2.b)
+                //
+                BigInteger prod = p.multiply(q);
+
+                for (int i = 0; i != r.length; i++)
+                {
+                    BigInteger mR;
+
+                    // mR = ((input mod r) ^ d)) mod r
+                    mR = (input.remainder(r[i])).modPow(d[i], r[i]);
+
+                    // h = t * (mR - m) mod r
+                    h = mR.subtract(m);
+                    h = h.multiply(t[i]);
+                    h = h.mod(r[i]);
+
+                    // m = m + (r_1 * ... * r_(i-1)) * h
+                    m = m.add(prod.multiply(h));
+                    prod = prod.multiply(r[i]);
+                }
+            }
+
             return m;
         }
         else
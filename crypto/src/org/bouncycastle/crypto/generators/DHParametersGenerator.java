@@ -41,7 +41,7 @@ public class DHParametersGenerator
         //
         // find a safe prime p where p = 2*q + 1, where p and q are prime.
         //
-        BigInteger[] safePrimes = DHParametersHelper.generateSafePrimes(size, certainty, random);
+        BigInteger[] safePrimes = generateSafePrimes(size, certainty, random);
 
         BigInteger p = safePrimes[0];
         BigInteger q = safePrimes[1];
@@ -49,4 +49,14 @@ public class DHParametersGenerator
 
         return new DHParameters(p, g, q, TWO, null);
     }
+
+    /**
+     * Find the safe prime p and q, where p = 2*q + 1.
+     *
+     * @return an array containing p and q.
+     */
+    BigInteger[] generateSafePrimes(int size, int certainty, SecureRandom random)
+    {
+        return DHParametersHelper.generateSafePrimes(size, certainty, random);
+    }
 }
@@ -17,23 +17,38 @@ class DHParametersHelper
      */
     static BigInteger[] generateSafePrimes(int size, int certainty, SecureRandom random)
     {
-        BigInteger p, q;
+        return toSafePrimes(createSafePrimeSearch(size, certainty, random).search());
+    }
+
+    /*
+     * A search for q, where q and p = 2q + 1 are both prime and p has size bits. The
+     * candidates are sieved so both q and p are free of small factors, and q is given
+     * a cheap test before p and q get the full number of tests.
+     */
+    static PrimeSearch createSafePrimeSearch(int size, final int certainty, SecureRandom random)
+    {
         int qLength = size - 1;
 
-        for (;;)
+        return new PrimeSearch(qLength, true, random)
         {
-            q = new BigInteger(qLength, 2, random);
+            boolean isPrime(BigInteger q)
+            {
+                if (!q.isProbablePrime(2))
+                {
+                    return false;
+                }
 
-            // p <- 2q + 1
-            p = q.shiftLeft(1).add(ONE);
+                // p <- 2q + 1
+                BigInteger p = q.shiftLeft(1).add(ONE);
 
-            if (p.isProbablePrime(certainty) && (certainty <= 2 || q.isProbablePrime(certainty)))
-            {
-                break;
+                return p.isProbablePrime(certainty) && (certainty <= 2 || q.isProbablePrime(certainty));
             }
-        }
+        };
+    }
 
-        return new BigInteger[] { p, q };
+    static BigInteger[] toSafePrimes(BigInteger q)
+    {
+        return new BigInteger[] { q.shiftLeft(1).add(ONE), q };
     }
 
     /*
@@ -33,6 +33,49 @@ public class ECKeyPairGenerator
      * pair in accordance with X9.62 section 5.2.1 pages 26, 27.
      */
     public AsymmetricCipherKeyPair generateKeyPair()
+    {
+        BigInteger d = generatePrivateValue();
+        ECPoint    Q = params.multiplyG(d);
+
+        return new AsymmetricCipherKeyPair(
+            new ECPublicKeyParameters(Q, params),
+            new ECPrivateKeyParameters(d, params));
+    }
+
+    /**
+     * Generate a number of key pairs at once. The public points are converted to affine
+     * form together, sharing a single field inversion, so this is cheaper than calling
+     * generateKeyPair() repeatedly when the public keys will be encoded.
+     *
+     * @param count the number of key pairs to generate.
+     * @return an array of count key pairs.
+     */
+    public AsymmetricCipherKeyPair[] generateKeyPairs(int count)
+    {
+        BigInteger[] ds = new BigInteger[count];
+        ECPoint[]    Qs = new ECPoint[count];
+
+        for (int i = 0; i != count; i++)
+        {
+            ds[i] = generatePrivateValue();
+            Qs[i] = params.multiplyG(ds[i]);
+        }
+
+        params.getCurve().normalizeAll(Qs);
+
+        AsymmetricCipherKeyPair[] kps = new AsymmetricCipherKeyPair[count];
+
+        for (int i = 0; i != count; i++)
+        {
+            kps[i] = new AsymmetricCipherKeyPair(
+                new ECPublicKeyParameters(Qs[i], params),
+                new ECPrivateKeyParameters(ds[i], params));
+        }
+
+        return kps;
+    }
+
+    private BigInteger generatePrivateValue()
     {
         BigInteger n = params.getN();
         int        nBitLength = n.bitLength();
@@ -44,10 +87,6 @@ public class ECKeyPairGenerator
         }
         while (d.equals(ZERO)  || (d.compareTo(n) >= 0));
 
-        ECPoint Q = params.getG().multiply(d);
-
-        return new AsymmetricCipherKeyPair(
-            new ECPublicKeyParameters(Q, params),
-            new ECPrivateKeyParameters(d, params));
+        return d;
     }
 }
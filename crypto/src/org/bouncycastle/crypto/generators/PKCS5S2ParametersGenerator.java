@@ -21,6 +21,7 @@ public class PKCS5S2ParametersGenerator
     extends PBEParametersGenerator
 {
     private Mac hMac;
+    private byte[] state;
 
     /**
      * construct a PKCS5 Scheme 2 Parameters generator.
@@ -33,20 +34,27 @@ public class PKCS5S2ParametersGenerator
     public PKCS5S2ParametersGenerator(Digest digest)
     {
         hMac = new HMac(digest);
+        state = new byte[hMac.getMacSize()];
     }
 
-    private void F(
-        byte[]  P,
+    /**
+     * Calculate one block of the derived key. The passed in mac must already be
+     * initialised with the password - as HMac restores its keyed state at the end
+     * of each doFinal() the iterations then run without re-keying or allocation.
+     */
+    static void F(
+        Mac     hMac,
         byte[]  S,
         int     c,
         byte[]  iBuf,
+        byte[]  state,
         byte[]  out,
         int     outOff)
     {
-        byte[]              state = new byte[hMac.getMacSize()];
-        CipherParameters    param = new KeyParameter(P);
-
-        hMac.init(param);
+        if (c == 0)
+        {
+            throw new IllegalArgumentException("iteration count must be at least 1.");
+        }
 
         if (S != null)
         {
@@ -59,14 +67,8 @@ public class PKCS5S2ParametersGenerator
 
         System.arraycopy(state, 0, out, outOff, state.length);
 
-        if (c == 0)
-        {
-            throw new IllegalArgumentException("iteration count must be at least 1.");
-        }
-        
         for (int count = 1; count < c; count++)
         {
-            hMac.init(param);
             hMac.update(state, 0, state.length);
             hMac.doFinal(state, 0);
 
@@ -77,7 +79,7 @@ public class PKCS5S2ParametersGenerator
         }
     }
 
-    private void intToOctet(
+    static void intToOctet(
         byte[]  buf,
         int     i)
     {
@@ -87,7 +89,7 @@ public class PKCS5S2ParametersGenerator
         buf[3] = (byte)i;
     }
 
-    private byte[] generateDerivedKey(
+    protected byte[] generateDerivedKey(
         int dkLen)
     {
         int     hLen = hMac.getMacSize();
@@ -95,11 +97,18 @@ public class PKCS5S2ParametersGenerator
         byte[]  iBuf = new byte[4];
         byte[]  out = new byte[l * hLen];
 
+        hMac.init(new KeyParameter(password));
+
         for (int i = 1; i <= l; i++)
         {
             intToOctet(iBuf, i);
 
-            F(password, salt, iterationCount, iBuf, out, (i - 1) * hLen);
+            F(hMac, salt, iterationCount, iBuf, state, out, (i - 1) * hLen);
+        }
+
+        for (int i = 0; i != state.length; i++)
+        {
+            state[i] = 0;
         }
 
         return out;
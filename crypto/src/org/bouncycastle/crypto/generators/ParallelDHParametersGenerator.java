@@ -0,0 +1,33 @@
+package org.bouncycastle.crypto.generators;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A DH parameters generator which searches for the safe prime on several threads of an
+ * executor at once, each thread sieving and testing its own candidates.
+ */
+public class ParallelDHParametersGenerator
+    extends DHParametersGenerator
+{
+    private final ParallelPrimeSearch primeSearch;
+
+    /**
+     * Base constructor.
+     *
+     * @param executor the executor the prime searches are submitted to, for example a ForkJoinPool.
+     * @param parallelism the number of searches to run at once.
+     */
+    public ParallelDHParametersGenerator(ExecutorService executor, int parallelism)
+    {
+        this.primeSearch = new ParallelPrimeSearch(executor, parallelism);
+    }
+
+    BigInteger[] generateSafePrimes(int size, int certainty, SecureRandom random)
+    {
+        PrimeSearch search = DHParametersHelper.createSafePrimeSearch(size, certainty, random);
+
+        return DHParametersHelper.toSafePrimes(primeSearch.search(search));
+    }
+}
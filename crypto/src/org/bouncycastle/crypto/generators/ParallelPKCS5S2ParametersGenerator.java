@@ -0,0 +1,138 @@
+package org.bouncycastle.crypto.generators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Memoable;
+
+/**
+ * A PKCS 5 V2.0 Scheme 2 (PBKDF2) generator which calculates the blocks of the derived
+ * key on an executor. The blocks are independent of each other, so when more than one
+ * is needed each is run by an HMac of its own built on a copy of the digest.
+ * <p>
+ * The digest must implement Memoable for the blocks to be run in parallel, otherwise,
+ * or if only one block is needed, the key is derived on the calling thread.
+ */
+public class ParallelPKCS5S2ParametersGenerator
+    extends PKCS5S2ParametersGenerator
+{
+    private final Digest          digest;
+    private final ExecutorService executor;
+
+    /**
+     * Base constructor.
+     *
+     * @param digest the digest to base the HMac on, copied for each block of the derived key.
+     * @param executor the executor blocks are submitted to.
+     */
+    public ParallelPKCS5S2ParametersGenerator(Digest digest, ExecutorService executor)
+    {
+        super(digest);
+
+        this.digest = digest;
+        this.executor = executor;
+    }
+
+    protected byte[] generateDerivedKey(
+        int dkLen)
+    {
+        int     hLen = digest.getDigestSize();
+        int     l = (dkLen + hLen - 1) / hLen;
+
+        if (l < 2 || !(digest instanceof Memoable))
+        {
+            return super.generateDerivedKey(dkLen);
+        }
+
+        if (iterationCount == 0)
+        {
+            throw new IllegalArgumentException("iteration count must be at least 1.");
+        }
+
+        byte[]                out = new byte[l * hLen];
+        List<Future<Integer>> tasks = new ArrayList<Future<Integer>>();
+
+        try
+        {
+            for (int i = 1; i <= l; i++)
+            {
+                Digest blockDigest = (Digest)((Memoable)digest).copy();
+
+                tasks.add(executor.submit(new BlockTask(blockDigest, i, out, (i - 1) * hLen)));
+            }
+
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for PBKDF2 block: " + e.getMessage());
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException("exception processing PBKDF2 block: " + cause);
+        }
+        finally
+        {
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).cancel(false);
+            }
+        }
+
+        return out;
+    }
+
+    private class BlockTask
+        implements Callable<Integer>
+    {
+        private final Digest blockDigest;
+        private final int    blockIndex;
+        private final byte[] out;
+        private final int    outOff;
+
+        BlockTask(Digest blockDigest, int blockIndex, byte[] out, int outOff)
+        {
+            this.blockDigest = blockDigest;
+            this.blockIndex = blockIndex;
+            this.out = out;
+            this.outOff = outOff;
+        }
+
+        public Integer call()
+        {
+            Mac    hMac = new HMac(blockDigest);
+            byte[] iBuf = new byte[4];
+            byte[] state = new byte[hMac.getMacSize()];
+
+            hMac.init(new KeyParameter(password));
+
+            intToOctet(iBuf, blockIndex);
+
+            F(hMac, salt, iterationCount, iBuf, state, out, outOff);
+
+            for (int i = 0; i != state.length; i++)
+            {
+                state[i] = 0;
+            }
+
+            return Integer.valueOf(blockIndex);
+        }
+    }
+}
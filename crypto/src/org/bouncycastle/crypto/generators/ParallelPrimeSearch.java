@@ -0,0 +1,111 @@
+package org.bouncycastle.crypto.generators;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a prime search as several independent searches on an executor, each sieving and
+ * testing candidates from its own random starting points, taking the first prime found.
+ */
+class ParallelPrimeSearch
+{
+    private final ExecutorService executor;
+    private final int             parallelism;
+
+    /**
+     * Base constructor.
+     *
+     * @param executor the executor the searches are submitted to, for example a ForkJoinPool.
+     * @param parallelism the number of searches to run at once.
+     */
+    ParallelPrimeSearch(ExecutorService executor, int parallelism)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    BigInteger search(PrimeSearch search)
+    {
+        if (parallelism == 1)
+        {
+            return search.search();
+        }
+
+        CompletionService<BigInteger> completion = new ExecutorCompletionService<BigInteger>(executor);
+        List<Future<BigInteger>>      tasks = new ArrayList<Future<BigInteger>>();
+
+        try
+        {
+            for (int i = 0; i != parallelism; i++)
+            {
+                tasks.add(completion.submit(new SearchTask(search)));
+            }
+
+            //
+            // searches which see another has finished return null.
+            //
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                BigInteger prime = completion.take().get();
+
+                if (prime != null)
+                {
+                    return prime;
+                }
+            }
+
+            throw new IllegalStateException("prime search stopped without a result");
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for prime search: " + e.getMessage());
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException("exception processing prime search: " + cause);
+        }
+        finally
+        {
+            search.stop();
+
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).cancel(false);
+            }
+        }
+    }
+
+    private static class SearchTask
+        implements Callable<BigInteger>
+    {
+        private final PrimeSearch search;
+
+        SearchTask(PrimeSearch search)
+        {
+            this.search = search;
+        }
+
+        public BigInteger call()
+        {
+            return search.search();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.bouncycastle.crypto.generators;
+
+import java.math.BigInteger;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * An RSA key pair generator which searches for each of the primes on several threads of
+ * an executor at once, each thread sieving and testing its own candidates, so the time
+ * taken to find a prime is that of the luckiest search.
+ */
+public class ParallelRSAKeyPairGenerator
+    extends RSAKeyPairGenerator
+{
+    private final ParallelPrimeSearch primeSearch;
+
+    /**
+     * Base constructor.
+     *
+     * @param executor the executor the prime searches are submitted to, for example a ForkJoinPool.
+     * @param parallelism the number of searches to run at once for each prime.
+     */
+    public ParallelRSAKeyPairGenerator(ExecutorService executor, int parallelism)
+    {
+        this.primeSearch = new ParallelPrimeSearch(executor, parallelism);
+    }
+
+    BigInteger findPrime(PrimeSearch search)
+    {
+        return primeSearch.search(search);
+    }
+}
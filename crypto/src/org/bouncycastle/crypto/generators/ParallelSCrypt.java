@@ -0,0 +1,204 @@
+package org.bouncycastle.crypto.generators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.bouncycastle.crypto.util.Pack;
+
+/**
+ * An scrypt engine which runs the p independent SMix lanes on an executor. The
+ * result is identical to SCrypt.generate().
+ * <p>
+ * The working storage for each lane, which for the V array is N * r * 128 bytes,
+ * is kept between calls with the same N and r so repeated derivations do not
+ * reallocate it. Between calls it still holds values derived from the last password,
+ * so wipe() should be called once the engine is finished with. Instances are not
+ * thread safe.
+ */
+public class ParallelSCrypt
+{
+    private final ExecutorService executor;
+
+    private SCrypt.SMixBuffers[]  buffers = new SCrypt.SMixBuffers[0];
+
+    /**
+     * Base constructor.
+     *
+     * @param executor the executor lanes are submitted to.
+     */
+    public ParallelSCrypt(ExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Generate a key using the scrypt key derivation function.
+     *
+     * @param P the bytes of the pass phrase.
+     * @param S the salt to use for this invocation.
+     * @param N CPU/Memory cost parameter. Must be larger than 1 and a power of 2.
+     * @param r the block size, must be >= 1.
+     * @param p parallelization parameter, the number of lanes run on the executor. Must be >= 1.
+     * @param dkLen the length of the key to generate.
+     * @return the generated key.
+     */
+    public byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    {
+        if (N <= 1 || (N & (N - 1)) != 0)
+        {
+            throw new IllegalArgumentException("Cost parameter N must be > 1 and a power of 2");
+        }
+
+        if (r < 1 || (long)N * r * 128 > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Block size r must be >= 1 and N * r * 128 must fit in an array");
+        }
+
+        if (p < 1 || (long)p * r * 128 > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Parallelisation parameter p must be >= 1 and p * r * 128 must fit in an array");
+        }
+
+        if (dkLen < 1)
+        {
+            throw new IllegalArgumentException("Generated key length dkLen must be >= 1.");
+        }
+
+        int    MFLenWords = r * 32;
+        byte[] bytes = SCrypt.SingleIterationPBKDF2(P, S, p * r * 128);
+        int[]  B = null;
+
+        try
+        {
+            B = new int[bytes.length >>> 2];
+
+            Pack.littleEndianToInt(bytes, 0, B);
+
+            getBuffers(N, r, p);
+
+            if (p == 1)
+            {
+                SCrypt.SMix(B, 0, buffers[0]);
+            }
+            else
+            {
+                runLanes(B, MFLenWords, p);
+            }
+
+            Pack.intToLittleEndian(B, bytes, 0);
+
+            return SCrypt.SingleIterationPBKDF2(P, bytes, dkLen);
+        }
+        finally
+        {
+            SCrypt.Clear(bytes);
+            SCrypt.Clear(B);
+        }
+    }
+
+    /**
+     * Zero and release all the working storage held by the engine.
+     */
+    public void wipe()
+    {
+        for (int i = 0; i != buffers.length; i++)
+        {
+            if (buffers[i] != null)
+            {
+                buffers[i].clear();
+            }
+        }
+
+        buffers = new SCrypt.SMixBuffers[0];
+    }
+
+    private void getBuffers(int N, int r, int p)
+    {
+        if (buffers.length < p)
+        {
+            SCrypt.SMixBuffers[] tmp = new SCrypt.SMixBuffers[p];
+
+            System.arraycopy(buffers, 0, tmp, 0, buffers.length);
+
+            buffers = tmp;
+        }
+
+        for (int i = 0; i != p; i++)
+        {
+            if (buffers[i] == null || !buffers[i].matches(N, r))
+            {
+                if (buffers[i] != null)
+                {
+                    buffers[i].clear();
+                }
+
+                buffers[i] = new SCrypt.SMixBuffers(N, r);
+            }
+        }
+    }
+
+    private void runLanes(int[] B, int MFLenWords, int p)
+    {
+        List<Future<Integer>> tasks = new ArrayList<Future<Integer>>();
+
+        try
+        {
+            for (int i = 0; i != p; i++)
+            {
+                tasks.add(executor.submit(new LaneTask(B, i * MFLenWords, buffers[i])));
+            }
+
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for SMix lane: " + e.getMessage());
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException("exception processing SMix lane: " + cause);
+        }
+        finally
+        {
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).cancel(false);
+            }
+        }
+    }
+
+    private static class LaneTask
+        implements Callable<Integer>
+    {
+        private final int[]               B;
+        private final int                 BOff;
+        private final SCrypt.SMixBuffers  buffers;
+
+        LaneTask(int[] B, int BOff, SCrypt.SMixBuffers buffers)
+        {
+            this.B = B;
+            this.BOff = BOff;
+            this.buffers = buffers;
+        }
+
+        public Integer call()
+        {
+            SCrypt.SMix(B, BOff, buffers);
+
+            return Integer.valueOf(BOff);
+        }
+    }
+}
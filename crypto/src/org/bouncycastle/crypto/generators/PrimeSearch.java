@@ -0,0 +1,238 @@
+package org.bouncycastle.crypto.generators;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+/**
+ * A search for a prime of a given bit length. Starting from a random odd number, a window
+ * of the odd numbers following it is sieved against a table of small primes, and only the
+ * candidates which survive are passed to isPrime() for the expensive probabilistic tests.
+ * When the window is used up the search restarts from a new random number.
+ * <p>
+ * For a safe prime search the candidates are values q for which 2q + 1 must also be prime,
+ * and both are sieved.
+ * <p>
+ * search() keeps no state between calls other than the stop flag, so it may be called from
+ * several threads at once, the first to find a prime stopping the others.
+ */
+abstract class PrimeSearch
+{
+    /*
+     * the number of odd candidates sieved from each random starting point.
+     */
+    private static final int WINDOW = 4096;
+
+    /*
+     * smaller candidates are generated one at a time, without sieving.
+     */
+    private static final int MIN_SIEVE_BITS = 24;
+
+    /*
+     * the odd primes below 2^11, used for sieving.
+     */
+    private static final int SIEVE_LIMIT = 2048;
+    private static final int[] SMALL_PRIMES;
+
+    /*
+     * the small primes grouped so the product of each group fits in a long, letting the
+     * residues of a starting point be found with one BigInteger remainder per group.
+     */
+    private static final long[] GROUP_PRODUCTS;
+    private static final int[] GROUP_ENDS;
+
+    static
+    {
+        boolean[] composite = new boolean[SIEVE_LIMIT];
+        int count = 0;
+
+        for (int i = 3; i < SIEVE_LIMIT; i += 2)
+        {
+            if (!composite[i])
+            {
+                count++;
+                for (int j = i * i; j < SIEVE_LIMIT; j += 2 * i)
+                {
+                    composite[j] = true;
+                }
+            }
+        }
+
+        SMALL_PRIMES = new int[count];
+        count = 0;
+        for (int i = 3; i < SIEVE_LIMIT; i += 2)
+        {
+            if (!composite[i])
+            {
+                SMALL_PRIMES[count++] = i;
+            }
+        }
+
+        long[] products = new long[SMALL_PRIMES.length];
+        int[] ends = new int[SMALL_PRIMES.length];
+        int groups = 0;
+
+        for (int i = 0; i < SMALL_PRIMES.length;)
+        {
+            long product = SMALL_PRIMES[i++];
+
+            while (i < SMALL_PRIMES.length && product < Long.MAX_VALUE / SMALL_PRIMES[i])
+            {
+                product *= SMALL_PRIMES[i++];
+            }
+
+            products[groups] = product;
+            ends[groups++] = i;
+        }
+
+        GROUP_PRODUCTS = new long[groups];
+        GROUP_ENDS = new int[groups];
+        System.arraycopy(products, 0, GROUP_PRODUCTS, 0, groups);
+        System.arraycopy(ends, 0, GROUP_ENDS, 0, groups);
+    }
+
+    private int          bitLength;
+    private boolean      safe;
+    private SecureRandom random;
+
+    private volatile boolean stopped;
+
+    /**
+     * Base constructor.
+     *
+     * @param bitLength the bit length of the candidates.
+     * @param safe true if 2 * candidate + 1 must also be free of small factors.
+     * @param random the source of the random starting points.
+     */
+    PrimeSearch(int bitLength, boolean safe, SecureRandom random)
+    {
+        this.bitLength = bitLength;
+        this.safe = safe;
+        this.random = random;
+    }
+
+    /**
+     * Run the full tests on a candidate which has passed the sieve.
+     *
+     * @param candidate an odd number of the required bit length, free of small factors.
+     * @return true if the candidate should be returned by search().
+     */
+    abstract boolean isPrime(BigInteger candidate);
+
+    /**
+     * Search for a candidate accepted by isPrime().
+     *
+     * @return the candidate found, or null if the search was stopped by another thread.
+     */
+    BigInteger search()
+    {
+        if (bitLength < MIN_SIEVE_BITS)
+        {
+            return searchUnsieved();
+        }
+
+        boolean[] sieve = new boolean[WINDOW];
+
+        while (!stopped)
+        {
+            BigInteger start = new BigInteger(bitLength, random).setBit(bitLength - 1).setBit(0);
+
+            sieveWindow(start, sieve);
+
+            for (int i = 0; i != WINDOW && !stopped; i++)
+            {
+                if (sieve[i])
+                {
+                    continue;
+                }
+
+                BigInteger candidate = start.add(BigInteger.valueOf(2 * i));
+
+                if (candidate.bitLength() != bitLength)
+                {
+                    break;
+                }
+
+                if (isPrime(candidate))
+                {
+                    stopped = true;
+
+                    return candidate;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Stop any searches in progress.
+     */
+    void stop()
+    {
+        stopped = true;
+    }
+
+    /*
+     * candidates too small to sieve without the sieve rejecting the small primes themselves.
+     */
+    private BigInteger searchUnsieved()
+    {
+        while (!stopped)
+        {
+            BigInteger candidate = new BigInteger(bitLength, 1, random);
+
+            if (isPrime(candidate))
+            {
+                stopped = true;
+
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /*
+     * mark sieve[i] for each start + 2i with a small factor (or, for a safe search, with
+     * 2(start + 2i) + 1 having one).
+     */
+    private void sieveWindow(BigInteger start, boolean[] sieve)
+    {
+        for (int i = 0; i != WINDOW; i++)
+        {
+            sieve[i] = false;
+        }
+
+        int pos = 0;
+        for (int g = 0; g != GROUP_PRODUCTS.length; g++)
+        {
+            long rem = start.remainder(BigInteger.valueOf(GROUP_PRODUCTS[g])).longValue();
+
+            for (; pos != GROUP_ENDS[g]; pos++)
+            {
+                int p = SMALL_PRIMES[pos];
+                int r = (int)(rem % p);
+                int half = (p + 1) / 2;    // inverse of 2 mod p
+
+                // start + 2i == 0 mod p when i == -r / 2 mod p
+                mark(sieve, (int)((long)(p - r) * half % p), p);
+
+                if (safe)
+                {
+                    // 2(start + 2i) + 1 == 0 mod p when i == -(2r + 1) / 4 mod p
+                    int s = (2 * r + 1) % p;
+
+                    mark(sieve, (int)((long)(p - s) % p * half % p * half % p), p);
+                }
+            }
+        }
+    }
+
+    private static void mark(boolean[] sieve, int first, int step)
+    {
+        for (int i = first; i < WINDOW; i += step)
+        {
+            sieve[i] = true;
+        }
+    }
+}
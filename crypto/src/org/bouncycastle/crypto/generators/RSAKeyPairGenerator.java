@@ -5,6 +5,7 @@ import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
 import org.bouncycastle.crypto.KeyGenerationParameters;
 import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.params.RSAMultiPrimeCrtKeyParameters;
 import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
 
 import java.math.BigInteger;
@@ -27,121 +28,173 @@ public class RSAKeyPairGenerator
 
     public AsymmetricCipherKeyPair generateKeyPair()
     {
-        BigInteger    p, q, n, d, e, pSub1, qSub1, phi;
-
-        //
-        // p and q values should have a length of half the strength in bits
-        //
         int strength = param.getStrength();
-        int pbitlength = (strength + 1) / 2;
-        int qbitlength = strength - pbitlength;
-        int mindiffbits = strength / 3;
+        int numPrimes = param.getNumPrimes();
+        int mindiffbits = strength / (numPrimes + 1);      // strength / 3 for p and q
 
-        e = param.getPublicExponent();
+        BigInteger e = param.getPublicExponent();
 
         // TODO Consider generating safe primes for p, q (see DHParametersHelper.generateSafePrimes)
         // (then p-1 and q-1 will not consist of only small factors - see "Pollard's algorithm")
 
         //
-        // generate p, prime and (p-1) relatively prime to e
+        // the primes share the strength in bits between them, any odd bits going to the first ones,
+        // so p and q have a length of half the strength for a two-prime key
         //
-        for (;;)
+        int[] bitlengths = new int[numPrimes];
+        int remaining = strength;
+
+        for (int i = 0; i != numPrimes; i++)
         {
-            p = new BigInteger(pbitlength, 1, param.getRandom());
-            
-            if (p.mod(e).equals(ONE))
-            {
-                continue;
-            }
-            
-            if (!p.isProbablePrime(param.getCertainty()))
-            {
-                continue;
-            }
-            
-            if (e.gcd(p.subtract(ONE)).equals(ONE)) 
-            {
-                break;
-            }
+            bitlengths[i] = (remaining + numPrimes - i - 1) / (numPrimes - i);
+            remaining -= bitlengths[i];
+        }
+
+        BigInteger[] primes = new BigInteger[numPrimes];
+
+        for (int i = 0; i != numPrimes; i++)
+        {
+            primes[i] = choosePrime(bitlengths[i], primes, i, mindiffbits, e);
         }
 
         //
         // generate a modulus of the required length
         //
+        BigInteger n;
         for (;;)
         {
-            // generate q, prime and (q-1) relatively prime to e,
-            // and not equal to p
-            //
-            for (;;)
+            n = primes[0];
+            for (int i = 1; i != numPrimes; i++)
             {
-                q = new BigInteger(qbitlength, 1, param.getRandom());
-
-                if (q.subtract(p).abs().bitLength() < mindiffbits)
-                {
-                    continue;
-                }
-                
-                if (q.mod(e).equals(ONE))
-                {
-                    continue;
-                }
-            
-                if (!q.isProbablePrime(param.getCertainty()))
-                {
-                    continue;
-                }
-            
-                if (e.gcd(q.subtract(ONE)).equals(ONE)) 
-                {
-                    break;
-                } 
+                n = n.multiply(primes[i]);
             }
 
-            //
-            // calculate the modulus
-            //
-            n = p.multiply(q);
-
-            if (n.bitLength() == param.getStrength()) 
+            if (n.bitLength() == strength)
             {
                 break;
-            } 
+            }
 
             //
-            // if we get here our primes aren't big enough, make the largest
-            // of the two p and try again
+            // if we get here our primes aren't big enough, move the smallest
+            // to the end and replace it (for a two-prime key, make the largest
+            // of the two p and try again)
             //
-            p = p.max(q);
+            int smallest = 0;
+            for (int i = 1; i != numPrimes; i++)
+            {
+                if (primes[i].compareTo(primes[smallest]) < 0)
+                {
+                    smallest = i;
+                }
+            }
+
+            primes[smallest] = primes[numPrimes - 1];
+            primes[numPrimes - 1] = choosePrime(bitlengths[numPrimes - 1], primes, numPrimes - 1, mindiffbits, e);
         }
 
-        if (p.compareTo(q) < 0)
+        if (primes[0].compareTo(primes[1]) < 0)
         {
-            phi = p;
-            p = q;
-            q = phi;
+            BigInteger tmp = primes[0];
+            primes[0] = primes[1];
+            primes[1] = tmp;
         }
 
-        pSub1 = p.subtract(ONE);
-        qSub1 = q.subtract(ONE);
-        phi = pSub1.multiply(qSub1);
+        BigInteger phi = ONE;
+        for (int i = 0; i != numPrimes; i++)
+        {
+            phi = phi.multiply(primes[i].subtract(ONE));
+        }
 
         //
         // calculate the private exponent
         //
-        d = e.modInverse(phi);
+        BigInteger d = e.modInverse(phi);
 
         //
-        // calculate the CRT factors
+        // calculate the CRT factors, for the other primes the coefficient is
+        // the inverse of the product of the primes before it.
         //
-        BigInteger    dP, dQ, qInv;
+        BigInteger p = primes[0];
+        BigInteger q = primes[1];
+        BigInteger dP = d.remainder(p.subtract(ONE));
+        BigInteger dQ = d.remainder(q.subtract(ONE));
+        BigInteger qInv = q.modInverse(p);
+
+        if (numPrimes == 2)
+        {
+            return new AsymmetricCipherKeyPair(
+                    new RSAKeyParameters(false, n, e),
+                    new RSAPrivateCrtKeyParameters(n, e, d, p, q, dP, dQ, qInv));
+        }
+
+        BigInteger[] otherPrimes = new BigInteger[numPrimes - 2];
+        BigInteger[] otherExponents = new BigInteger[numPrimes - 2];
+        BigInteger[] otherCoefficients = new BigInteger[numPrimes - 2];
+        BigInteger r = p.multiply(q);
 
-        dP = d.remainder(pSub1);
-        dQ = d.remainder(qSub1);
-        qInv = q.modInverse(p);
+        for (int i = 0; i != otherPrimes.length; i++)
+        {
+            BigInteger prime = primes[i + 2];
+
+            otherPrimes[i] = prime;
+            otherExponents[i] = d.remainder(prime.subtract(ONE));
+            otherCoefficients[i] = r.modInverse(prime);
+
+            r = r.multiply(prime);
+        }
 
         return new AsymmetricCipherKeyPair(
                 new RSAKeyParameters(false, n, e),
-                new RSAPrivateCrtKeyParameters(n, e, d, p, q, dP, dQ, qInv));
+                new RSAMultiPrimeCrtKeyParameters(n, e, d, p, q, dP, dQ, qInv,
+                    otherPrimes, otherExponents, otherCoefficients));
+    }
+
+    /**
+     * Choose a prime of the given length with (prime - 1) relatively prime to e, and
+     * not too close to any of the first count primes already chosen.
+     */
+    private BigInteger choosePrime(final int bitlength, final BigInteger[] primes, final int count, final int mindiffbits, final BigInteger e)
+    {
+        final BigInteger[] others = new BigInteger[count];
+        final int          certainty = param.getCertainty();
+
+        System.arraycopy(primes, 0, others, 0, count);
+
+        return findPrime(new PrimeSearch(bitlength, false, param.getRandom())
+        {
+            boolean isPrime(BigInteger prime)
+            {
+                for (int i = 0; i != others.length; i++)
+                {
+                    if (prime.subtract(others[i]).abs().bitLength() < mindiffbits)
+                    {
+                        return false;
+                    }
+                }
+
+                if (prime.mod(e).equals(ONE))
+                {
+                    return false;
+                }
+
+                if (!prime.isProbablePrime(certainty))
+                {
+                    return false;
+                }
+
+                return e.gcd(prime.subtract(ONE)).equals(ONE);
+            }
+        });
+    }
+
+    /**
+     * Run a search for one of the primes.
+     *
+     * @param search the search to run.
+     * @return the prime found.
+     */
+    BigInteger findPrime(PrimeSearch search)
+    {
+        return search.search();
     }
 }
@@ -21,6 +21,7 @@ public class SCrypt
         byte[] bytes = SingleIterationPBKDF2(P, S, p * MFLenBytes);
 
         int[] B = null;
+        SMixBuffers buffers = null;
 
         try
         {
@@ -29,11 +30,12 @@ public class SCrypt
 
             Pack.littleEndianToInt(bytes, 0, B);
 
+            buffers = new SMixBuffers(N, r);
+
             int MFLenWords = MFLenBytes >>> 2;
             for (int BOff = 0; BOff < BLen; BOff += MFLenWords)
             {
-                // TODO These can be done in parallel threads
-                SMix(B, BOff, N, r);
+                SMix(B, BOff, buffers);
             }
 
             Pack.intToLittleEndian(B, bytes, 0);
@@ -44,10 +46,15 @@ public class SCrypt
         {
             Clear(bytes);
             Clear(B);
+
+            if (buffers != null)
+            {
+                buffers.clear();
+            }
         }
     }
 
-    private static byte[] SingleIterationPBKDF2(byte[] P, byte[] S, int dkLen)
+    static byte[] SingleIterationPBKDF2(byte[] P, byte[] S, int dkLen)
     {
         PBEParametersGenerator pGen = new PKCS5S2ParametersGenerator(new SHA256Digest());
         pGen.init(P, S, 1);
@@ -55,42 +62,40 @@ public class SCrypt
         return key.getKey();
     }
 
-    private static void SMix(int[] B, int BOff, int N, int r)
+    /**
+     * Run SMix over the r * 32 words of B starting at BOff, using the passed in
+     * working storage in place of any allocation.
+     */
+    static void SMix(int[] B, int BOff, SMixBuffers buffers)
     {
-        int BCount = r * 32;
-
-        int[] blockX1 = new int[16];
-        int[] blockX2 = new int[16];
-        int[] blockY = new int[BCount];
+        int   N = buffers.N;
+        int   r = buffers.r;
+        int   BCount = r * 32;
+        int[] X = buffers.X;
+        int[] V = buffers.V;
 
-        int[] X = new int[BCount];
-        int[][] V = new int[N][];
+        System.arraycopy(B, BOff, X, 0, BCount);
 
-        try
+        for (int i = 0, VOff = 0; i < N; ++i, VOff += BCount)
         {
-            System.arraycopy(B, BOff, X, 0, BCount);
-
-            for (int i = 0; i < N; ++i)
-            {
-                V[i] = Arrays.clone(X);
-                BlockMix(X, blockX1, blockX2, blockY, r);
-            }
-
-            int mask = N - 1;
-            for (int i = 0; i < N; ++i)
-            {
-                int j = X[BCount - 16] & mask;
-                Xor(X, V[j], 0, X);
-                BlockMix(X, blockX1, blockX2, blockY, r);
-            }
-
-            System.arraycopy(X, 0, B, BOff, BCount);
+            System.arraycopy(X, 0, V, VOff, BCount);
+            BlockMix(X, buffers.blockX1, buffers.blockX2, buffers.blockY, r);
         }
-        finally
+
+        int mask = N - 1;
+        for (int i = 0; i < N; ++i)
         {
-            ClearAll(V);
-            ClearAll(new int[][]{ X, blockX1, blockX2, blockY });
+            int j = X[BCount - 16] & mask;
+            Xor(X, V, j * BCount, X);
+            BlockMix(X, buffers.blockX1, buffers.blockX2, buffers.blockY, r);
         }
+
+        System.arraycopy(X, 0, B, BOff, BCount);
+
+        Clear(X);
+        Clear(buffers.blockX1);
+        Clear(buffers.blockX2);
+        Clear(buffers.blockY);
     }
 
     private static void BlockMix(int[] B, int[] X1, int[] X2, int[] Y, int r)
@@ -121,7 +126,7 @@ public class SCrypt
         }
     }
 
-    private static void Clear(byte[] array)
+    static void Clear(byte[] array)
     {
         if (array != null)
         {
@@ -129,7 +134,7 @@ public class SCrypt
         }
     }
 
-    private static void Clear(int[] array)
+    static void Clear(int[] array)
     {
         if (array != null)
         {
@@ -137,11 +142,41 @@ public class SCrypt
         }
     }
 
-    private static void ClearAll(int[][] arrays)
+    /**
+     * Working storage for one SMix lane, reusable between calls with the same N and r.
+     * V holds N copies of the lane's block, so is N * r * 128 bytes long.
+     */
+    static class SMixBuffers
     {
-        for (int i = 0; i < arrays.length; ++i)
+        final int   N;
+        final int   r;
+        final int[] V;
+        final int[] X;
+        final int[] blockX1 = new int[16];
+        final int[] blockX2 = new int[16];
+        final int[] blockY;
+
+        SMixBuffers(int N, int r)
+        {
+            this.N = N;
+            this.r = r;
+            this.V = new int[N * r * 32];
+            this.X = new int[r * 32];
+            this.blockY = new int[r * 32];
+        }
+
+        boolean matches(int N, int r)
+        {
+            return this.N == N && this.r == r;
+        }
+
+        void clear()
         {
-            Clear(arrays[i]);
+            Clear(V);
+            Clear(X);
+            Clear(blockX1);
+            Clear(blockX2);
+            Clear(blockY);
         }
     }
 }
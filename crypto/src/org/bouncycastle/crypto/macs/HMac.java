@@ -7,11 +7,16 @@ import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.ExtendedDigest;
 import org.bouncycastle.crypto.Mac;
 import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Memoable;
 
 /**
  * HMAC implementation based on RFC2104
  *
  * H(K XOR opad, H(K XOR ipad, text))
+ * <p>
+ * If the digest implements Memoable its state after absorbing each of the pads is saved
+ * when the key is set, so reset() and doFinal() restore those states rather than
+ * hashing the pads again.
  */
 public class HMac
     implements Mac
@@ -25,6 +30,10 @@ public class HMac
     
     private byte[] inputPad;
     private byte[] outputPad;
+    private byte[] innerHash;
+
+    private Memoable ipadState;
+    private Memoable opadState;
 
     private static Hashtable blockLengths;
     
@@ -92,6 +101,7 @@ public class HMac
 
         inputPad = new byte[blockLength];
         outputPad = new byte[blockLength];
+        innerHash = new byte[digestSize];
     }
     
     public String getAlgorithmName()
@@ -129,7 +139,6 @@ public class HMac
             }
         }
 
-        outputPad = new byte[inputPad.length];
         System.arraycopy(inputPad, 0, outputPad, 0, inputPad.length);
 
         for (int i = 0; i < inputPad.length; i++)
@@ -142,7 +151,19 @@ public class HMac
             outputPad[i] ^= OPAD;
         }
 
-        digest.update(inputPad, 0, inputPad.length);
+        if (digest instanceof Memoable)
+        {
+            digest.update(outputPad, 0, outputPad.length);
+            opadState = ((Memoable)digest).copy();
+
+            digest.reset();
+            digest.update(inputPad, 0, inputPad.length);
+            ipadState = ((Memoable)digest).copy();
+        }
+        else
+        {
+            digest.update(inputPad, 0, inputPad.length);
+        }
     }
 
     public int getMacSize()
@@ -168,14 +189,26 @@ public class HMac
         byte[] out,
         int outOff)
     {
-        byte[] tmp = new byte[digestSize];
-        digest.doFinal(tmp, 0);
+        digest.doFinal(innerHash, 0);
+
+        if (opadState != null)
+        {
+            ((Memoable)digest).reset(opadState);
+        }
+        else
+        {
+            digest.update(outputPad, 0, outputPad.length);
+        }
 
-        digest.update(outputPad, 0, outputPad.length);
-        digest.update(tmp, 0, tmp.length);
+        digest.update(innerHash, 0, innerHash.length);
 
         int     len = digest.doFinal(out, outOff);
 
+        for (int i = 0; i < innerHash.length; i++)
+        {
+            innerHash[i] = 0;
+        }
+
         reset();
 
         return len;
@@ -186,6 +219,15 @@ public class HMac
      */
     public void reset()
     {
+        if (ipadState != null)
+        {
+            /*
+             * restore the digest state saved after the input pad.
+             */
+            ((Memoable)digest).reset(ipadState);
+            return;
+        }
+
         /*
          * reset the underlying digest.
          */
@@ -3,6 +3,7 @@ package org.bouncycastle.crypto.modes;
 import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.params.ParametersWithIV;
 import org.bouncycastle.util.Arrays;
 
@@ -10,11 +11,12 @@ import org.bouncycastle.util.Arrays;
  * implements Cipher-Block-Chaining (CBC) mode on top of a simple cipher.
  */
 public class CBCBlockCipher
-    implements BlockCipher
+    implements MultiBlockCipher
 {
     private byte[]          IV;
     private byte[]          cbcV;
     private byte[]          cbcNextV;
+    private byte[]          cbcBlocks;
 
     private int             blockSize;
     private BlockCipher     cipher = null;
@@ -148,6 +150,111 @@ public class CBCBlockCipher
         return (encrypting) ? encryptBlock(in, inOff, out, outOff) : decryptBlock(in, inOff, out, outOff);
     }
 
+    /**
+     * return the preferred number of bytes for a call to processBlocks().
+     *
+     * @return the multi block size of the underlying cipher, or the block size
+     * if the underlying cipher cannot process several blocks at once.
+     */
+    public int getMultiBlockSize()
+    {
+        if (cipher instanceof MultiBlockCipher)
+        {
+            return ((MultiBlockCipher)cipher).getMultiBlockSize();
+        }
+
+        return blockSize;
+    }
+
+    /**
+     * Process blockCount blocks of input from the array in and write them to
+     * the out array. Decryption is handed to the underlying cipher a run of blocks
+     * at a time where it supports it, encryption is inherently serial.
+     *
+     * @param in the array containing the input data.
+     * @param inOff offset into the in array the data starts at.
+     * @param blockCount the number of blocks to be processed.
+     * @param out the array the output data will be copied into.
+     * @param outOff the offset into the out array the output will start at.
+     * @exception DataLengthException if there isn't enough data in in, or
+     * space in out.
+     * @exception IllegalStateException if the cipher isn't initialised.
+     * @return the number of bytes processed and produced.
+     */
+    public int processBlocks(
+        byte[]      in,
+        int         inOff,
+        int         blockCount,
+        byte[]      out,
+        int         outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        int len = blockCount * blockSize;
+
+        if (blockCount < 0 || (inOff + len) > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        if ((outOff + len) > out.length)
+        {
+            throw new DataLengthException("output buffer too short");
+        }
+
+        if (encrypting || !(cipher instanceof MultiBlockCipher))
+        {
+            for (int i = 0; i != len; i += blockSize)
+            {
+                processBlock(in, inOff + i, out, outOff + i);
+            }
+
+            return len;
+        }
+
+        MultiBlockCipher multiCipher = (MultiBlockCipher)cipher;
+
+        if (cbcBlocks == null)
+        {
+            cbcBlocks = new byte[Math.max(multiCipher.getMultiBlockSize() / blockSize, 1) * blockSize];
+        }
+
+        int maxBlocks = cbcBlocks.length / blockSize;
+        int pos = 0;
+
+        while (blockCount > 0)
+        {
+            int count = Math.min(blockCount, maxBlocks);
+            int bytes = count * blockSize;
+
+            /*
+             * keep a copy of the cipher text, so in and out may be the same array
+             */
+            System.arraycopy(in, inOff + pos, cbcBlocks, 0, bytes);
+
+            multiCipher.processBlocks(cbcBlocks, 0, count, out, outOff + pos);
+
+            /*
+             * XOR the cbcV and the preceding cipher text blocks with the output
+             */
+            for (int i = 0; i < blockSize; i++)
+            {
+                out[outOff + pos + i] ^= cbcV[i];
+            }
+
+            for (int i = blockSize; i < bytes; i++)
+            {
+                out[outOff + pos + i] ^= cbcBlocks[i - blockSize];
+            }
+
+            System.arraycopy(cbcBlocks, bytes - blockSize, cbcV, 0, blockSize);
+
+            pos += bytes;
+            blockCount -= count;
+        }
+
+        return len;
+    }
+
     /**
      * reset the chaining vector back to the IV and reset the underlying
      * cipher.
@@ -16,7 +16,13 @@ import org.bouncycastle.util.Arrays;
  * Implements the Counter with Cipher Block Chaining mode (CCM) detailed in
  * NIST Special Publication 800-38C.
  * <p>
- * <b>Note</b>: this mode is a packet mode - it needs all the data up front.
+ * <b>Note</b>: this mode is a packet mode - it needs all the data up front. By default
+ * the data is buffered and processed in doFinal(). If the total length of the input is
+ * declared using setDataLength() after init(), encryption is done in a single pass, with
+ * the cipher text produced as the data is passed in. Decryption can be done in a single
+ * pass in the same way if the cipher is constructed with release before verify enabled -
+ * in that case plain text is returned before the MAC has been checked, and the caller
+ * must discard all of it if doFinal() throws an InvalidCipherTextException.
  */
 public class CCMBlockCipher
     implements AEADBlockCipher
@@ -31,16 +37,43 @@ public class CCMBlockCipher
     private byte[]                macBlock;
     private ByteArrayOutputStream data = new ByteArrayOutputStream();
 
+    // single pass state
+    private boolean               releaseBeforeVerify;
+    private int                   dataLength = -1;
+    private int                   dataOff;
+    private boolean               streaming;
+    private SICBlockCipher        ctrCipher;
+    private Mac                   streamMac;
+    private byte[]                s0;
+    private byte[]                bufBlock;
+    private int                   bufOff;
+
     /**
      * Basic constructor.
      *
      * @param c the block cipher to be used.
      */
     public CCMBlockCipher(BlockCipher c)
+    {
+        this(c, false);
+    }
+
+    /**
+     * Constructor allowing single pass decryption to be enabled.
+     * <p>
+     * <b>Note</b>: with release before verify enabled, decryption with a declared data length
+     * returns plain text before the MAC has been checked. Only use this where the caller
+     * discards everything it has been given if doFinal() fails.
+     *
+     * @param c the block cipher to be used.
+     * @param releaseBeforeVerify true if decrypted data may be returned before the MAC is checked.
+     */
+    public CCMBlockCipher(BlockCipher c, boolean releaseBeforeVerify)
     {
         this.cipher = c;
         this.blockSize = c.getBlockSize();
         this.macBlock = new byte[blockSize];
+        this.releaseBeforeVerify = releaseBeforeVerify;
         
         if (blockSize != 16)
         {
@@ -86,6 +119,55 @@ public class CCMBlockCipher
         {
             throw new IllegalArgumentException("invalid parameters passed to CCM");
         }
+
+        reset();
+    }
+
+    /**
+     * Declare the total number of bytes that will be passed in before the next doFinal(),
+     * the plain text length for encryption or the cipher text length, including the MAC,
+     * for decryption. Must be called after init(), or reset(), and before any data is processed.
+     * <p>
+     * Once the length is known encryption is done in a single pass, as is decryption if
+     * release before verify is enabled. Otherwise the data is still buffered, but the
+     * length is checked in doFinal().
+     *
+     * @param dataLength the total input length for the message.
+     * @exception IllegalStateException if the cipher is not initialised or data has already been processed.
+     * @exception IllegalArgumentException if the length cannot be used with the nonce and MAC size.
+     */
+    public void setDataLength(int dataLength)
+        throws IllegalStateException, IllegalArgumentException
+    {
+        if (keyParam == null)
+        {
+            throw new IllegalStateException("CCM cipher unitialized.");
+        }
+
+        if (streaming || data.size() != 0)
+        {
+            throw new IllegalStateException("data length must be set before any data is processed");
+        }
+
+        int textLength = forEncryption ? dataLength : dataLength - macSize;
+
+        if (textLength < 0)
+        {
+            throw new IllegalArgumentException("data length too short");
+        }
+
+        int q = 15 - nonce.length;
+        if (q < 4 && textLength >= (1 << (8 * q)))
+        {
+            throw new IllegalArgumentException("data length too long for nonce size");
+        }
+
+        this.dataLength = dataLength;
+
+        if (forEncryption || releaseBeforeVerify)
+        {
+            startStream(textLength);
+        }
     }
 
     public String getAlgorithmName()
@@ -96,7 +178,23 @@ public class CCMBlockCipher
     public int processByte(byte in, byte[] out, int outOff)
         throws DataLengthException, IllegalStateException
     {
-        data.write(in);
+        checkDataLength(1);
+
+        if (!streaming)
+        {
+            data.write(in);
+
+            return 0;
+        }
+
+        dataOff++;
+        bufBlock[bufOff++] = in;
+
+        if (bufOff == bufBlock.length)
+        {
+            outputBlock(out, outOff);
+            return blockSize;
+        }
 
         return 0;
     }
@@ -104,14 +202,58 @@ public class CCMBlockCipher
     public int processBytes(byte[] in, int inOff, int inLen, byte[] out, int outOff)
         throws DataLengthException, IllegalStateException
     {
-        data.write(in, inOff, inLen);
+        if ((inOff + inLen) > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
 
-        return 0;
+        checkDataLength(inLen);
+
+        if (!streaming)
+        {
+            data.write(in, inOff, inLen);
+
+            return 0;
+        }
+
+        int resultLen = 0;
+
+        dataOff += inLen;
+
+        while (inLen > 0)
+        {
+            int count = Math.min(inLen, bufBlock.length - bufOff);
+
+            System.arraycopy(in, inOff, bufBlock, bufOff, count);
+            bufOff += count;
+            inOff += count;
+            inLen -= count;
+
+            if (bufOff == bufBlock.length)
+            {
+                outputBlock(out, outOff + resultLen);
+                resultLen += blockSize;
+            }
+        }
+
+        return resultLen;
     }
 
     public int doFinal(byte[] out, int outOff)
         throws IllegalStateException, InvalidCipherTextException
     {
+        if (dataLength >= 0 && (streaming ? dataOff : data.size()) != dataLength)
+        {
+            reset();
+
+            throw new DataLengthException("CCM data length does not match declared length");
+        }
+
+        if (streaming)
+        {
+            return finishStream(out, outOff);
+        }
+
         byte[] text = data.toByteArray();
         byte[] enc = processPacket(text, 0, text.length);
 
@@ -122,10 +264,34 @@ public class CCMBlockCipher
         return enc.length;
     }
 
+    /**
+     * Reset the cipher for a new message with the same parameters. Any declared data
+     * length is cleared and must be set again for single pass processing.
+     */
     public void reset()
     {
         cipher.reset();
         data.reset();
+
+        dataLength = -1;
+        dataOff = 0;
+        streaming = false;
+        ctrCipher = null;
+        streamMac = null;
+
+        if (s0 != null)
+        {
+            Arrays.fill(s0, (byte)0);
+            s0 = null;
+        }
+
+        if (bufBlock != null)
+        {
+            Arrays.fill(bufBlock, (byte)0);
+            bufBlock = null;
+        }
+
+        bufOff = 0;
     }
 
     /**
@@ -145,18 +311,32 @@ public class CCMBlockCipher
 
     public int getUpdateOutputSize(int len)
     {
-        return 0;
+        if (!streaming)
+        {
+            return 0;
+        }
+
+        int totalData = len + bufOff - (forEncryption ? 0 : macSize);
+
+        if (totalData < blockSize)
+        {
+            return 0;
+        }
+
+        return totalData - totalData % blockSize;
     }
 
     public int getOutputSize(int len)
     {
+        int pending = streaming ? bufOff : data.size();
+
         if (forEncryption)
         {
-            return data.size() + len + macSize;
+            return pending + len + macSize;
         }
         else
         {
-            return data.size() + len - macSize;
+            return pending + len - macSize;
         }
     }
 
@@ -252,12 +432,158 @@ public class CCMBlockCipher
         return out;
     }
     
+    private void checkDataLength(int len)
+    {
+        if (dataLength >= 0 && (streaming ? dataOff : data.size()) + len > dataLength)
+        {
+            throw new DataLengthException("CCM data exceeds declared length");
+        }
+    }
+
+    private void startStream(int textLength)
+    {
+        byte[] iv = new byte[blockSize];
+
+        iv[0] = (byte)(((15 - nonce.length) - 1) & 0x7);
+
+        System.arraycopy(nonce, 0, iv, 1, nonce.length);
+
+        streamMac = new CBCBlockCipherMac(cipher, macSize * 8);
+        streamMac.init(keyParam);
+        initMac(streamMac, textLength);
+
+        ctrCipher = new SICBlockCipher(cipher);
+        ctrCipher.init(true, new ParametersWithIV(keyParam, iv));
+
+        s0 = new byte[blockSize];
+        ctrCipher.processBlock(s0, 0, s0, 0);                  // S0
+
+        bufBlock = new byte[forEncryption ? blockSize : blockSize + macSize];
+        bufOff = 0;
+        dataOff = 0;
+        streaming = true;
+    }
+
+    private void outputBlock(byte[] out, int outOff)
+    {
+        if (outOff + blockSize > out.length)
+        {
+            throw new DataLengthException("Output buffer too short");
+        }
+
+        if (forEncryption)
+        {
+            streamMac.update(bufBlock, 0, blockSize);
+            ctrCipher.processBlock(bufBlock, 0, out, outOff);
+            bufOff = 0;
+        }
+        else
+        {
+            ctrCipher.processBlock(bufBlock, 0, out, outOff);
+            streamMac.update(out, outOff, blockSize);
+            System.arraycopy(bufBlock, blockSize, bufBlock, 0, macSize);
+            bufOff = macSize;
+        }
+    }
+
+    private int finishStream(byte[] out, int outOff)
+        throws InvalidCipherTextException
+    {
+        int extra = bufOff;
+
+        if (!forEncryption)
+        {
+            if (extra < macSize)
+            {
+                reset();
+
+                throw new InvalidCipherTextException("data too short");
+            }
+            extra -= macSize;
+        }
+
+        if (outOff + extra + (forEncryption ? macSize : 0) > out.length)
+        {
+            throw new DataLengthException("Output buffer too short");
+        }
+
+        if (extra > 0)
+        {
+            byte[] block = new byte[blockSize];
+
+            System.arraycopy(bufBlock, 0, block, 0, extra);
+
+            if (forEncryption)
+            {
+                streamMac.update(block, 0, extra);
+            }
+
+            ctrCipher.processBlock(block, 0, block, 0);
+
+            System.arraycopy(block, 0, out, outOff, extra);
+
+            if (!forEncryption)
+            {
+                streamMac.update(block, 0, extra);
+            }
+        }
+
+        if (forEncryption)
+        {
+            streamMac.doFinal(macBlock, 0);
+
+            for (int i = 0; i != macSize; i++)
+            {
+                macBlock[i] ^= s0[i];
+            }
+
+            System.arraycopy(macBlock, 0, out, outOff + extra, macSize);
+
+            reset();
+
+            return extra + macSize;
+        }
+
+        byte[] calculatedMacBlock = new byte[blockSize];
+
+        streamMac.doFinal(calculatedMacBlock, 0);
+
+        for (int i = 0; i != macBlock.length; i++)
+        {
+            macBlock[i] = (i < macSize) ? (byte)(bufBlock[extra + i] ^ s0[i]) : 0;
+        }
+
+        reset();
+
+        if (!Arrays.constantTimeAreEqual(macBlock, calculatedMacBlock))
+        {
+            throw new InvalidCipherTextException("mac check in CCM failed");
+        }
+
+        return extra;
+    }
+
     private int calculateMac(byte[] data, int dataOff, int dataLen, byte[] macBlock)
     {
         Mac    cMac = new CBCBlockCipherMac(cipher, macSize * 8);
 
         cMac.init(keyParam);
 
+        initMac(cMac, dataLen);
+
+        //
+        // add the text
+        //
+        cMac.update(data, dataOff, dataLen);
+
+        return cMac.doFinal(macBlock, 0);
+    }
+
+    /**
+     * Feed b0 and the formatted associated text into an initialised CBC-MAC.
+     */
+    private void initMac(Mac cMac, int dataLen)
+    {
         //
         // build b0
         //
@@ -322,13 +648,6 @@ public class CCMBlockCipher
                 }
             }
         }
-        
-        //
-        // add the text
-        //
-        cMac.update(data, dataOff, dataLen);
-
-        return cMac.doFinal(macBlock, 0);
     }
 
     private boolean hasAssociatedText()
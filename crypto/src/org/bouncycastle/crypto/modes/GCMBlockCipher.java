@@ -4,8 +4,10 @@ import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
+import org.bouncycastle.crypto.modes.gcm.GCMAggregatedMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
-import org.bouncycastle.crypto.modes.gcm.Tables8kGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables32kGCMMultiplier;
 import org.bouncycastle.crypto.params.AEADParameters;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
@@ -19,7 +21,8 @@ import org.bouncycastle.util.Arrays;
 public class GCMBlockCipher
     implements AEADBlockCipher
 {
-    private static final int BLOCK_SIZE = 16;
+    static final int BLOCK_SIZE = 16;
+    static final int GROUP_SIZE = 4 * BLOCK_SIZE;
     private static final byte[] ZEROES = new byte[BLOCK_SIZE];
 
     // not final due to a compiler bug 
@@ -27,21 +30,32 @@ public class GCMBlockCipher
     private GCMMultiplier multiplier;
 
     // These fields are set by init and not modified by processing
-    private boolean             forEncryption;
-    private int                 macSize;
+    // (package level ones are also used by ParallelGCMBlockCipher)
+    boolean                     forEncryption;
+    int                         macSize;
     private byte[]              nonce;
     private byte[]              A;
-    private byte[]              H;
+    byte[]                      H;
     private byte[]              initS;
     private byte[]              J0;
 
     // These fields are modified during processing
     private byte[]      bufBlock;
     private byte[]      macBlock;
-    private byte[]      S;
-    private byte[]      counter;
-    private int         bufOff;
-    private long        totalLength;
+    byte[]              S;
+    byte[]              counter;
+    int                 bufOff;
+    long                totalLength;
+
+    // Key stream produced ahead by a MultiBlockCipher, consumed by gCTRBlock
+    private byte[]      counterBlocks;
+    private int         counterBlocksOff;
+    private int         counterBlocksLen;
+
+    // Scratch space for processing four blocks in one pass
+    private byte[]      groupBlock = new byte[GROUP_SIZE];
+    private byte[]      groupKeyStream = new byte[GROUP_SIZE];
+    private byte[]      blockKeyStream = new byte[BLOCK_SIZE];
 
     public GCMBlockCipher(BlockCipher c)
     {
@@ -59,7 +73,7 @@ public class GCMBlockCipher
         if (m == null)
         {
             // TODO Consider a static property specifying default multiplier
-            m = new Tables8kGCMMultiplier();
+            m = new Tables32kGCMMultiplier();
         }
 
         this.cipher = c;
@@ -139,9 +153,19 @@ public class GCMBlockCipher
         // (but must be 16 if nonce length not 12) (BLOCK_SIZE?)
 //        this.tagLength = 16;
 
-        this.H = new byte[BLOCK_SIZE];
-        cipher.processBlock(ZEROES, 0, H, 0);
-        multiplier.init(H);
+        // H, and so the multiplier tables, only change with the key
+        if (keyParam != null || this.H == null)
+        {
+            byte[] newH = new byte[BLOCK_SIZE];
+            cipher.processBlock(ZEROES, 0, newH, 0);
+
+            // re-initialising with the same key keeps the existing tables
+            if (this.H == null || !Arrays.constantTimeAreEqual(this.H, newH))
+            {
+                this.H = newH;
+                multiplier.init(H);
+            }
+        }
 
         this.initS = gHASH(A);
 
@@ -156,7 +180,7 @@ public class GCMBlockCipher
             this.J0 = gHASH(nonce);
             byte[] X = new byte[16];
             packLength((long)nonce.length * 8, X, 8);
-            xor(this.J0, X);
+            xor(this.J0, X, 0);
             multiplier.multiplyH(this.J0);
         }
 
@@ -164,6 +188,14 @@ public class GCMBlockCipher
         this.counter = Arrays.clone(J0);
         this.bufOff = 0;
         this.totalLength = 0;
+
+        if (counterBlocks == null && cipher instanceof MultiBlockCipher)
+        {
+            int multiBlockSize = ((MultiBlockCipher)cipher).getMultiBlockSize();
+            this.counterBlocks = new byte[Math.max(multiBlockSize / BLOCK_SIZE, 1) * BLOCK_SIZE];
+        }
+        this.counterBlocksOff = 0;
+        this.counterBlocksLen = 0;
     }
 
     public byte[] getMac()
@@ -183,7 +215,18 @@ public class GCMBlockCipher
 
     public int getUpdateOutputSize(int len)
     {
-        return ((len + bufOff) / BLOCK_SIZE) * BLOCK_SIZE;
+        int totalData = len + bufOff;
+
+        if (!forEncryption)
+        {
+            if (totalData < macSize)
+            {
+                return 0;
+            }
+            totalData -= macSize;
+        }
+
+        return totalData - totalData % BLOCK_SIZE;
     }
 
     public int processByte(byte in, byte[] out, int outOff)
@@ -197,6 +240,43 @@ public class GCMBlockCipher
     {
         int resultLen = 0;
 
+        //
+        // whole groups of four blocks which can be released (ahead of any
+        // trailing MAC when decrypting) are encrypted and hashed in one pass.
+        //
+        int groups = (bufOff + len - (forEncryption ? 0 : macSize)) / GROUP_SIZE;
+        if (groups > 0)
+        {
+            int groupBlockCount = groups * 4;
+
+            while (groups-- > 0)
+            {
+                if (bufOff == 0)
+                {
+                    gCTRGroup(in, inOff, out, outOff + resultLen, groupBlockCount);
+                    inOff += GROUP_SIZE;
+                    len -= GROUP_SIZE;
+                }
+                else
+                {
+                    int fill = GROUP_SIZE - bufOff;
+                    System.arraycopy(bufBlock, 0, groupBlock, 0, bufOff);
+                    System.arraycopy(in, inOff, groupBlock, bufOff, fill);
+                    bufOff = 0;
+                    gCTRGroup(groupBlock, 0, out, outOff + resultLen, groupBlockCount);
+                    inOff += fill;
+                    len -= fill;
+                }
+
+                groupBlockCount -= 4;
+                resultLen += GROUP_SIZE;
+            }
+        }
+
+        // the number of blocks the rest of this call will output
+        int avail = bufOff + len;
+        int blockCount = (avail < bufBlock.length) ? 0 : (avail - bufBlock.length) / BLOCK_SIZE + 1;
+
         for (int i = 0; i != len; i++)
         {
 //            resultLen += process(in[inOff + i], out, outOff + resultLen);
@@ -204,6 +284,12 @@ public class GCMBlockCipher
 
             if (bufOff == bufBlock.length)
             {
+                if (counterBlocks != null && blockCount > 1 && counterBlocksOff == counterBlocksLen)
+                {
+                    fillCounterBlocks(blockCount);
+                }
+                --blockCount;
+
                 gCTRBlock(bufBlock, BLOCK_SIZE, out, outOff + resultLen);
                 if (!forEncryption)
                 {
@@ -265,14 +351,14 @@ public class GCMBlockCipher
         packLength((long)A.length * 8, X, 0);
         packLength(totalLength * 8, X, 8);
 
-        xor(S, X);
+        xor(S, X, 0);
         multiplier.multiplyH(S);
 
         // TODO Fix this if tagLength becomes configurable
         // T = MSBt(GCTRk(J0,S))
         byte[] tag = new byte[BLOCK_SIZE];
         cipher.processBlock(J0, 0, tag, 0);
-        xor(tag, S);
+        xor(tag, S, 0);
 
         int resultLen = extra;
 
@@ -320,6 +406,16 @@ public class GCMBlockCipher
             Arrays.fill(bufBlock, (byte)0);
         }
 
+        if (counterBlocks != null)
+        {
+            Arrays.fill(counterBlocks, (byte)0);
+        }
+        Arrays.fill(groupBlock, (byte)0);
+        Arrays.fill(groupKeyStream, (byte)0);
+        Arrays.fill(blockKeyStream, (byte)0);
+        counterBlocksOff = 0;
+        counterBlocksLen = 0;
+
         if (clearMac)
         {
             macBlock = null;
@@ -328,57 +424,171 @@ public class GCMBlockCipher
         cipher.reset();
     }
 
-    private void gCTRBlock(byte[] buf, int bufCount, byte[] out, int outOff)
+    private void fillCounterBlocks(int blockCount)
     {
-//        inc(counter);
-        for (int i = 15; i >= 12; --i)
+        int count = Math.min(blockCount, counterBlocks.length / BLOCK_SIZE);
+        int len = count * BLOCK_SIZE;
+
+        for (int i = 0; i != len; i += BLOCK_SIZE)
         {
-            byte b = (byte)((counter[i] + 1) & 0xff);
-            counter[i] = b;
+            inc(counter);
+            System.arraycopy(counter, 0, counterBlocks, i, BLOCK_SIZE);
+        }
 
-            if (b != 0)
+        ((MultiBlockCipher)cipher).processBlocks(counterBlocks, 0, count, counterBlocks, 0);
+
+        counterBlocksOff = 0;
+        counterBlocksLen = len;
+    }
+
+    private void gCTRGroup(byte[] buf, int inOff, byte[] out, int outOff, int blockCount)
+    {
+        byte[] tmp = groupKeyStream;
+
+        for (int i = 0; i != GROUP_SIZE; i += BLOCK_SIZE)
+        {
+            if (counterBlocks != null && blockCount > 1 && counterBlocksOff == counterBlocksLen)
             {
-                break;
+                fillCounterBlocks(blockCount);
+            }
+            --blockCount;
+
+            if (counterBlocksOff < counterBlocksLen)
+            {
+                System.arraycopy(counterBlocks, counterBlocksOff, tmp, i, BLOCK_SIZE);
+                counterBlocksOff += BLOCK_SIZE;
+            }
+            else
+            {
+                inc(counter);
+                cipher.processBlock(counter, 0, tmp, i);
             }
         }
 
-        byte[] tmp = new byte[BLOCK_SIZE];
-        cipher.processBlock(counter, 0, tmp, 0);
+        gCTRGroup(multiplier, forEncryption, tmp, buf, inOff, out, outOff, S);
+
+        totalLength += GROUP_SIZE;
+    }
 
-        byte[] hashBytes;
+    /**
+     * Encrypt or decrypt the four blocks at in[inOff] using the key stream in keyStream,
+     * folding the cipher text into the hash S. The input is hashed before the output is
+     * written when decrypting, so in and out may overlap.
+     */
+    static void gCTRGroup(GCMMultiplier multiplier, boolean forEncryption, byte[] keyStream,
+        byte[] in, int inOff, byte[] out, int outOff, byte[] S)
+    {
         if (forEncryption)
         {
-            System.arraycopy(ZEROES, bufCount, tmp, bufCount, BLOCK_SIZE - bufCount);
-            hashBytes = tmp;
+            for (int i = 0; i != GROUP_SIZE; ++i)
+            {
+                keyStream[i] ^= in[inOff + i];
+                out[outOff + i] = keyStream[i];
+            }
+            gHASHGroup(multiplier, S, keyStream, 0);
+        }
+        else
+        {
+            gHASHGroup(multiplier, S, in, inOff);
+            for (int i = 0; i != GROUP_SIZE; ++i)
+            {
+                out[outOff + i] = (byte)(keyStream[i] ^ in[inOff + i]);
+            }
+        }
+    }
+
+    static void gHASHGroup(GCMMultiplier multiplier, byte[] S, byte[] blocks, int off)
+    {
+        if (multiplier instanceof GCMAggregatedMultiplier)
+        {
+            ((GCMAggregatedMultiplier)multiplier).multiplyH4(S, blocks, off);
         }
         else
         {
-            hashBytes = buf;
+            for (int i = 0; i != GROUP_SIZE; i += BLOCK_SIZE)
+            {
+                for (int j = 15; j >= 0; --j)
+                {
+                    S[j] ^= blocks[off + i + j];
+                }
+                multiplier.multiplyH(S);
+            }
         }
+    }
 
-        for (int i = bufCount - 1; i >= 0; --i)
+    private void gCTRBlock(byte[] buf, int bufCount, byte[] out, int outOff)
+    {
+        byte[] tmp = blockKeyStream;
+
+        if (counterBlocksOff < counterBlocksLen)
         {
-            tmp[i] ^= buf[i];
-            out[outOff + i] = tmp[i];
+            System.arraycopy(counterBlocks, counterBlocksOff, tmp, 0, BLOCK_SIZE);
+            counterBlocksOff += BLOCK_SIZE;
+        }
+        else
+        {
+            inc(counter);
+            cipher.processBlock(counter, 0, tmp, 0);
         }
 
-//        gHASHBlock(hashBytes);
-        xor(S, hashBytes);
-        multiplier.multiplyH(S);
+        gCTRBlock(multiplier, forEncryption, tmp, buf, 0, bufCount, out, outOff, S);
 
         totalLength += bufCount;
     }
 
+    /**
+     * Encrypt or decrypt bufCount bytes at buf[bufOff] using the key stream in keyStream,
+     * folding the cipher text, zero padded to a block, into the hash S. When decrypting
+     * a partial block buf must hold zeroes after the data.
+     */
+    static void gCTRBlock(GCMMultiplier multiplier, boolean forEncryption, byte[] keyStream,
+        byte[] buf, int bufOff, int bufCount, byte[] out, int outOff, byte[] S)
+    {
+        if (forEncryption)
+        {
+            System.arraycopy(ZEROES, bufCount, keyStream, bufCount, BLOCK_SIZE - bufCount);
+
+            for (int i = bufCount - 1; i >= 0; --i)
+            {
+                keyStream[i] ^= buf[bufOff + i];
+                out[outOff + i] = keyStream[i];
+            }
+
+//            gHASHBlock(keyStream);
+            xor(S, keyStream, 0);
+        }
+        else
+        {
+            xor(S, buf, bufOff);
+
+            for (int i = bufCount - 1; i >= 0; --i)
+            {
+                out[outOff + i] = (byte)(keyStream[i] ^ buf[bufOff + i]);
+            }
+        }
+
+        multiplier.multiplyH(S);
+    }
+
     private byte[] gHASH(byte[] b)
     {
         byte[] Y = new byte[16];
+        int pos = 0;
+
+        if (multiplier instanceof GCMAggregatedMultiplier)
+        {
+            for (; pos + GROUP_SIZE <= b.length; pos += GROUP_SIZE)
+            {
+                ((GCMAggregatedMultiplier)multiplier).multiplyH4(Y, b, pos);
+            }
+        }
 
-        for (int pos = 0; pos < b.length; pos += 16)
+        for (; pos < b.length; pos += 16)
         {
             byte[] X = new byte[16];
             int num = Math.min(b.length - pos, 16);
             System.arraycopy(b, pos, X, 0, num);
-            xor(Y, X);
+            xor(Y, X, 0);
             multiplier.multiplyH(Y);
         }
 
@@ -391,25 +601,25 @@ public class GCMBlockCipher
 //        multiplier.multiplyH(S);
 //    }
 
-//    private static void inc(byte[] block)
-//    {
-//        for (int i = 15; i >= 12; --i)
-//        {
-//            byte b = (byte)((block[i] + 1) & 0xff);
-//            block[i] = b;
-//
-//            if (b != 0)
-//            {
-//                break;
-//            }
-//        }
-//    }
+    static void inc(byte[] block)
+    {
+        for (int i = 15; i >= 12; --i)
+        {
+            byte b = (byte)((block[i] + 1) & 0xff);
+            block[i] = b;
+
+            if (b != 0)
+            {
+                break;
+            }
+        }
+    }
 
-    private static void xor(byte[] block, byte[] val)
+    static void xor(byte[] block, byte[] val, int valOff)
     {
         for (int i = 15; i >= 0; --i)
         {
-            block[i] ^= val[i];
+            block[i] ^= val[valOff + i];
         }
     }
 
@@ -0,0 +1,598 @@
+package org.bouncycastle.crypto.modes;
+
+import java.util.Vector;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * An implementation of the Offset Codebook mode (OCB3) detailed in RFC 7253.
+ * <p>
+ * OCB needs one block cipher call per block, and the offset for each block depends only
+ * on the block's index, so blocks are collected into groups and each group is passed to
+ * the underlying cipher in a single call when it implements MultiBlockCipher.
+ * <p>
+ * OCB uses both the forward and inverse cipher, so two instances of the same block cipher
+ * are required - the hash cipher is always used for encryption, the main cipher is used in
+ * the direction of the mode.
+ */
+public class OCBBlockCipher
+    implements AEADBlockCipher
+{
+    private static final int BLOCK_SIZE = 16;
+    private static final int GROUP_BLOCKS = 16;
+    private static final int GROUP_SIZE = GROUP_BLOCKS * BLOCK_SIZE;
+
+    private BlockCipher hashCipher;
+    private BlockCipher mainCipher;
+
+    // These fields are set by init and not modified by processing
+    private boolean             forEncryption;
+    private int                 macSize;
+    private byte[]              initialAssociatedText;
+    private KeyParameter        key;
+
+    // Key dependent values, L_0, L_1, ... are extended as needed
+    private Vector              L;
+    private byte[]              L_Asterisk;
+    private byte[]              L_Dollar;
+
+    // Nonce dependent values, Ktop is only recalculated if the top 122 bits of the nonce change
+    private byte[]              KtopInput = null;
+    private byte[]              Stretch = new byte[24];
+    private byte[]              OffsetMAIN_0 = new byte[BLOCK_SIZE];
+    private byte[]              Sum = new byte[BLOCK_SIZE];
+
+    // These fields are modified during processing
+    private byte[]              mainBlock;
+    private int                 mainBlockPos;
+    private long                mainBlockCount;
+    private byte[]              OffsetMAIN = new byte[BLOCK_SIZE];
+    private byte[]              Checksum = new byte[BLOCK_SIZE];
+    private byte[]              macBlock;
+
+    // Scratch space for processing a group of blocks in one call
+    private byte[]              groupBlock = new byte[GROUP_SIZE];
+    private byte[]              groupOffsets = new byte[GROUP_SIZE];
+
+    /**
+     * Base constructor.
+     *
+     * @param hashCipher a block cipher instance, always used for encryption.
+     * @param mainCipher a second instance of the same block cipher, used in the mode's direction.
+     */
+    public OCBBlockCipher(BlockCipher hashCipher, BlockCipher mainCipher)
+    {
+        if (hashCipher == null || mainCipher == null)
+        {
+            throw new IllegalArgumentException("OCB requires two block cipher instances");
+        }
+
+        if (hashCipher == mainCipher)
+        {
+            throw new IllegalArgumentException("OCB requires two separate block cipher instances");
+        }
+
+        if (hashCipher.getBlockSize() != BLOCK_SIZE || mainCipher.getBlockSize() != BLOCK_SIZE)
+        {
+            throw new IllegalArgumentException(
+                "cipher required with a block size of " + BLOCK_SIZE + ".");
+        }
+
+        if (!hashCipher.getAlgorithmName().equals(mainCipher.getAlgorithmName()))
+        {
+            throw new IllegalArgumentException("OCB block ciphers must be the same algorithm");
+        }
+
+        this.hashCipher = hashCipher;
+        this.mainCipher = mainCipher;
+    }
+
+    public BlockCipher getUnderlyingCipher()
+    {
+        return mainCipher;
+    }
+
+    public String getAlgorithmName()
+    {
+        return mainCipher.getAlgorithmName() + "/OCB";
+    }
+
+    public void init(boolean forEncryption, CipherParameters params)
+        throws IllegalArgumentException
+    {
+        boolean directionChanged = (this.forEncryption != forEncryption);
+
+        this.forEncryption = forEncryption;
+        this.macBlock = null;
+
+        KeyParameter        keyParam;
+        byte[]              N;
+
+        if (params instanceof AEADParameters)
+        {
+            AEADParameters param = (AEADParameters)params;
+
+            N = param.getNonce();
+            initialAssociatedText = param.getAssociatedText();
+
+            int macSizeBits = param.getMacSize();
+            if (macSizeBits < 64 || macSizeBits > 128 || macSizeBits % 8 != 0)
+            {
+                throw new IllegalArgumentException("Invalid value for MAC size: " + macSizeBits);
+            }
+
+            macSize = macSizeBits / 8;
+            keyParam = param.getKey();
+        }
+        else if (params instanceof ParametersWithIV)
+        {
+            ParametersWithIV param = (ParametersWithIV)params;
+
+            N = param.getIV();
+            initialAssociatedText = null;
+            macSize = 16;
+            keyParam = (KeyParameter)param.getParameters();
+        }
+        else
+        {
+            throw new IllegalArgumentException("invalid parameters passed to OCB");
+        }
+
+        if (N == null)
+        {
+            N = new byte[0];
+        }
+
+        if (N.length > 15)
+        {
+            throw new IllegalArgumentException("IV must be no more than 15 bytes");
+        }
+
+        this.mainBlock = new byte[forEncryption ? GROUP_SIZE : (GROUP_SIZE + macSize)];
+
+        if (keyParam != null)
+        {
+            key = keyParam;
+
+            hashCipher.init(true, key);
+            mainCipher.init(forEncryption, key);
+
+            L_Asterisk = new byte[BLOCK_SIZE];
+            hashCipher.processBlock(L_Asterisk, 0, L_Asterisk, 0);
+
+            L_Dollar = OCB_double(L_Asterisk);
+
+            L = new Vector();
+            L.addElement(OCB_double(L_Dollar));
+
+            KtopInput = null;
+        }
+        else if (key == null)
+        {
+            throw new IllegalArgumentException("no key provided for OCB");
+        }
+        else if (directionChanged)
+        {
+            mainCipher.init(forEncryption, key);
+        }
+
+        //
+        // Offset_0 is the 128 bits of Stretch starting at bit 'bottom'
+        //
+        int bottom = processNonce(N);
+
+        int bits = bottom % 8, bytes = bottom / 8;
+        if (bits == 0)
+        {
+            System.arraycopy(Stretch, bytes, OffsetMAIN_0, 0, BLOCK_SIZE);
+        }
+        else
+        {
+            for (int i = 0; i < BLOCK_SIZE; ++i)
+            {
+                int b1 = Stretch[bytes] & 0xff;
+                int b2 = Stretch[++bytes] & 0xff;
+                OffsetMAIN_0[i] = (byte)((b1 << bits) | (b2 >>> (8 - bits)));
+            }
+        }
+
+        hashAssociatedText();
+
+        reset(true);
+    }
+
+    public int getUpdateOutputSize(int len)
+    {
+        int totalData = len + mainBlockPos;
+
+        if (!forEncryption)
+        {
+            if (totalData < macSize)
+            {
+                return 0;
+            }
+            totalData -= macSize;
+        }
+
+        return totalData - totalData % GROUP_SIZE;
+    }
+
+    public int getOutputSize(int len)
+    {
+        int totalData = len + mainBlockPos;
+
+        if (forEncryption)
+        {
+            return totalData + macSize;
+        }
+
+        return totalData < macSize ? 0 : totalData - macSize;
+    }
+
+    public int processByte(byte in, byte[] out, int outOff)
+        throws DataLengthException
+    {
+        mainBlock[mainBlockPos++] = in;
+
+        if (mainBlockPos == mainBlock.length)
+        {
+            outputGroup(out, outOff);
+            return GROUP_SIZE;
+        }
+
+        return 0;
+    }
+
+    public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException
+    {
+        if ((inOff + len) > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        int resultLen = 0;
+
+        while (len > 0)
+        {
+            int count = Math.min(len, mainBlock.length - mainBlockPos);
+
+            System.arraycopy(in, inOff, mainBlock, mainBlockPos, count);
+            mainBlockPos += count;
+            inOff += count;
+            len -= count;
+
+            if (mainBlockPos == mainBlock.length)
+            {
+                outputGroup(out, outOff + resultLen);
+                resultLen += GROUP_SIZE;
+            }
+        }
+
+        return resultLen;
+    }
+
+    public int doFinal(byte[] out, int outOff)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        byte[] tag = null;
+
+        if (!forEncryption)
+        {
+            if (mainBlockPos < macSize)
+            {
+                throw new InvalidCipherTextException("data too short");
+            }
+            mainBlockPos -= macSize;
+            tag = new byte[macSize];
+            System.arraycopy(mainBlock, mainBlockPos, tag, 0, macSize);
+        }
+
+        int extra = mainBlockPos;
+
+        if (outOff + extra + (forEncryption ? macSize : 0) > out.length)
+        {
+            throw new DataLengthException("Output buffer too short");
+        }
+
+        int fullBlocks = extra / BLOCK_SIZE;
+        int partial = extra % BLOCK_SIZE;
+
+        if (fullBlocks > 0)
+        {
+            processGroup(mainBlock, 0, fullBlocks, out, outOff);
+        }
+
+        if (partial > 0)
+        {
+            int pos = fullBlocks * BLOCK_SIZE;
+
+            if (forEncryption)
+            {
+                xor(Checksum, 0, mainBlock, pos, partial);
+                Checksum[partial] ^= (byte)0x80;
+            }
+
+            xor(OffsetMAIN, 0, L_Asterisk, 0, BLOCK_SIZE);
+
+            byte[] Pad = new byte[BLOCK_SIZE];
+            hashCipher.processBlock(OffsetMAIN, 0, Pad, 0);
+
+            for (int i = 0; i != partial; i++)
+            {
+                out[outOff + pos + i] = (byte)(mainBlock[pos + i] ^ Pad[i]);
+            }
+
+            if (!forEncryption)
+            {
+                xor(Checksum, 0, out, outOff + pos, partial);
+                Checksum[partial] ^= (byte)0x80;
+            }
+        }
+
+        //
+        // Tag = ENCIPHER(K, Checksum xor Offset xor L_$) xor HASH(K,A)
+        //
+        xor(Checksum, 0, OffsetMAIN, 0, BLOCK_SIZE);
+        xor(Checksum, 0, L_Dollar, 0, BLOCK_SIZE);
+        hashCipher.processBlock(Checksum, 0, Checksum, 0);
+        xor(Checksum, 0, Sum, 0, BLOCK_SIZE);
+
+        macBlock = new byte[macSize];
+        System.arraycopy(Checksum, 0, macBlock, 0, macSize);
+
+        int resultLen = extra;
+
+        if (forEncryption)
+        {
+            System.arraycopy(macBlock, 0, out, outOff + extra, macSize);
+            resultLen += macSize;
+        }
+        else if (!Arrays.constantTimeAreEqual(macBlock, tag))
+        {
+            throw new InvalidCipherTextException("mac check in OCB failed");
+        }
+
+        reset(false);
+
+        return resultLen;
+    }
+
+    public byte[] getMac()
+    {
+        if (macBlock == null)
+        {
+            return new byte[macSize];
+        }
+
+        return Arrays.clone(macBlock);
+    }
+
+    public void reset()
+    {
+        reset(true);
+    }
+
+    private void reset(boolean clearMac)
+    {
+        hashCipher.reset();
+        mainCipher.reset();
+
+        if (mainBlock != null)
+        {
+            Arrays.fill(mainBlock, (byte)0);
+        }
+        mainBlockPos = 0;
+        mainBlockCount = 0;
+
+        System.arraycopy(OffsetMAIN_0, 0, OffsetMAIN, 0, BLOCK_SIZE);
+        Arrays.fill(Checksum, (byte)0);
+
+        if (clearMac)
+        {
+            macBlock = null;
+        }
+    }
+
+    /**
+     * Format the nonce, recalculate Ktop and Stretch if its top 122 bits have changed,
+     * and return the value of the bottom 6 bits.
+     */
+    private int processNonce(byte[] N)
+    {
+        byte[] nonce = new byte[BLOCK_SIZE];
+
+        System.arraycopy(N, 0, nonce, nonce.length - N.length, N.length);
+        nonce[0] = (byte)(macSize << 4);
+        nonce[15 - N.length] |= 1;
+
+        int bottom = nonce[15] & 0x3F;
+        nonce[15] &= 0xC0;
+
+        if (KtopInput == null || !Arrays.areEqual(nonce, KtopInput))
+        {
+            byte[] Ktop = new byte[BLOCK_SIZE];
+
+            KtopInput = nonce;
+            hashCipher.processBlock(KtopInput, 0, Ktop, 0);
+
+            System.arraycopy(Ktop, 0, Stretch, 0, BLOCK_SIZE);
+            for (int i = 0; i < 8; ++i)
+            {
+                Stretch[BLOCK_SIZE + i] = (byte)(Ktop[i] ^ Ktop[i + 1]);
+            }
+        }
+
+        return bottom;
+    }
+
+    private void hashAssociatedText()
+    {
+        byte[] A = initialAssociatedText;
+        byte[] offset = new byte[BLOCK_SIZE];
+        byte[] block = new byte[BLOCK_SIZE];
+        long   count = 0;
+        int    pos = 0;
+
+        Arrays.fill(Sum, (byte)0);
+
+        if (A == null)
+        {
+            return;
+        }
+
+        while (A.length - pos >= BLOCK_SIZE)
+        {
+            xor(offset, 0, getLSub(OCB_ntz(++count)), 0, BLOCK_SIZE);
+
+            System.arraycopy(A, pos, block, 0, BLOCK_SIZE);
+            xor(block, 0, offset, 0, BLOCK_SIZE);
+            hashCipher.processBlock(block, 0, block, 0);
+            xor(Sum, 0, block, 0, BLOCK_SIZE);
+
+            pos += BLOCK_SIZE;
+        }
+
+        int partial = A.length - pos;
+        if (partial > 0)
+        {
+            xor(offset, 0, L_Asterisk, 0, BLOCK_SIZE);
+
+            Arrays.fill(block, (byte)0);
+            System.arraycopy(A, pos, block, 0, partial);
+            block[partial] = (byte)0x80;
+            xor(block, 0, offset, 0, BLOCK_SIZE);
+            hashCipher.processBlock(block, 0, block, 0);
+            xor(Sum, 0, block, 0, BLOCK_SIZE);
+        }
+    }
+
+    private void outputGroup(byte[] out, int outOff)
+    {
+        if (outOff + GROUP_SIZE > out.length)
+        {
+            throw new DataLengthException("Output buffer too short");
+        }
+
+        processGroup(mainBlock, 0, GROUP_BLOCKS, out, outOff);
+
+        if (forEncryption)
+        {
+            mainBlockPos = 0;
+        }
+        else
+        {
+            System.arraycopy(mainBlock, GROUP_SIZE, mainBlock, 0, macSize);
+            mainBlockPos = macSize;
+        }
+    }
+
+    /**
+     * Process a run of whole blocks. The offsets are calculated up front so the block cipher
+     * calls for the run are independent of each other and can be made together.
+     */
+    private void processGroup(byte[] in, int inOff, int blocks, byte[] out, int outOff)
+    {
+        int len = blocks * BLOCK_SIZE;
+
+        for (int i = 0; i != len; i += BLOCK_SIZE)
+        {
+            xor(OffsetMAIN, 0, getLSub(OCB_ntz(++mainBlockCount)), 0, BLOCK_SIZE);
+            System.arraycopy(OffsetMAIN, 0, groupOffsets, i, BLOCK_SIZE);
+
+            if (forEncryption)
+            {
+                xor(Checksum, 0, in, inOff + i, BLOCK_SIZE);
+            }
+
+            for (int j = 0; j != BLOCK_SIZE; j++)
+            {
+                groupBlock[i + j] = (byte)(in[inOff + i + j] ^ OffsetMAIN[j]);
+            }
+        }
+
+        if (mainCipher instanceof MultiBlockCipher)
+        {
+            ((MultiBlockCipher)mainCipher).processBlocks(groupBlock, 0, blocks, groupBlock, 0);
+        }
+        else
+        {
+            for (int i = 0; i != len; i += BLOCK_SIZE)
+            {
+                mainCipher.processBlock(groupBlock, i, groupBlock, i);
+            }
+        }
+
+        for (int i = 0; i != len; i++)
+        {
+            out[outOff + i] = (byte)(groupBlock[i] ^ groupOffsets[i]);
+        }
+
+        if (!forEncryption)
+        {
+            for (int i = 0; i != len; i += BLOCK_SIZE)
+            {
+                xor(Checksum, 0, out, outOff + i, BLOCK_SIZE);
+            }
+        }
+    }
+
+    private byte[] getLSub(int n)
+    {
+        while (n >= L.size())
+        {
+            L.addElement(OCB_double((byte[])L.lastElement()));
+        }
+        return (byte[])L.elementAt(n);
+    }
+
+    private static byte[] OCB_double(byte[] block)
+    {
+        byte[] result = new byte[BLOCK_SIZE];
+        int carry = 0;
+
+        for (int i = BLOCK_SIZE - 1; i >= 0; i--)
+        {
+            int b = block[i] & 0xff;
+            result[i] = (byte)((b << 1) | carry);
+            carry = b >>> 7;
+        }
+
+        // constant time xor of the reduction polynomial if the top bit was set
+        result[BLOCK_SIZE - 1] ^= (byte)(0x87 >>> ((1 - carry) << 3));
+
+        return result;
+    }
+
+    private static int OCB_ntz(long x)
+    {
+        if (x == 0)
+        {
+            return 64;
+        }
+
+        int n = 0;
+        while ((x & 1L) == 0L)
+        {
+            ++n;
+            x >>>= 1;
+        }
+        return n;
+    }
+
+    private static void xor(byte[] block, int off, byte[] val, int valOff, int len)
+    {
+        for (int i = 0; i != len; i++)
+        {
+            block[off + i] ^= val[valOff + i];
+        }
+    }
+}
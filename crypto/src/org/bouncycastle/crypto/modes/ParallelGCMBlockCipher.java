@@ -0,0 +1,314 @@
+package org.bouncycastle.crypto.modes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.BlockCipherProvider;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.modes.gcm.BasicGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.CachingGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.GCMExponentiator;
+import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.GCMMultiplierCache;
+import org.bouncycastle.crypto.modes.gcm.Tables1kGCMExponentiator;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.util.Pack;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A GCMBlockCipher which runs large runs of input on an executor.
+ * <p>
+ * A processBytes() call with at least two segments' worth of whole blocks splits
+ * them into segments, each encrypted by its own engine from the counter for its
+ * offset, and each hashed from zero. The partial hashes are then combined in
+ * order as S = S.H^n ^ partial, where n is the number of blocks in the segment,
+ * using a Tables1kGCMExponentiator to produce H^n. Everything else, including
+ * smaller inputs and the tag, is handled by GCMBlockCipher, so the resulting
+ * cipher text and tag are identical to those of GCMBlockCipher.
+ * <p>
+ * The segments share their multiplier tables through a GCMMultiplierCache, so a
+ * cache building Tables32kGCMMultiplier instances lets them hash four blocks at a time.
+ */
+public class ParallelGCMBlockCipher
+    extends GCMBlockCipher
+{
+    private final BlockCipherProvider provider;
+    private final ExecutorService     executor;
+    private final int                 segmentSize;
+    private final GCMMultiplierCache  cache;
+    private final GCMExponentiator    exponentiator = new Tables1kGCMExponentiator();
+    private final GCMMultiplier       powMultiplier = new BasicGCMMultiplier();
+
+    private KeyParameter        key;
+    private long                powBlocks = -1;
+
+    /**
+     * Base constructor, the segments sharing tables for the current key only.
+     *
+     * @param provider source of engines, one for the calling thread and one for each segment.
+     * @param executor the executor segments are submitted to.
+     * @param segmentSize the number of bytes in each segment, rounded down to a multiple of the block size.
+     */
+    public ParallelGCMBlockCipher(BlockCipherProvider provider, ExecutorService executor, int segmentSize)
+    {
+        this(provider, executor, segmentSize, new GCMMultiplierCache(1));
+    }
+
+    /**
+     * Constructor taking the cache the multiplier tables are drawn from.
+     *
+     * @param provider source of engines, one for the calling thread and one for each segment.
+     * @param executor the executor segments are submitted to.
+     * @param segmentSize the number of bytes in each segment, rounded down to a multiple of the block size.
+     * @param cache the cache of multipliers, which may be shared with other ciphers.
+     */
+    public ParallelGCMBlockCipher(BlockCipherProvider provider, ExecutorService executor, int segmentSize,
+        GCMMultiplierCache cache)
+    {
+        super(provider.get(), new CachingGCMMultiplier(cache));
+
+        this.provider = provider;
+        this.executor = executor;
+        this.cache = cache;
+        this.segmentSize = (segmentSize / BLOCK_SIZE) * BLOCK_SIZE;
+
+        if (this.segmentSize <= 0)
+        {
+            throw new IllegalArgumentException("segment size must be at least one block");
+        }
+    }
+
+    public void init(boolean forEncryption, CipherParameters params)
+        throws IllegalArgumentException
+    {
+        KeyParameter keyParam = null;
+
+        if (params instanceof AEADParameters)
+        {
+            keyParam = ((AEADParameters)params).getKey();
+        }
+        else if (params instanceof ParametersWithIV)
+        {
+            keyParam = (KeyParameter)((ParametersWithIV)params).getParameters();
+        }
+
+        if (keyParam == null && key == null)
+        {
+            throw new IllegalArgumentException("no key provided for GCM");
+        }
+
+        super.init(forEncryption, params);
+
+        if (keyParam != null)
+        {
+            key = keyParam;
+            exponentiator.init(H);
+            powBlocks = -1;
+        }
+    }
+
+    public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException
+    {
+        if ((inOff + len) > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        int tail = forEncryption ? 0 : macSize;
+
+        //
+        // the bytes needed to release the buffered blocks, after which anything still
+        // buffered (the possible MAC when decrypting) has been taken from in.
+        //
+        int flush = 0;
+        int held = 0;
+        if (bufOff > 0)
+        {
+            flush = BLOCK_SIZE + tail - bufOff;
+            if (flush < tail)
+            {
+                flush += BLOCK_SIZE;
+            }
+            held = tail;
+        }
+
+        int start = inOff + flush - held;
+        int blocks = (len - flush + held - tail) / BLOCK_SIZE;
+
+        if (flush > len || blocks * BLOCK_SIZE < 2 * segmentSize)
+        {
+            return super.processBytes(in, inOff, len, out, outOff);
+        }
+
+        int resultLen = super.processBytes(in, inOff, flush, out, outOff);
+
+        // the held bytes are read again from in
+        bufOff = 0;
+
+        processSegments(in, start, blocks, out, outOff + resultLen);
+
+        int pos = start + blocks * BLOCK_SIZE;
+        resultLen += blocks * BLOCK_SIZE;
+
+        return resultLen + super.processBytes(in, pos, inOff + len - pos, out, outOff + resultLen);
+    }
+
+    private void processSegments(byte[] in, int inOff, int blocks, byte[] out, int outOff)
+    {
+        int segmentBlocks = segmentSize / BLOCK_SIZE;
+        List<Future<byte[]>> tasks = new ArrayList<Future<byte[]>>();
+
+        try
+        {
+            for (int start = 0; start < blocks; start += segmentBlocks)
+            {
+                int count = Math.min(segmentBlocks, blocks - start);
+
+                tasks.add(executor.submit(new SegmentTask(addToCounter(counter, start),
+                    in, inOff + start * BLOCK_SIZE, count, out, outOff + start * BLOCK_SIZE)));
+            }
+
+            int start = 0;
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                byte[] partial = tasks.get(i).get();
+                int count = Math.min(segmentBlocks, blocks - start);
+
+                // S = S.H^count ^ partial
+                multiplyHPow(S, count);
+                xor(S, partial, 0);
+
+                start += count;
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for GCM segment: " + e.getMessage());
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException("exception processing GCM segment: " + cause);
+        }
+        finally
+        {
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).cancel(false);
+            }
+        }
+
+        counter = addToCounter(counter, blocks);
+        totalLength += (long)blocks * BLOCK_SIZE;
+    }
+
+    private void multiplyHPow(byte[] x, long pow)
+    {
+        if (pow != powBlocks)
+        {
+            byte[] hPow = new byte[BLOCK_SIZE];
+            exponentiator.exponentiateX(pow, hPow);
+            powMultiplier.init(hPow);
+            powBlocks = pow;
+        }
+
+        powMultiplier.multiplyH(x);
+    }
+
+    /**
+     * Return a copy of block with n added to its low 32 bits, the GCM inc32 function applied n times.
+     */
+    private static byte[] addToCounter(byte[] block, long n)
+    {
+        byte[] c = Arrays.clone(block);
+        int x = Pack.bigEndianToInt(c, 12) + (int)n;
+        Pack.intToBigEndian(x, c, 12);
+        return c;
+    }
+
+    private class SegmentTask
+        implements Callable<byte[]>
+    {
+        private final byte[] counter;
+        private final byte[] in;
+        private final int    inOff;
+        private final int    blocks;
+        private final byte[] out;
+        private final int    outOff;
+
+        SegmentTask(byte[] counter, byte[] in, int inOff, int blocks, byte[] out, int outOff)
+        {
+            this.counter = counter;
+            this.in = in;
+            this.inOff = inOff;
+            this.blocks = blocks;
+            this.out = out;
+            this.outOff = outOff;
+        }
+
+        /**
+         * Encrypt/decrypt the segment and return its GHASH, started from zero.
+         */
+        public byte[] call()
+        {
+            BlockCipher engine = provider.get();
+            engine.init(true, key);
+
+            CachingGCMMultiplier multiplier = new CachingGCMMultiplier(cache);
+            multiplier.init(H);
+
+            try
+            {
+                return process(engine, multiplier);
+            }
+            finally
+            {
+                multiplier.release();
+            }
+        }
+
+        private byte[] process(BlockCipher engine, GCMMultiplier multiplier)
+        {
+            byte[] keyStream = new byte[GROUP_SIZE];
+            byte[] X = new byte[BLOCK_SIZE];
+
+            int len = blocks * BLOCK_SIZE;
+            int pos = 0;
+
+            for (; pos + GROUP_SIZE <= len; pos += GROUP_SIZE)
+            {
+                for (int i = 0; i != GROUP_SIZE; i += BLOCK_SIZE)
+                {
+                    inc(counter);
+                    engine.processBlock(counter, 0, keyStream, i);
+                }
+
+                gCTRGroup(multiplier, forEncryption, keyStream, in, inOff + pos, out, outOff + pos, X);
+            }
+
+            for (; pos < len; pos += BLOCK_SIZE)
+            {
+                inc(counter);
+                engine.processBlock(counter, 0, keyStream, 0);
+
+                gCTRBlock(multiplier, forEncryption, keyStream, in, inOff + pos, BLOCK_SIZE, out, outOff + pos, X);
+            }
+
+            return X;
+        }
+    }
+}
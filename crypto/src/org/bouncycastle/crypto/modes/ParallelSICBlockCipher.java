@@ -0,0 +1,276 @@
+package org.bouncycastle.crypto.modes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.bouncycastle.crypto.BlockCipherProvider;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+/**
+ * A front end for Segmented Integer Counter (SIC/CTR) mode which splits large
+ * buffers into chunks and processes them on an executor. Every chunk is run by a
+ * SICBlockCipher of its own, built from a fresh engine and started at the counter
+ * value for the chunk's offset into the key stream, so the output is identical to
+ * a single SICBlockCipher walking the whole buffer.
+ * <p>
+ * Buffers shorter than twice the chunk size, and any partial blocks at either end
+ * of a buffer, are processed on the calling thread.
+ */
+public class ParallelSICBlockCipher
+    implements StreamCipher
+{
+    private final BlockCipherProvider provider;
+    private final ExecutorService     executor;
+    private final int                 blockSize;
+    private final int                 chunkSize;
+    private final SICBlockCipher      cipher;
+    private final byte[]              zeroes;
+    private final byte[]              keyStream;
+
+    private CipherParameters    key;
+    private byte[]              IV;
+    private long                blockCount;
+    private int                 keyStreamOff;
+
+    /**
+     * Base constructor.
+     *
+     * @param provider source of engines, one for the calling thread and one for each chunk.
+     * @param executor the executor chunks are submitted to.
+     * @param chunkSize the number of bytes in each chunk, rounded down to a multiple of the block size.
+     */
+    public ParallelSICBlockCipher(BlockCipherProvider provider, ExecutorService executor, int chunkSize)
+    {
+        this.provider = provider;
+        this.executor = executor;
+        this.cipher = new SICBlockCipher(provider.get());
+        this.blockSize = cipher.getBlockSize();
+        this.chunkSize = (chunkSize / blockSize) * blockSize;
+
+        if (this.chunkSize <= 0)
+        {
+            throw new IllegalArgumentException("chunk size must be at least one block");
+        }
+
+        this.zeroes = new byte[blockSize];
+        this.keyStream = new byte[blockSize];
+        this.keyStreamOff = blockSize;
+    }
+
+    public void init(
+        boolean             forEncryption, //ignored by this CTR mode
+        CipherParameters    params)
+        throws IllegalArgumentException
+    {
+        if (!(params instanceof ParametersWithIV))
+        {
+            throw new IllegalArgumentException("SIC mode requires ParametersWithIV");
+        }
+
+        ParametersWithIV ivParam = (ParametersWithIV)params;
+
+        if (ivParam.getParameters() != null)
+        {
+            key = ivParam.getParameters();
+        }
+        else if (key == null)
+        {
+            throw new IllegalArgumentException("no key provided for SIC mode");
+        }
+
+        IV = new byte[blockSize];
+        System.arraycopy(ivParam.getIV(), 0, IV, 0, IV.length);
+
+        cipher.init(true, new ParametersWithIV(key, IV));
+
+        blockCount = 0;
+        keyStreamOff = blockSize;
+    }
+
+    public String getAlgorithmName()
+    {
+        return cipher.getAlgorithmName();
+    }
+
+    public byte returnByte(byte in)
+    {
+        if (keyStreamOff == blockSize)
+        {
+            nextKeyStreamBlock();
+        }
+
+        return (byte)(in ^ keyStream[keyStreamOff++]);
+    }
+
+    public void processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException
+    {
+        if (IV == null)
+        {
+            throw new IllegalStateException(getAlgorithmName() + " not initialised");
+        }
+
+        if ((inOff + len) > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        if ((outOff + len) > out.length)
+        {
+            throw new DataLengthException("output buffer too short");
+        }
+
+        //
+        // use up any key stream left from a partial block
+        //
+        while (keyStreamOff != blockSize && len > 0)
+        {
+            out[outOff++] = (byte)(in[inOff++] ^ keyStream[keyStreamOff++]);
+            len--;
+        }
+
+        int blocks = len / blockSize;
+
+        if (blocks * blockSize >= 2 * chunkSize)
+        {
+            processChunks(in, inOff, blocks, out, outOff);
+        }
+        else if (blocks > 0)
+        {
+            cipher.processBlocks(in, inOff, blocks, out, outOff);
+            blockCount += blocks;
+        }
+
+        inOff += blocks * blockSize;
+        outOff += blocks * blockSize;
+        len -= blocks * blockSize;
+
+        for (int i = 0; i != len; i++)
+        {
+            out[outOff + i] = returnByte(in[inOff + i]);
+        }
+    }
+
+    public void reset()
+    {
+        if (IV != null)
+        {
+            cipher.init(true, new ParametersWithIV(null, IV));
+        }
+
+        blockCount = 0;
+        keyStreamOff = blockSize;
+    }
+
+    private void nextKeyStreamBlock()
+    {
+        cipher.processBlock(zeroes, 0, keyStream, 0);
+        blockCount++;
+        keyStreamOff = 0;
+    }
+
+    private void processChunks(byte[] in, int inOff, int blocks, byte[] out, int outOff)
+    {
+        int chunkBlocks = chunkSize / blockSize;
+        List<Future<Integer>> tasks = new ArrayList<Future<Integer>>();
+
+        for (int start = 0; start < blocks; start += chunkBlocks)
+        {
+            int count = Math.min(chunkBlocks, blocks - start);
+
+            tasks.add(executor.submit(new ChunkTask(getCounter(blockCount + start),
+                in, inOff + start * blockSize, count, out, outOff + start * blockSize)));
+        }
+
+        try
+        {
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for SIC chunk: " + e.getMessage());
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException("exception processing SIC chunk: " + cause);
+        }
+        finally
+        {
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).cancel(false);
+            }
+        }
+
+        blockCount += blocks;
+
+        // IV only re-init, move the calling thread's counter past the chunks.
+        cipher.init(true, new ParametersWithIV(null, getCounter(blockCount)));
+    }
+
+    /**
+     * Return the counter block for the given block offset into the key stream,
+     * the IV treated as a big-endian integer and incremented blockOffset times.
+     */
+    private byte[] getCounter(long blockOffset)
+    {
+        byte[] counter = new byte[blockSize];
+        long carry = blockOffset;
+        int    x = 0;
+
+        for (int i = blockSize - 1; i >= 0; i--)
+        {
+            x = (IV[i] & 0xff) + (int)(carry & 0xff) + (x >>> 8);
+            counter[i] = (byte)x;
+            carry >>>= 8;
+        }
+
+        return counter;
+    }
+
+    private class ChunkTask
+        implements Callable<Integer>
+    {
+        private final byte[] counter;
+        private final byte[] in;
+        private final int    inOff;
+        private final int    blocks;
+        private final byte[] out;
+        private final int    outOff;
+
+        ChunkTask(byte[] counter, byte[] in, int inOff, int blocks, byte[] out, int outOff)
+        {
+            this.counter = counter;
+            this.in = in;
+            this.inOff = inOff;
+            this.blocks = blocks;
+            this.out = out;
+            this.outOff = outOff;
+        }
+
+        public Integer call()
+        {
+            SICBlockCipher chunkCipher = new SICBlockCipher(provider.get());
+
+            chunkCipher.init(true, new ParametersWithIV(key, counter));
+
+            return Integer.valueOf(chunkCipher.processBlocks(in, inOff, blocks, out, outOff));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package org.bouncycastle.crypto.modes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.bouncycastle.crypto.BlockCipherProvider;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+
+/**
+ * A front end for XTS mode which splits a run of sectors into groups and processes the
+ * groups on an executor. Sectors are encrypted independently of each other, so every
+ * group is run by an XTSBlockCipher of its own, built from fresh engines, and the output
+ * is identical to a single XTSBlockCipher walking the whole run.
+ * <p>
+ * Runs shorter than two groups are processed on the calling thread.
+ */
+public class ParallelXTSBlockCipher
+{
+    private final BlockCipherProvider provider;
+    private final ExecutorService     executor;
+    private final int                 sectorsPerTask;
+    private final XTSBlockCipher      cipher;
+
+    private CipherParameters    key;
+    private boolean             forEncryption;
+
+    /**
+     * Base constructor.
+     *
+     * @param provider source of engines, two for the calling thread and two for each group.
+     * @param executor the executor groups are submitted to.
+     * @param sectorsPerTask the number of sectors in each group.
+     */
+    public ParallelXTSBlockCipher(BlockCipherProvider provider, ExecutorService executor, int sectorsPerTask)
+    {
+        if (sectorsPerTask <= 0)
+        {
+            throw new IllegalArgumentException("sectors per task must be at least one");
+        }
+
+        this.provider = provider;
+        this.executor = executor;
+        this.sectorsPerTask = sectorsPerTask;
+        this.cipher = new XTSBlockCipher(provider.get(), provider.get());
+    }
+
+    public String getAlgorithmName()
+    {
+        return cipher.getAlgorithmName();
+    }
+
+    /**
+     * Initialise the cipher.
+     *
+     * @param forEncryption if true the cipher is initialised for encryption, if false for decryption.
+     * @param params a KeyParameter holding the data key followed by the tweak key.
+     * @exception IllegalArgumentException if the parameters are inappropriate.
+     */
+    public void init(boolean forEncryption, CipherParameters params)
+        throws IllegalArgumentException
+    {
+        cipher.init(forEncryption, params);
+
+        this.key = params;
+        this.forEncryption = forEncryption;
+    }
+
+    /**
+     * Encrypt or decrypt a single sector on the calling thread.
+     *
+     * @see XTSBlockCipher#processSector(long, byte[], int, int, byte[], int)
+     */
+    public int processSector(long sectorNumber, byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        return cipher.processSector(sectorNumber, in, inOff, len, out, outOff);
+    }
+
+    /**
+     * Encrypt or decrypt a run of consecutively numbered sectors, spreading groups of sectors
+     * across the executor. Every sector but the last must be sectorSize bytes long, the last
+     * may be shorter but must be at least one block.
+     *
+     * @see XTSBlockCipher#processSectors(long, int, byte[], int, int, byte[], int)
+     */
+    public int processSectors(long firstSector, int sectorSize, byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        if (key == null)
+        {
+            throw new IllegalStateException(getAlgorithmName() + " not initialised");
+        }
+
+        if (sectorSize < 16)
+        {
+            throw new IllegalArgumentException("XTS sector size must be at least one block");
+        }
+
+        long groupSize = (long)sectorsPerTask * sectorSize;
+
+        if (len < 2 * groupSize)
+        {
+            return cipher.processSectors(firstSector, sectorSize, in, inOff, len, out, outOff);
+        }
+
+        // check the arguments on the calling thread before anything is submitted.
+        if ((inOff + len) > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        if ((outOff + len) > out.length)
+        {
+            throw new DataLengthException("output buffer too short");
+        }
+
+        if (len % sectorSize != 0 && len % sectorSize < 16)
+        {
+            throw new DataLengthException("XTS sector must be at least one block");
+        }
+
+        List<Future<Integer>> tasks = new ArrayList<Future<Integer>>();
+
+        try
+        {
+            long sector = firstSector;
+
+            for (int pos = 0; pos < len; pos += groupSize)
+            {
+                int count = (int)Math.min(groupSize, len - pos);
+
+                tasks.add(executor.submit(new SectorTask(sector, sectorSize, in, inOff + pos, count, out, outOff + pos)));
+
+                sector += sectorsPerTask;
+            }
+
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for XTS sectors: " + e.getMessage());
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException("exception processing XTS sectors: " + cause);
+        }
+        finally
+        {
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).cancel(false);
+            }
+        }
+
+        return len;
+    }
+
+    private class SectorTask
+        implements Callable<Integer>
+    {
+        private final long   firstSector;
+        private final int    sectorSize;
+        private final byte[] in;
+        private final int    inOff;
+        private final int    len;
+        private final byte[] out;
+        private final int    outOff;
+
+        SectorTask(long firstSector, int sectorSize, byte[] in, int inOff, int len, byte[] out, int outOff)
+        {
+            this.firstSector = firstSector;
+            this.sectorSize = sectorSize;
+            this.in = in;
+            this.inOff = inOff;
+            this.len = len;
+            this.out = out;
+            this.outOff = outOff;
+        }
+
+        public Integer call()
+        {
+            XTSBlockCipher taskCipher = new XTSBlockCipher(provider.get(), provider.get());
+
+            taskCipher.init(forEncryption, key);
+
+            return Integer.valueOf(taskCipher.processSectors(firstSector, sectorSize, in, inOff, len, out, outOff));
+        }
+    }
+}
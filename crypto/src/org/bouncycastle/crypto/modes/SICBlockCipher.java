@@ -3,13 +3,14 @@ package org.bouncycastle.crypto.modes;
 import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.params.ParametersWithIV;
 
 /**
  * Implements the Segmented Integer Counter (SIC) mode on top of a simple
  * block cipher. This mode is also known as CTR mode.
  */
-public class SICBlockCipher implements BlockCipher
+public class SICBlockCipher implements MultiBlockCipher
 {
     private final BlockCipher     cipher;
     private final int             blockSize;
@@ -17,6 +18,7 @@ public class SICBlockCipher implements BlockCipher
     private byte[]          IV;
     private byte[]          counter;
     private byte[]          counterOut;
+    private byte[]          counterBlocks;
 
 
     /**
@@ -94,6 +96,86 @@ public class SICBlockCipher implements BlockCipher
           out[outOff + i] = (byte)(counterOut[i] ^ in[inOff + i]);
         }
 
+        incrementCounter();
+
+        return counter.length;
+    }
+
+    public int getMultiBlockSize()
+    {
+        if (cipher instanceof MultiBlockCipher)
+        {
+            return ((MultiBlockCipher)cipher).getMultiBlockSize();
+        }
+
+        return blockSize;
+    }
+
+    public int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+          throws DataLengthException, IllegalStateException
+    {
+        int len = blockCount * blockSize;
+
+        if (blockCount < 0 || (inOff + len) > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        if ((outOff + len) > out.length)
+        {
+            throw new DataLengthException("output buffer too short");
+        }
+
+        if (!(cipher instanceof MultiBlockCipher))
+        {
+            for (int i = 0; i != len; i += blockSize)
+            {
+                processBlock(in, inOff + i, out, outOff + i);
+            }
+
+            return len;
+        }
+
+        MultiBlockCipher multiCipher = (MultiBlockCipher)cipher;
+
+        if (counterBlocks == null)
+        {
+            counterBlocks = new byte[Math.max(multiCipher.getMultiBlockSize() / blockSize, 1) * blockSize];
+        }
+
+        int maxBlocks = counterBlocks.length / blockSize;
+        int pos = 0;
+
+        while (blockCount > 0)
+        {
+            int count = Math.min(blockCount, maxBlocks);
+            int bytes = count * blockSize;
+
+            //
+            // lay out the next count counter values and encrypt them in one call
+            //
+            for (int i = 0; i != bytes; i += blockSize)
+            {
+                System.arraycopy(counter, 0, counterBlocks, i, blockSize);
+                incrementCounter();
+            }
+
+            multiCipher.processBlocks(counterBlocks, 0, count, counterBlocks, 0);
+
+            for (int i = 0; i != bytes; i++)
+            {
+                out[outOff + pos + i] = (byte)(counterBlocks[i] ^ in[inOff + pos + i]);
+            }
+
+            pos += bytes;
+            blockCount -= count;
+        }
+
+        return len;
+    }
+
+    private void incrementCounter()
+    {
         int    carry = 1;
         
         for (int i = counter.length - 1; i >= 0; i--)
@@ -111,8 +193,6 @@ public class SICBlockCipher implements BlockCipher
             
             counter[i] = (byte)x;
         }
-
-        return counter.length;
     }
 
 
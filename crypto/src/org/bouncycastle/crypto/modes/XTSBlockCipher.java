@@ -0,0 +1,326 @@
+package org.bouncycastle.crypto.modes;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.MultiBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Implements the XTS mode of IEEE Std 1619-2007 and NIST Special Publication 800-38E,
+ * for encrypting storage a sector (data unit) at a time.
+ * <p>
+ * Each sector is encrypted independently using its sector number as the tweak, so any
+ * sector can be read or rewritten in place. Sectors which are not a multiple of the block
+ * size are handled using cipher text stealing, but must be at least one block long.
+ * <p>
+ * The key passed to init() is the concatenation of the data key and the tweak key, so is
+ * twice the length of a key for the underlying cipher.
+ */
+public class XTSBlockCipher
+{
+    private static final int BLOCK_SIZE = 16;
+    private static final int GROUP_BLOCKS = 16;
+
+    private BlockCipher dataCipher;
+    private BlockCipher tweakCipher;
+    private boolean     forEncryption;
+    private boolean     initialised;
+
+    private byte[]      tweak = new byte[BLOCK_SIZE];
+    private byte[]      groupBlock = new byte[GROUP_BLOCKS * BLOCK_SIZE];
+    private byte[]      groupTweaks = new byte[GROUP_BLOCKS * BLOCK_SIZE];
+
+    /**
+     * Base constructor.
+     *
+     * @param dataCipher the block cipher used for the sector data.
+     * @param tweakCipher a second instance of the same block cipher, used to encrypt the sector numbers.
+     */
+    public XTSBlockCipher(BlockCipher dataCipher, BlockCipher tweakCipher)
+    {
+        if (dataCipher == tweakCipher)
+        {
+            throw new IllegalArgumentException("XTS requires two separate block cipher instances");
+        }
+
+        if (dataCipher.getBlockSize() != BLOCK_SIZE || tweakCipher.getBlockSize() != BLOCK_SIZE)
+        {
+            throw new IllegalArgumentException(
+                "cipher required with a block size of " + BLOCK_SIZE + ".");
+        }
+
+        this.dataCipher = dataCipher;
+        this.tweakCipher = tweakCipher;
+    }
+
+    /**
+     * return the underlying block cipher used for the sector data.
+     *
+     * @return the underlying block cipher used for the sector data.
+     */
+    public BlockCipher getUnderlyingCipher()
+    {
+        return dataCipher;
+    }
+
+    public String getAlgorithmName()
+    {
+        return dataCipher.getAlgorithmName() + "/XTS";
+    }
+
+    /**
+     * Initialise the cipher.
+     *
+     * @param forEncryption if true the cipher is initialised for encryption, if false for decryption.
+     * @param params a KeyParameter holding the data key followed by the tweak key.
+     * @exception IllegalArgumentException if the parameters are inappropriate.
+     */
+    public void init(boolean forEncryption, CipherParameters params)
+        throws IllegalArgumentException
+    {
+        if (!(params instanceof KeyParameter))
+        {
+            throw new IllegalArgumentException("invalid parameters passed to XTS");
+        }
+
+        byte[] key = ((KeyParameter)params).getKey();
+
+        if (key.length == 0 || key.length % 2 != 0)
+        {
+            throw new IllegalArgumentException("XTS key must be two keys of equal length");
+        }
+
+        int    half = key.length / 2;
+        byte[] key1 = new byte[half];
+        byte[] key2 = new byte[half];
+
+        System.arraycopy(key, 0, key1, 0, half);
+        System.arraycopy(key, half, key2, 0, half);
+
+        if (Arrays.areEqual(key1, key2))
+        {
+            throw new IllegalArgumentException("XTS data key and tweak key must differ");
+        }
+
+        dataCipher.init(forEncryption, new KeyParameter(key1));
+        tweakCipher.init(true, new KeyParameter(key2));
+
+        Arrays.fill(key1, (byte)0);
+        Arrays.fill(key2, (byte)0);
+
+        this.forEncryption = forEncryption;
+        this.initialised = true;
+    }
+
+    /**
+     * Encrypt or decrypt a single sector.
+     *
+     * @param sectorNumber the sector's number, used as the tweak.
+     * @param in the array containing the sector data.
+     * @param inOff offset into the in array the sector starts at.
+     * @param len the sector length, at least one block.
+     * @param out the array the processed sector is written to - may be the same as in.
+     * @param outOff offset into the out array the output starts at.
+     * @return the number of bytes written to out.
+     * @exception DataLengthException if the sector is shorter than a block or a buffer is too short.
+     * @exception IllegalStateException if the cipher isn't initialised.
+     */
+    public int processSector(long sectorNumber, byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        checkArguments(in, inOff, len, out, outOff);
+
+        if (len < BLOCK_SIZE)
+        {
+            throw new DataLengthException("XTS sector must be at least one block");
+        }
+
+        doProcessSector(sectorNumber, in, inOff, len, out, outOff);
+
+        return len;
+    }
+
+    /**
+     * Encrypt or decrypt a run of consecutively numbered sectors. Every sector but the last
+     * must be sectorSize bytes long, the last may be shorter but must be at least one block.
+     *
+     * @param firstSector the number of the first sector.
+     * @param sectorSize the length of each sector in bytes.
+     * @param in the array containing the sector data.
+     * @param inOff offset into the in array the data starts at.
+     * @param len the total length of the sectors.
+     * @param out the array the processed sectors are written to - may be the same as in.
+     * @param outOff offset into the out array the output starts at.
+     * @return the number of bytes written to out.
+     * @exception DataLengthException if the last sector is shorter than a block or a buffer is too short.
+     * @exception IllegalStateException if the cipher isn't initialised.
+     */
+    public int processSectors(long firstSector, int sectorSize, byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        checkArguments(in, inOff, len, out, outOff);
+
+        if (sectorSize < BLOCK_SIZE)
+        {
+            throw new IllegalArgumentException("XTS sector size must be at least one block");
+        }
+
+        if (len % sectorSize != 0 && len % sectorSize < BLOCK_SIZE)
+        {
+            throw new DataLengthException("XTS sector must be at least one block");
+        }
+
+        long sector = firstSector;
+
+        for (int pos = 0; pos < len; pos += sectorSize)
+        {
+            doProcessSector(sector++, in, inOff + pos, Math.min(sectorSize, len - pos), out, outOff + pos);
+        }
+
+        return len;
+    }
+
+    private void checkArguments(byte[] in, int inOff, int len, byte[] out, int outOff)
+    {
+        if (!initialised)
+        {
+            throw new IllegalStateException(getAlgorithmName() + " not initialised");
+        }
+
+        if ((inOff + len) > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        if ((outOff + len) > out.length)
+        {
+            throw new DataLengthException("output buffer too short");
+        }
+    }
+
+    private void doProcessSector(long sectorNumber, byte[] in, int inOff, int len, byte[] out, int outOff)
+    {
+        //
+        // the tweak is the encrypted sector number, as a little-endian 128 bit value
+        //
+        Arrays.fill(tweak, (byte)0);
+        for (int i = 0; i != 8; i++)
+        {
+            tweak[i] = (byte)(sectorNumber >>> (8 * i));
+        }
+        tweakCipher.processBlock(tweak, 0, tweak, 0);
+
+        int blocks = len / BLOCK_SIZE;
+        int partial = len % BLOCK_SIZE;
+
+        if (partial == 0)
+        {
+            processBlocks(in, inOff, blocks, out, outOff);
+            return;
+        }
+
+        processBlocks(in, inOff, blocks - 1, out, outOff);
+
+        //
+        // cipher text stealing for the last full block and the partial block
+        //
+        int    lastOff = (blocks - 1) * BLOCK_SIZE;
+        byte[] lastTweak = Arrays.clone(tweak);
+        byte[] block = new byte[BLOCK_SIZE];
+        byte[] tail = new byte[partial];
+
+        multiplyAlpha(tweak);
+
+        System.arraycopy(in, inOff + lastOff, block, 0, BLOCK_SIZE);
+        System.arraycopy(in, inOff + lastOff + BLOCK_SIZE, tail, 0, partial);
+
+        // with decryption the final tweak is used first
+        processBlock(block, forEncryption ? lastTweak : tweak);
+
+        System.arraycopy(block, 0, out, outOff + lastOff + BLOCK_SIZE, partial);
+        System.arraycopy(tail, 0, block, 0, partial);
+
+        processBlock(block, forEncryption ? tweak : lastTweak);
+
+        System.arraycopy(block, 0, out, outOff + lastOff, BLOCK_SIZE);
+    }
+
+    /**
+     * Process a run of whole blocks, advancing the tweak. The tweaks for a group of blocks are
+     * calculated up front so the group can be passed to the block cipher in a single call.
+     */
+    private void processBlocks(byte[] in, int inOff, int blocks, byte[] out, int outOff)
+    {
+        while (blocks > 0)
+        {
+            int count = Math.min(blocks, GROUP_BLOCKS);
+            int len = count * BLOCK_SIZE;
+
+            for (int i = 0; i != len; i += BLOCK_SIZE)
+            {
+                System.arraycopy(tweak, 0, groupTweaks, i, BLOCK_SIZE);
+
+                for (int j = 0; j != BLOCK_SIZE; j++)
+                {
+                    groupBlock[i + j] = (byte)(in[inOff + i + j] ^ tweak[j]);
+                }
+
+                multiplyAlpha(tweak);
+            }
+
+            if (dataCipher instanceof MultiBlockCipher)
+            {
+                ((MultiBlockCipher)dataCipher).processBlocks(groupBlock, 0, count, groupBlock, 0);
+            }
+            else
+            {
+                for (int i = 0; i != len; i += BLOCK_SIZE)
+                {
+                    dataCipher.processBlock(groupBlock, i, groupBlock, i);
+                }
+            }
+
+            for (int i = 0; i != len; i++)
+            {
+                out[outOff + i] = (byte)(groupBlock[i] ^ groupTweaks[i]);
+            }
+
+            inOff += len;
+            outOff += len;
+            blocks -= count;
+        }
+    }
+
+    private void processBlock(byte[] block, byte[] t)
+    {
+        for (int i = 0; i != BLOCK_SIZE; i++)
+        {
+            block[i] ^= t[i];
+        }
+
+        dataCipher.processBlock(block, 0, block, 0);
+
+        for (int i = 0; i != BLOCK_SIZE; i++)
+        {
+            block[i] ^= t[i];
+        }
+    }
+
+    /**
+     * multiply the tweak by the primitive element alpha of GF(2^128), with the
+     * tweak treated as a little-endian value.
+     */
+    private static void multiplyAlpha(byte[] t)
+    {
+        int carry = (t[BLOCK_SIZE - 1] >>> 7) & 1;
+
+        for (int i = BLOCK_SIZE - 1; i > 0; i--)
+        {
+            t[i] = (byte)((t[i] << 1) | ((t[i - 1] >>> 7) & 1));
+        }
+
+        t[0] = (byte)((t[0] << 1) ^ (0x87 & -carry));
+    }
+}
@@ -0,0 +1,88 @@
+package org.bouncycastle.crypto.modes.gcm;
+
+/**
+ * A GCMMultiplier which takes its tables from a GCMMultiplierCache, so a
+ * GCMBlockCipher re-initialised with a recently used key skips table generation.
+ * Several instances, in different threads, can share one cache.
+ * <p>
+ * The tables are held until the multiplier is initialised with a different key, or
+ * release() is called, after which the cache may wipe them once they are evicted.
+ */
+public class CachingGCMMultiplier implements GCMAggregatedMultiplier
+{
+    private final GCMMultiplierCache cache;
+
+    private GCMMultiplierCache.Entry entry;
+    private GCMMultiplier            multiplier;
+
+    // the cached tables are shared, so the scratch space for multiplying is our own
+    private final int[]   z = new int[4];
+
+    public CachingGCMMultiplier(GCMMultiplierCache cache)
+    {
+        this.cache = cache;
+    }
+
+    public void init(byte[] H)
+    {
+        GCMMultiplierCache.Entry e = cache.acquire(H);
+
+        release();
+
+        entry = e;
+        multiplier = e.multiplier;
+    }
+
+    /**
+     * Give up the tables taken from the cache. The multiplier must be initialised
+     * again before any further use, so a cipher using it should be finished with.
+     */
+    public void release()
+    {
+        if (entry != null)
+        {
+            cache.release(entry);
+            entry = null;
+            multiplier = null;
+        }
+    }
+
+    public void multiplyH(byte[] x)
+    {
+        if (multiplier instanceof Tables8kGCMMultiplier)
+        {
+            ((Tables8kGCMMultiplier)multiplier).multiplyH(x, z);
+        }
+        else if (multiplier instanceof Tables32kGCMMultiplier)
+        {
+            ((Tables32kGCMMultiplier)multiplier).multiplyH(x, z);
+        }
+        else
+        {
+            multiplier.multiplyH(x);
+        }
+    }
+
+    public void multiplyH4(byte[] x, byte[] blocks, int off)
+    {
+        if (multiplier instanceof Tables32kGCMMultiplier)
+        {
+            ((Tables32kGCMMultiplier)multiplier).multiplyH4(x, blocks, off, z);
+        }
+        else if (multiplier instanceof GCMAggregatedMultiplier)
+        {
+            ((GCMAggregatedMultiplier)multiplier).multiplyH4(x, blocks, off);
+        }
+        else
+        {
+            for (int i = 0; i != 64; i += 16)
+            {
+                for (int j = 15; j >= 0; --j)
+                {
+                    x[j] ^= blocks[off + i + j];
+                }
+                multiplyH(x);
+            }
+        }
+    }
+}
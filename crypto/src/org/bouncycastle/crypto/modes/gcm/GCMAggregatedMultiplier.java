@@ -0,0 +1,20 @@
+package org.bouncycastle.crypto.modes.gcm;
+
+/**
+ * A GCMMultiplier which can also fold four consecutive blocks into the hash
+ * at once, using precomputed powers of H.
+ */
+public interface GCMAggregatedMultiplier
+    extends GCMMultiplier
+{
+    /**
+     * Replace x with ((((x ^ b0)H ^ b1)H ^ b2)H ^ b3)H, where b0..b3 are the
+     * 64 bytes of blocks starting at off. This is computed as
+     * (x ^ b0)H^4 ^ b1H^3 ^ b2H^2 ^ b3H with a single conversion back to bytes.
+     *
+     * @param x the running hash value, 16 bytes.
+     * @param blocks array holding the four blocks to fold in.
+     * @param off offset of the first block in blocks.
+     */
+    void multiplyH4(byte[] x, byte[] blocks, int off);
+}
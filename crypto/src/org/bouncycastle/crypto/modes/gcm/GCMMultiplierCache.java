@@ -0,0 +1,213 @@
+package org.bouncycastle.crypto.modes.gcm;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A bounded, thread safe, cache of initialised GCM multipliers, keyed by the hash
+ * subkey H. Ciphers re-initialised with a key they have seen recently can pick up
+ * the existing tables rather than building them again. Multipliers handed out by
+ * the cache are not modified again until they are wiped, so may be shared across threads.
+ * <p>
+ * When the cache is full the least recently used entry is evicted, and the cache's
+ * copy of its H and the tables of its multiplier are wiped. Tables still held by a
+ * CachingGCMMultiplier are wiped when the last holder releases them, or is initialised
+ * with a different key. Multipliers returned by getMultiplier() are not tracked, so may
+ * be wiped as soon as they are evicted.
+ * <p>
+ * By default the cache builds Tables8kGCMMultiplier instances, override
+ * createMultiplier() for a different table size. Only the table multipliers of this
+ * package are wiped, other multipliers are left to the garbage collector.
+ */
+public class GCMMultiplierCache
+{
+    private final int       maxSize;
+    private final Hashtable entries = new Hashtable();
+
+    private long            clock = 0;
+
+    /**
+     * Base constructor.
+     *
+     * @param maxSize the maximum number of keys to hold tables for.
+     */
+    public GCMMultiplierCache(int maxSize)
+    {
+        if (maxSize < 1)
+        {
+            throw new IllegalArgumentException("cache size must be at least 1");
+        }
+
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Return a multiplier initialised with H, building and caching one if needed.
+     *
+     * @param H the hash subkey.
+     * @return an initialised multiplier for H.
+     */
+    public synchronized GCMMultiplier getMultiplier(byte[] H)
+    {
+        return lookup(H).multiplier;
+    }
+
+    /**
+     * Return the entry for H, marking it as in use until it is released.
+     */
+    synchronized Entry acquire(byte[] H)
+    {
+        Entry entry = lookup(H);
+
+        entry.users++;
+
+        return entry;
+    }
+
+    /**
+     * Release an entry returned by acquire(), wiping its tables if it has been
+     * evicted and this was the last user.
+     */
+    synchronized void release(Entry entry)
+    {
+        if (--entry.users == 0 && entry.evicted)
+        {
+            wipe(entry.multiplier);
+        }
+    }
+
+    private Entry lookup(byte[] H)
+    {
+        Entry entry = (Entry)entries.get(new Entry(H, null));
+
+        if (entry == null)
+        {
+            if (entries.size() >= maxSize)
+            {
+                evict();
+            }
+
+            GCMMultiplier m = createMultiplier();
+            m.init(H);
+
+            entry = new Entry(Arrays.clone(H), m);
+            entries.put(entry, entry);
+        }
+
+        entry.lastUsed = ++clock;
+
+        return entry;
+    }
+
+    /**
+     * Return the number of keys currently cached.
+     *
+     * @return the number of cached entries.
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Remove all entries, wiping the cache's copies of H and the tables of any
+     * multipliers not currently in use.
+     */
+    public synchronized void clear()
+    {
+        for (Enumeration e = entries.keys(); e.hasMoreElements();)
+        {
+            discard((Entry)e.nextElement());
+        }
+
+        entries.clear();
+    }
+
+    /**
+     * Create a new, uninitialised, multiplier for the cache to hold.
+     *
+     * @return a new GCMMultiplier.
+     */
+    protected GCMMultiplier createMultiplier()
+    {
+        return new Tables8kGCMMultiplier();
+    }
+
+    private void evict()
+    {
+        Entry oldest = null;
+
+        for (Enumeration e = entries.keys(); e.hasMoreElements();)
+        {
+            Entry entry = (Entry)e.nextElement();
+
+            if (oldest == null || entry.lastUsed < oldest.lastUsed)
+            {
+                oldest = entry;
+            }
+        }
+
+        entries.remove(oldest);
+        discard(oldest);
+    }
+
+    private void discard(Entry entry)
+    {
+        Arrays.fill(entry.H, (byte)0);
+
+        entry.evicted = true;
+        if (entry.users == 0)
+        {
+            wipe(entry.multiplier);
+        }
+    }
+
+    private static void wipe(GCMMultiplier multiplier)
+    {
+        if (multiplier instanceof Tables8kGCMMultiplier)
+        {
+            ((Tables8kGCMMultiplier)multiplier).clear();
+        }
+        else if (multiplier instanceof Tables32kGCMMultiplier)
+        {
+            ((Tables32kGCMMultiplier)multiplier).clear();
+        }
+        else if (multiplier instanceof Tables64kGCMMultiplier)
+        {
+            ((Tables64kGCMMultiplier)multiplier).clear();
+        }
+    }
+
+    static class Entry
+    {
+        final byte[]        H;
+        final GCMMultiplier multiplier;
+
+        long                lastUsed;
+        int                 users;
+        boolean             evicted;
+
+        Entry(byte[] H, GCMMultiplier multiplier)
+        {
+            this.H = H;
+            this.multiplier = multiplier;
+        }
+
+        public int hashCode()
+        {
+            return Arrays.hashCode(H);
+        }
+
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Entry))
+            {
+                return false;
+            }
+
+            return Arrays.constantTimeAreEqual(H, ((Entry)o).H);
+        }
+    }
+}
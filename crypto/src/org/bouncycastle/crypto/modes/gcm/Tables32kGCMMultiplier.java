@@ -0,0 +1,84 @@
+package org.bouncycastle.crypto.modes.gcm;
+
+import org.bouncycastle.crypto.util.Pack;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A GCMAggregatedMultiplier holding 8k tables for each of H, H^2, H^3 and H^4,
+ * so GHASH can fold four blocks per reduction.
+ * <p>
+ * multiplyH() and multiplyH4() work in scratch space held by the instance, so an instance should
+ * only be used by one thread at a time. CachingGCMMultiplier, which shares the tables
+ * between threads, passes in scratch space of its own.
+ */
+public class Tables32kGCMMultiplier implements GCMAggregatedMultiplier
+{
+    private final Tables8kGCMMultiplier[] M = new Tables8kGCMMultiplier[4];
+    private final int[]                   z = new int[4];
+
+    public void init(byte[] H)
+    {
+        byte[] powH = Arrays.clone(H);
+
+        for (int i = 0; i != 4; ++i)
+        {
+            if (i > 0)
+            {
+                GCMUtil.multiply(powH, H);
+            }
+
+            M[i] = new Tables8kGCMMultiplier();
+            M[i].init(powH);
+        }
+    }
+
+    public void multiplyH(byte[] x)
+    {
+        M[0].multiplyH(x, z);
+    }
+
+    /**
+     * multiplyH() using the caller's scratch space, z.
+     */
+    void multiplyH(byte[] x, int[] z)
+    {
+        M[0].multiplyH(x, z);
+    }
+
+    public void multiplyH4(byte[] x, byte[] blocks, int off)
+    {
+        multiplyH4(x, blocks, off, z);
+    }
+
+    /**
+     * multiplyH4() using the caller's scratch space, z.
+     */
+    void multiplyH4(byte[] x, byte[] blocks, int off, int[] z)
+    {
+        z[0] = 0;
+        z[1] = 0;
+        z[2] = 0;
+        z[3] = 0;
+
+        M[3].multiplyH(x, blocks, off, z);
+        M[2].multiplyH(blocks, off + 16, z);
+        M[1].multiplyH(blocks, off + 32, z);
+        M[0].multiplyH(blocks, off + 48, z);
+
+        Pack.intToBigEndian(z, x, 0);
+    }
+
+    /**
+     * Wipe the tables, after which the multiplier must be initialised again before use.
+     */
+    void clear()
+    {
+        for (int i = 0; i != M.length; ++i)
+        {
+            if (M[i] != null)
+            {
+                M[i].clear();
+            }
+        }
+    }
+}
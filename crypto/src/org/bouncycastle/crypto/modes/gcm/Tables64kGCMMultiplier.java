@@ -1,6 +1,7 @@
 package org.bouncycastle.crypto.modes.gcm;
 
 import org.bouncycastle.crypto.util.Pack;
+import org.bouncycastle.util.Arrays;
 
 public class Tables64kGCMMultiplier
     implements GCMMultiplier
@@ -69,4 +70,21 @@ public class Tables64kGCMMultiplier
 
         Pack.intToBigEndian(z, x, 0);
     }
+
+    /**
+     * Wipe the tables, after which the multiplier must be initialised again before use.
+     */
+    void clear()
+    {
+        for (int i = 0; i != M.length; ++i)
+        {
+            for (int j = 0; j != M[i].length; ++j)
+            {
+                if (M[i][j] != null)
+                {
+                    Arrays.fill(M[i][j], 0);
+                }
+            }
+        }
+    }
 }
@@ -1,10 +1,19 @@
 package org.bouncycastle.crypto.modes.gcm;
 
 import org.bouncycastle.crypto.util.Pack;
-
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A GCMMultiplier using 8k of tables for H.
+ * <p>
+ * multiplyH() works in scratch space held by the instance, so an instance should only be
+ * used by one thread at a time. CachingGCMMultiplier, which shares the tables between
+ * threads, passes in scratch space of its own.
+ */
 public class Tables8kGCMMultiplier implements GCMMultiplier
 {
     private final int[][][] M = new int[32][16][];
+    private final int[]     z = new int[4];
 
     public void init(byte[] H)
     {
@@ -74,26 +83,87 @@ public class Tables8kGCMMultiplier implements GCMMultiplier
     }
 
     public void multiplyH(byte[] x)
+    {
+        multiplyH(x, z);
+    }
+
+    /**
+     * multiplyH() using the caller's scratch space, z.
+     */
+    void multiplyH(byte[] x, int[] z)
     {
 //      assert x.Length == 16;
 
-        int[] z = new int[4];
+        z[0] = 0;
+        z[1] = 0;
+        z[2] = 0;
+        z[3] = 0;
+
+        multiplyH(x, 0, z);
+
+        Pack.intToBigEndian(z, x, 0);
+    }
+
+    /**
+     * Add the product of H and the block at x[xOff] into z, without reducing z
+     * back to bytes, so several products can be accumulated before packing.
+     */
+    void multiplyH(byte[] x, int xOff, int[] z)
+    {
         for (int i = 15; i >= 0; --i)
         {
-//            GCMUtil.xor(z, M[i + i][x[i] & 0x0f]);
-            int[] m = M[i + i][x[i] & 0x0f];
+            int xi = x[xOff + i];
+//            GCMUtil.xor(z, M[i + i][xi & 0x0f]);
+            int[] m = M[i + i][xi & 0x0f];
             z[0] ^= m[0];
             z[1] ^= m[1];
             z[2] ^= m[2];
             z[3] ^= m[3];
-//            GCMUtil.xor(z, M[i + i + 1][(x[i] & 0xf0) >>> 4]);
-            m = M[i + i + 1][(x[i] & 0xf0) >>> 4];
+//            GCMUtil.xor(z, M[i + i + 1][(xi & 0xf0) >>> 4]);
+            m = M[i + i + 1][(xi & 0xf0) >>> 4];
             z[0] ^= m[0];
             z[1] ^= m[1];
             z[2] ^= m[2];
             z[3] ^= m[3];
         }
+    }
 
-        Pack.intToBigEndian(z, x, 0);
+    /**
+     * As multiplyH(x, xOff, z), but for the block x ^ b[bOff..bOff + 15], saving
+     * the caller a temporary for the sum.
+     */
+    void multiplyH(byte[] x, byte[] b, int bOff, int[] z)
+    {
+        for (int i = 15; i >= 0; --i)
+        {
+            int xi = x[i] ^ b[bOff + i];
+            int[] m = M[i + i][xi & 0x0f];
+            z[0] ^= m[0];
+            z[1] ^= m[1];
+            z[2] ^= m[2];
+            z[3] ^= m[3];
+            m = M[i + i + 1][(xi & 0xf0) >>> 4];
+            z[0] ^= m[0];
+            z[1] ^= m[1];
+            z[2] ^= m[2];
+            z[3] ^= m[3];
+        }
+    }
+
+    /**
+     * Wipe the tables, after which the multiplier must be initialised again before use.
+     */
+    void clear()
+    {
+        for (int i = 0; i != M.length; ++i)
+        {
+            for (int j = 0; j != M[i].length; ++j)
+            {
+                if (M[i][j] != null)
+                {
+                    Arrays.fill(M[i][j], 0);
+                }
+            }
+        }
     }
 }
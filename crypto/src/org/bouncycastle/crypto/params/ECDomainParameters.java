@@ -5,7 +5,16 @@ import java.math.BigInteger;
 import org.bouncycastle.math.ec.ECConstants;
 import org.bouncycastle.math.ec.ECCurve;
 import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
 
+/**
+ * Elliptic curve domain parameters: the curve, the base point G, its order n and the cofactor h.
+ * <p>
+ * The comb table used by multiplyG() is shared by all parameters with the same curve and
+ * base point, through the bounded cache behind FixedPointCombMultiplier.getInstance(), so
+ * parameters created afresh for each operation still find the table. Once found it is held
+ * by the parameters for as long as they are reachable.
+ */
 public class ECDomainParameters
     implements ECConstants
 {
@@ -15,6 +24,8 @@ public class ECDomainParameters
     BigInteger  n;
     BigInteger  h;
 
+    private FixedPointCombMultiplier gMultiplier;    // guarded by this
+
     public ECDomainParameters(
         ECCurve     curve,
         ECPoint     G,
@@ -78,4 +89,67 @@ public class ECDomainParameters
     {
         return seed;
     }
+
+    public boolean equals(
+        Object  obj)
+    {
+        if (obj == this)
+        {
+            return true;
+        }
+
+        if (!(obj instanceof ECDomainParameters))
+        {
+            return false;
+        }
+
+        ECDomainParameters  pm = (ECDomainParameters)obj;
+
+        return (pm.getN().equals(n) && pm.getCurve().equals(curve) && pm.getG().equals(G));
+    }
+
+    public int hashCode()
+    {
+        return getCurve().hashCode() ^ getG().hashCode() ^ getN().hashCode();
+    }
+
+    /**
+     * Multiply the base point G by k. Once G has been used more than once, by these or
+     * any other parameters with the same curve, a comb table for G is built, which is then
+     * used by every caller - this makes key generation and signing considerably faster than
+     * G.multiply(k). A base point which is only used once never pays for the table.
+     *
+     * @param k the multiplicator.
+     * @return k * G.
+     */
+    public ECPoint multiplyG(BigInteger k)
+    {
+        FixedPointCombMultiplier m;
+
+        //
+        // the table is always read under the lock, as volatile does not make publishing
+        // it safe on the JDK 1.3/1.4 memory model - the cost is small next to the multiply.
+        //
+        synchronized (this)
+        {
+            m = gMultiplier;
+        }
+
+        if (m == null)
+        {
+            m = FixedPointCombMultiplier.getInstance(G, n.bitLength());
+
+            if (m == null)
+            {
+                return G.multiply(k);
+            }
+
+            synchronized (this)
+            {
+                gMultiplier = m;
+            }
+        }
+
+        return m.multiply(k);
+    }
 }
@@ -10,12 +10,33 @@ public class RSAKeyGenerationParameters
 {
     private BigInteger publicExponent;
     private int certainty;
+    private int numPrimes;
 
     public RSAKeyGenerationParameters(
         BigInteger      publicExponent,
         SecureRandom    random,
         int             strength,
         int             certainty)
+    {
+        this(publicExponent, random, strength, certainty, 2);
+    }
+
+    /**
+     * Parameters for generating a multi-prime key, with a modulus made up of numPrimes
+     * primes of about strength / numPrimes bits each.
+     *
+     * @param publicExponent the public exponent to use.
+     * @param random the source of randomness for the primes.
+     * @param strength the size of the modulus in bits.
+     * @param certainty the certainty the primes are prime.
+     * @param numPrimes the number of primes making up the modulus, from 2 to 4.
+     */
+    public RSAKeyGenerationParameters(
+        BigInteger      publicExponent,
+        SecureRandom    random,
+        int             strength,
+        int             certainty,
+        int             numPrimes)
     {
         super(random, strength);
 
@@ -32,8 +53,22 @@ public class RSAKeyGenerationParameters
                 throw new IllegalArgumentException("public exponent cannot be even");
         }
         
+        if (numPrimes < 2 || numPrimes > 4)
+        {
+            throw new IllegalArgumentException("number of primes must be between 2 and 4");
+        }
+
+        //
+        // leave the extra primes enough room to be well apart from each other
+        //
+        if (numPrimes > 2 && strength < 32 * numPrimes)
+        {
+            throw new IllegalArgumentException("key strength too small for number of primes");
+        }
+
         this.publicExponent = publicExponent;
         this.certainty = certainty;
+        this.numPrimes = numPrimes;
     }
 
     public BigInteger getPublicExponent()
@@ -45,4 +80,9 @@ public class RSAKeyGenerationParameters
     {
         return certainty;
     }
+
+    public int getNumPrimes()
+    {
+        return numPrimes;
+    }
 }
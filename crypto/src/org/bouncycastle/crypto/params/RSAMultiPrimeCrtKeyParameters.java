@@ -0,0 +1,63 @@
+package org.bouncycastle.crypto.params;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A CRT private key with more than two primes, as described in PKCS#1 v2.1. The first
+ * two primes are held as p and q, the rest as the other primes, each with its own
+ * exponent, d mod (r_i - 1), and coefficient, (r_1 * ... * r_(i-1))^-1 mod r_i.
+ */
+public class RSAMultiPrimeCrtKeyParameters
+    extends RSAPrivateCrtKeyParameters
+{
+    private BigInteger[]  otherPrimes;
+    private BigInteger[]  otherExponents;
+    private BigInteger[]  otherCoefficients;
+
+    public RSAMultiPrimeCrtKeyParameters(
+        BigInteger    modulus,
+        BigInteger    publicExponent,
+        BigInteger    privateExponent,
+        BigInteger    p,
+        BigInteger    q,
+        BigInteger    dP,
+        BigInteger    dQ,
+        BigInteger    qInv,
+        BigInteger[]  otherPrimes,
+        BigInteger[]  otherExponents,
+        BigInteger[]  otherCoefficients)
+    {
+        super(modulus, publicExponent, privateExponent, p, q, dP, dQ, qInv);
+
+        if (otherPrimes == null || otherPrimes.length == 0)
+        {
+            throw new IllegalArgumentException("multi-prime key must have other primes");
+        }
+        if (otherExponents == null || otherExponents.length != otherPrimes.length
+            || otherCoefficients == null || otherCoefficients.length != otherPrimes.length)
+        {
+            throw new IllegalArgumentException("other prime values must match other primes");
+        }
+
+        this.otherPrimes = Arrays.clone(otherPrimes);
+        this.otherExponents = Arrays.clone(otherExponents);
+        this.otherCoefficients = Arrays.clone(otherCoefficients);
+    }
+
+    public BigInteger[] getOtherPrimes()
+    {
+        return Arrays.clone(otherPrimes);
+    }
+
+    public BigInteger[] getOtherExponents()
+    {
+        return Arrays.clone(otherExponents);
+    }
+
+    public BigInteger[] getOtherCoefficients()
+    {
+        return Arrays.clone(otherCoefficients);
+    }
+}
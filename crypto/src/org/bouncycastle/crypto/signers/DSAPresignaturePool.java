@@ -0,0 +1,45 @@
+package org.bouncycastle.crypto.signers;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+
+import org.bouncycastle.crypto.params.DSAParameters;
+
+/**
+ * A pool of DSA presignatures, g^k mod p mod q and k^-1 mod q, for use with a PooledDSASigner.
+ * The pool can be shared by signers for any keys using the same parameters.
+ */
+public class DSAPresignaturePool
+    extends PresignaturePool
+{
+    private final DSAParameters params;
+
+    /**
+     * Create a pool and start filling it.
+     *
+     * @param params the DSA parameters of the keys the pool is for.
+     * @param random the source of the k values, a new SecureRandom if null.
+     * @param executor the executor the pool is filled on.
+     * @param capacity the most presignatures the pool will hold.
+     * @param parallelism the most fill tasks to run at once.
+     */
+    public DSAPresignaturePool(DSAParameters params, SecureRandom random, ExecutorService executor, int capacity, int parallelism)
+    {
+        super(random, executor, capacity, parallelism);
+
+        this.params = params;
+
+        refill();
+    }
+
+    public DSAParameters getParameters()
+    {
+        return params;
+    }
+
+    BigInteger[] calculatePresignature()
+    {
+        return DSASigner.calculatePresignature(params, random);
+    }
+}
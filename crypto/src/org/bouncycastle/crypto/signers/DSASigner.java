@@ -59,18 +59,11 @@ public class DSASigner
     {
         DSAParameters   params = key.getParameters();
         BigInteger      m = calculateE(params.getQ(), message);
+        BigInteger[]    pre = nextPresignature();
+        BigInteger      r = pre[1];
         BigInteger      k;
-        int                  qBitLength = params.getQ().bitLength();
 
-        do 
-        {
-            k = new BigInteger(qBitLength, random);
-        }
-        while (k.compareTo(params.getQ()) >= 0);
-
-        BigInteger  r = params.getG().modPow(k, params.getP()).mod(params.getQ());
-
-        k = k.modInverse(params.getQ()).multiply(
+        k = pre[0].multiply(
                     m.add(((DSAPrivateKeyParameters)key).getX().multiply(r)));
 
         BigInteger  s = k.mod(params.getQ());
@@ -83,6 +76,33 @@ public class DSASigner
         return res;
     }
 
+    /**
+     * Return the message independent part of a signature, k^-1 mod q and r,
+     * for a new k.
+     *
+     * @return an array containing k^-1 and r.
+     */
+    BigInteger[] nextPresignature()
+    {
+        return calculatePresignature(key.getParameters(), random);
+    }
+
+    static BigInteger[] calculatePresignature(DSAParameters params, SecureRandom random)
+    {
+        BigInteger      k;
+        int             qBitLength = params.getQ().bitLength();
+
+        do 
+        {
+            k = new BigInteger(qBitLength, random);
+        }
+        while (k.signum() == 0 || k.compareTo(params.getQ()) >= 0);
+
+        BigInteger  r = params.getG().modPow(k, params.getP()).mod(params.getQ());
+
+        return new BigInteger[] { k.modInverse(params.getQ()), r };
+    }
+
     /**
      * return true if the value r and s represent a DSA signature for
      * the passed in message for standard DSA the message should be a
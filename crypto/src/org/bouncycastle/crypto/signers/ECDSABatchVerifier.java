@@ -0,0 +1,392 @@
+package org.bouncycastle.crypto.signers;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECConstants;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECFieldElement;
+import org.bouncycastle.math.ec.ECPoint;
+
+/**
+ * Verifier for batches of ECDSA signatures, reporting the result for each signature.
+ * <p>
+ * Where the point R = u1 * G + u2 * Q the signer calculated is available with a signature
+ * the batch is checked with a random linear combination: for random z<sub>i</sub> the sum
+ * of z<sub>i</sub>(u1<sub>i</sub> * G + u2<sub>i</sub> * Q<sub>i</sub> - R<sub>i</sub>) must
+ * be the point at infinity, which can be calculated with a single multi-scalar multiplication
+ * sharing the doublings across the whole batch, and with the multiples of each distinct
+ * public key collected together. If the combined check fails the signatures in the batch are
+ * verified individually to find the bad ones.
+ * <p>
+ * Signatures without R, or whose R is unusable, are verified individually - see
+ * {@link #verifyIndividually(int[], boolean[])}. The combined check is only used on curves
+ * with a cofactor of 1.
+ */
+public class ECDSABatchVerifier
+    implements ECConstants
+{
+    private static final int RANDOMIZER_BITS = 128;
+
+    private SecureRandom random;
+    private Vector       entries = new Vector();
+
+    /**
+     * Base constructor.
+     */
+    public ECDSABatchVerifier()
+    {
+        this(new SecureRandom());
+    }
+
+    /**
+     * Constructor with the source of randomness for the linear combinations.
+     *
+     * @param random the source of the random multipliers.
+     */
+    public ECDSABatchVerifier(SecureRandom random)
+    {
+        this.random = random;
+    }
+
+    /**
+     * Add a signature to the batch.
+     *
+     * @param key the public key to verify against.
+     * @param message the message, usually a hash, the signature is for.
+     * @param r the r value of the signature.
+     * @param s the s value of the signature.
+     * @return the index of the signature in the batch.
+     */
+    public int add(ECPublicKeyParameters key, byte[] message, BigInteger r, BigInteger s)
+    {
+        return add(key, message, r, s, null);
+    }
+
+    /**
+     * Add a signature with its R point to the batch.
+     *
+     * @param key the public key to verify against.
+     * @param message the message, usually a hash, the signature is for.
+     * @param r the r value of the signature.
+     * @param s the s value of the signature.
+     * @param R the point R = k * G calculated by the signer, r being its x co-ordinate mod n.
+     * @return the index of the signature in the batch.
+     */
+    public int add(ECPublicKeyParameters key, byte[] message, BigInteger r, BigInteger s, ECPoint R)
+    {
+        entries.addElement(new Entry(key, message, r, s, R));
+
+        return entries.size() - 1;
+    }
+
+    /**
+     * Return the number of signatures in the batch.
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Remove all the signatures from the batch.
+     */
+    public void reset()
+    {
+        entries.removeAllElements();
+    }
+
+    /**
+     * Verify the signatures in the batch.
+     *
+     * @return an array with an element for each signature, in the order added, true if the signature is valid.
+     */
+    public boolean[] verify()
+    {
+        int       count = entries.size();
+        boolean[] results = new boolean[count];
+        boolean[] checked = new boolean[count];
+
+        //
+        // group the signatures carrying R by their domain parameters
+        //
+        Vector groups = new Vector();
+
+        for (int i = 0; i != count; i++)
+        {
+            Entry entry = getEntry(i);
+
+            if (entry.R == null || !ONE.equals(entry.key.getParameters().getH()))
+            {
+                continue;
+            }
+
+            Vector group = null;
+            for (int j = 0; j != groups.size(); j++)
+            {
+                Vector g = (Vector)groups.elementAt(j);
+
+                if (getEntry(((Integer)g.elementAt(0)).intValue()).key.getParameters().equals(
+                    entry.key.getParameters()))
+                {
+                    group = g;
+                    break;
+                }
+            }
+
+            if (group == null)
+            {
+                group = new Vector();
+                groups.addElement(group);
+            }
+
+            group.addElement(new Integer(i));
+        }
+
+        for (int j = 0; j != groups.size(); j++)
+        {
+            int[] indices = toIndices((Vector)groups.elementAt(j));
+
+            if (indices.length > 1 && combinedCheck(indices))
+            {
+                for (int i = 0; i != indices.length; i++)
+                {
+                    results[indices[i]] = true;
+                    checked[indices[i]] = true;
+                }
+            }
+        }
+
+        //
+        // anything left, including the members of any failed group, is done one at a time
+        //
+        Vector remaining = new Vector();
+        for (int i = 0; i != count; i++)
+        {
+            if (!checked[i])
+            {
+                remaining.addElement(new Integer(i));
+            }
+        }
+
+        if (remaining.size() > 0)
+        {
+            verifyIndividually(toIndices(remaining), results);
+        }
+
+        return results;
+    }
+
+    /**
+     * Verify the signatures at the passed in indices one at a time, setting their results.
+     * Subclasses may override this to spread the work across several threads.
+     *
+     * @param indices the indices of the signatures to verify.
+     * @param results the array the results are written to.
+     */
+    protected void verifyIndividually(int[] indices, boolean[] results)
+    {
+        for (int i = 0; i != indices.length; i++)
+        {
+            results[indices[i]] = verifyEntry(indices[i]);
+        }
+    }
+
+    /**
+     * Verify the signature at index i on its own. Safe to call from several threads at once.
+     *
+     * @param i the index of the signature.
+     * @return true if the signature is valid.
+     */
+    protected boolean verifyEntry(int i)
+    {
+        Entry       entry = getEntry(i);
+        ECDSASigner signer = new ECDSASigner();
+
+        signer.init(false, entry.key);
+
+        return signer.verifySignature(entry.message, entry.r, entry.s);
+    }
+
+    private Entry getEntry(int i)
+    {
+        return (Entry)entries.elementAt(i);
+    }
+
+    /*
+     * Check sum(z_i * (u1_i * G + u2_i * Q_i - R_i)) == infinity for the signatures at
+     * the passed in indices, all with the same domain parameters.
+     */
+    private boolean combinedCheck(int[] indices)
+    {
+        ECDomainParameters params = getEntry(indices[0]).key.getParameters();
+        BigInteger         n = params.getN();
+        ECCurve            curve = params.getCurve();
+        int                count = indices.length;
+
+        BigInteger[] sInv = new BigInteger[count];
+
+        for (int i = 0; i != count; i++)
+        {
+            Entry entry = getEntry(indices[i]);
+
+            if (!isUsable(entry, curve, n))
+            {
+                return false;
+            }
+
+            sInv[i] = entry.s;
+        }
+
+        invertAll(sInv, n);
+
+        BigInteger gCoeff = ZERO;
+        Hashtable  qCoeffs = new Hashtable();
+        Vector     points = new Vector();
+        Vector     scalars = new Vector();
+
+        for (int i = 0; i != count; i++)
+        {
+            Entry      entry = getEntry(indices[i]);
+            BigInteger e = ECDSASigner.calculateE(n, entry.message);
+            BigInteger z;
+
+            do
+            {
+                z = new BigInteger(RANDOMIZER_BITS, random);
+            }
+            while (z.signum() == 0);
+
+            BigInteger zc = z.multiply(sInv[i]);
+
+            gCoeff = gCoeff.add(zc.multiply(e)).mod(n);
+
+            ECPoint    Q = entry.key.getQ();
+            BigInteger qCoeff = (BigInteger)qCoeffs.get(Q);
+            BigInteger zu2 = zc.multiply(entry.r);
+
+            qCoeffs.put(Q, (qCoeff == null) ? zu2.mod(n) : qCoeff.add(zu2).mod(n));
+
+            points.addElement(entry.R.negate());
+            scalars.addElement(z);
+        }
+
+        points.addElement(params.getG());
+        scalars.addElement(gCoeff);
+
+        for (Enumeration en = qCoeffs.keys(); en.hasMoreElements();)
+        {
+            ECPoint Q = (ECPoint)en.nextElement();
+
+            points.addElement(Q);
+            scalars.addElement(qCoeffs.get(Q));
+        }
+
+        ECPoint[]    ps = new ECPoint[points.size()];
+        BigInteger[] ks = new BigInteger[scalars.size()];
+
+        points.copyInto(ps);
+        scalars.copyInto(ks);
+
+        return ECAlgorithms.sumOfMultiplies(ps, ks).isInfinity();
+    }
+
+    /*
+     * r and s must be in range, and R must be a point on the curve whose x co-ordinate gives r.
+     */
+    private static boolean isUsable(Entry entry, ECCurve curve, BigInteger n)
+    {
+        if (entry.r.compareTo(ONE) < 0 || entry.r.compareTo(n) >= 0
+            || entry.s.compareTo(ONE) < 0 || entry.s.compareTo(n) >= 0)
+        {
+            return false;
+        }
+
+        ECPoint R = entry.R;
+
+        if (R.isInfinity() || !curve.equals(R.getCurve()) || !curve.equals(entry.key.getQ().getCurve()))
+        {
+            return false;
+        }
+
+        if (!(curve instanceof ECCurve.Fp))
+        {
+            return false;
+        }
+
+        // y^2 = x^3 + ax + b
+        ECFieldElement x = R.getX();
+        ECFieldElement rhs = x.square().add(curve.getA()).multiply(x).add(curve.getB());
+
+        if (!R.getY().square().equals(rhs))
+        {
+            return false;
+        }
+
+        return x.toBigInteger().mod(n).equals(entry.r);
+    }
+
+    /*
+     * Replace each of the values with its inverse mod n, using a single modular
+     * inversion ("Montgomery's trick").
+     */
+    private static void invertAll(BigInteger[] values, BigInteger n)
+    {
+        int          count = values.length;
+        BigInteger[] products = new BigInteger[count];
+
+        products[0] = values[0];
+        for (int i = 1; i != count; i++)
+        {
+            products[i] = products[i - 1].multiply(values[i]).mod(n);
+        }
+
+        BigInteger inv = products[count - 1].modInverse(n);
+
+        for (int i = count - 1; i > 0; i--)
+        {
+            BigInteger vInv = inv.multiply(products[i - 1]).mod(n);
+
+            inv = inv.multiply(values[i]).mod(n);
+            values[i] = vInv;
+        }
+
+        values[0] = inv;
+    }
+
+    private static int[] toIndices(Vector v)
+    {
+        int[] indices = new int[v.size()];
+
+        for (int i = 0; i != indices.length; i++)
+        {
+            indices[i] = ((Integer)v.elementAt(i)).intValue();
+        }
+
+        return indices;
+    }
+
+    private static class Entry
+    {
+        ECPublicKeyParameters key;
+        byte[]                message;
+        BigInteger            r;
+        BigInteger            s;
+        ECPoint               R;
+
+        Entry(ECPublicKeyParameters key, byte[] message, BigInteger r, BigInteger s, ECPoint R)
+        {
+            this.key = key;
+            this.message = message;
+            this.r = r;
+            this.s = s;
+            this.R = R;
+        }
+    }
+}
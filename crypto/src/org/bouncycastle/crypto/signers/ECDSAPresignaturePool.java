@@ -0,0 +1,46 @@
+package org.bouncycastle.crypto.signers;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+
+import org.bouncycastle.crypto.params.ECDomainParameters;
+
+/**
+ * A pool of ECDSA presignatures, the x co-ordinate of k * G mod n and k^-1 mod n, for use
+ * with a PooledECDSASigner. The pool can be shared by signers for any keys on the same
+ * domain parameters.
+ */
+public class ECDSAPresignaturePool
+    extends PresignaturePool
+{
+    private final ECDomainParameters params;
+
+    /**
+     * Create a pool and start filling it.
+     *
+     * @param params the domain parameters of the keys the pool is for.
+     * @param random the source of the k values, a new SecureRandom if null.
+     * @param executor the executor the pool is filled on.
+     * @param capacity the most presignatures the pool will hold.
+     * @param parallelism the most fill tasks to run at once.
+     */
+    public ECDSAPresignaturePool(ECDomainParameters params, SecureRandom random, ExecutorService executor, int capacity, int parallelism)
+    {
+        super(random, executor, capacity, parallelism);
+
+        this.params = params;
+
+        refill();
+    }
+
+    public ECDomainParameters getParameters()
+    {
+        return params;
+    }
+
+    BigInteger[] calculatePresignature()
+    {
+        return ECDSASigner.calculatePresignature(params, random);
+    }
+}
@@ -5,6 +5,7 @@ import java.security.SecureRandom;
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DSA;
+import org.bouncycastle.crypto.params.ECDomainParameters;
 import org.bouncycastle.crypto.params.ECKeyParameters;
 import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
 import org.bouncycastle.crypto.params.ECPublicKeyParameters;
@@ -67,29 +68,13 @@ public class ECDSASigner
         // 5.3.2
         do // generate s
         {
-            BigInteger k = null;
-            int        nBitLength = n.bitLength();
+            BigInteger[] pre = nextPresignature();
 
-            do // generate r
-            {
-                do
-                {
-                    k = new BigInteger(nBitLength, random);
-                }
-                while (k.equals(ZERO) || k.compareTo(n) >= 0);
-
-                ECPoint p = key.getParameters().getG().multiply(k);
-
-                // 5.3.3
-                BigInteger x = p.getX().toBigInteger();
-
-                r = x.mod(n);
-            }
-            while (r.equals(ZERO));
+            r = pre[1];
 
             BigInteger d = ((ECPrivateKeyParameters)key).getD();
 
-            s = k.modInverse(n).multiply(e.add(d.multiply(r))).mod(n);
+            s = pre[0].multiply(e.add(d.multiply(r))).mod(n);
         }
         while (s.equals(ZERO));
 
@@ -101,6 +86,44 @@ public class ECDSASigner
         return res;
     }
 
+    /**
+     * Return the message independent part of a signature, k^-1 mod n and r,
+     * for a new k.
+     *
+     * @return an array containing k^-1 and r.
+     */
+    BigInteger[] nextPresignature()
+    {
+        return calculatePresignature(key.getParameters(), random);
+    }
+
+    static BigInteger[] calculatePresignature(ECDomainParameters params, SecureRandom random)
+    {
+        BigInteger n = params.getN();
+        BigInteger k = null;
+        BigInteger r = null;
+        int        nBitLength = n.bitLength();
+
+        do // generate r
+        {
+            do
+            {
+                k = new BigInteger(nBitLength, random);
+            }
+            while (k.equals(ZERO) || k.compareTo(n) >= 0);
+
+            ECPoint p = params.multiplyG(k);
+
+            // 5.3.3
+            BigInteger x = p.getX().toBigInteger();
+
+            r = x.mod(n);
+        }
+        while (r.equals(ZERO));
+
+        return new BigInteger[] { k.modInverse(n), r };
+    }
+
     // 5.4 pg 29
     /**
      * return true if the value r and s represent a DSA signature for
@@ -142,7 +165,7 @@ public class ECDSASigner
         return v.equals(r);
     }
 
-    private BigInteger calculateE(BigInteger n, byte[] message)
+    static BigInteger calculateE(BigInteger n, byte[] message)
     {
         int log2n = n.bitLength();
         int messageBitLength = message.length * 8;
@@ -0,0 +1,129 @@
+package org.bouncycastle.crypto.signers;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * An ECDSA batch verifier which runs the signatures that have to be verified one at a time
+ * on an executor. The signatures are split into a chunk for each of the requested number of
+ * tasks, so a large batch is not turned into a large number of tiny tasks.
+ */
+public class ParallelECDSABatchVerifier
+    extends ECDSABatchVerifier
+{
+    private final ExecutorService executor;
+    private final int             parallelism;
+
+    /**
+     * Base constructor.
+     *
+     * @param executor the executor verifications are submitted to.
+     * @param parallelism the maximum number of tasks to split the verifications into.
+     */
+    public ParallelECDSABatchVerifier(ExecutorService executor, int parallelism)
+    {
+        this(new SecureRandom(), executor, parallelism);
+    }
+
+    /**
+     * Constructor with the source of randomness for the linear combinations.
+     *
+     * @param random the source of the random multipliers.
+     * @param executor the executor verifications are submitted to.
+     * @param parallelism the maximum number of tasks to split the verifications into.
+     */
+    public ParallelECDSABatchVerifier(SecureRandom random, ExecutorService executor, int parallelism)
+    {
+        super(random);
+
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    protected void verifyIndividually(int[] indices, boolean[] results)
+    {
+        int chunks = Math.min(parallelism, indices.length);
+
+        if (chunks < 2)
+        {
+            super.verifyIndividually(indices, results);
+            return;
+        }
+
+        List<Future<Integer>> tasks = new ArrayList<Future<Integer>>();
+
+        try
+        {
+            for (int i = 0; i != chunks; i++)
+            {
+                int start = (int)((long)indices.length * i / chunks);
+                int end = (int)((long)indices.length * (i + 1) / chunks);
+
+                tasks.add(executor.submit(new VerifyTask(indices, start, end, results)));
+            }
+
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for ECDSA verification: " + e.getMessage());
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException("exception processing ECDSA verification: " + cause);
+        }
+        finally
+        {
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                tasks.get(i).cancel(false);
+            }
+        }
+    }
+
+    private class VerifyTask
+        implements Callable<Integer>
+    {
+        private final int[]     indices;
+        private final int       start;
+        private final int       end;
+        private final boolean[] results;
+
+        VerifyTask(int[] indices, int start, int end, boolean[] results)
+        {
+            this.indices = indices;
+            this.start = start;
+            this.end = end;
+            this.results = results;
+        }
+
+        public Integer call()
+        {
+            for (int i = start; i != end; i++)
+            {
+                results[indices[i]] = verifyEntry(indices[i]);
+            }
+
+            return Integer.valueOf(end - start);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.bouncycastle.crypto.signers;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.crypto.CipherParameters;
+
+/**
+ * A DSA signer which takes the k^-1 and r for each signature from a DSAPresignaturePool,
+ * leaving only s = k^-1(m + xr) mod q to be calculated when signing. If the pool is empty
+ * the signer falls back to calculating them itself. Verification is unchanged.
+ */
+public class PooledDSASigner
+    extends DSASigner
+{
+    private final DSAPresignaturePool pool;
+
+    public PooledDSASigner(DSAPresignaturePool pool)
+    {
+        this.pool = pool;
+    }
+
+    public void init(
+        boolean                 forSigning,
+        CipherParameters        param)
+    {
+        super.init(forSigning, param);
+
+        if (forSigning && !pool.getParameters().equals(key.getParameters()))
+        {
+            throw new IllegalArgumentException("key parameters do not match presignature pool");
+        }
+    }
+
+    BigInteger[] nextPresignature()
+    {
+        BigInteger[] presignature = pool.take();
+
+        if (presignature == null)
+        {
+            return super.nextPresignature();
+        }
+
+        return presignature;
+    }
+}
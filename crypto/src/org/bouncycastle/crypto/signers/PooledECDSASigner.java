@@ -0,0 +1,45 @@
+package org.bouncycastle.crypto.signers;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.crypto.CipherParameters;
+
+/**
+ * An ECDSA signer which takes the k^-1 and r for each signature from an ECDSAPresignaturePool,
+ * leaving only s = k^-1(e + dr) mod n to be calculated when signing. If the pool is empty
+ * the signer falls back to calculating them itself. Verification is unchanged.
+ */
+public class PooledECDSASigner
+    extends ECDSASigner
+{
+    private final ECDSAPresignaturePool pool;
+
+    public PooledECDSASigner(ECDSAPresignaturePool pool)
+    {
+        this.pool = pool;
+    }
+
+    public void init(
+        boolean                 forSigning,
+        CipherParameters        param)
+    {
+        super.init(forSigning, param);
+
+        if (forSigning && !pool.getParameters().equals(key.getParameters()))
+        {
+            throw new IllegalArgumentException("key parameters do not match presignature pool");
+        }
+    }
+
+    BigInteger[] nextPresignature()
+    {
+        BigInteger[] presignature = pool.take();
+
+        if (presignature == null)
+        {
+            return super.nextPresignature();
+        }
+
+        return presignature;
+    }
+}
@@ -0,0 +1,205 @@
+package org.bouncycastle.crypto.signers;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A bounded pool of presignatures - the message independent part of a DSA style signature,
+ * k^-1 and r for a fresh random k - which tasks on an executor keep topped up. A signer taking
+ * its presignatures from the pool only has a few modular multiplications left to do for each
+ * signature, the exponentiation or point multiplication having been done in advance, which
+ * suits services whose signing requests arrive in bursts with idle time in between.
+ * <p>
+ * Each presignature is handed out once only, and the pool's copy of k^-1 is zeroed as it is
+ * taken. When the pool is empty the signer calculates the presignature itself, so a pool
+ * never slows a signer down. Calling close() stops the filling and clears the pool.
+ */
+public abstract class PresignaturePool
+{
+    final SecureRandom random;
+
+    private final BlockingQueue<Entry> entries;
+    private final ExecutorService      executor;
+    private final int                  parallelism;
+    private final AtomicInteger        fillers = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    PresignaturePool(SecureRandom random, ExecutorService executor, int capacity, int parallelism)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+
+        this.random = (random != null) ? random : new SecureRandom();
+        this.executor = executor;
+        this.entries = new ArrayBlockingQueue<Entry>(capacity);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Calculate a new presignature.
+     *
+     * @return an array containing k^-1 and r.
+     */
+    abstract BigInteger[] calculatePresignature();
+
+    /**
+     * Return the number of presignatures currently in the pool.
+     *
+     * @return the number of presignatures available.
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Return the most presignatures the pool will hold.
+     *
+     * @return the pool's capacity.
+     */
+    public int getCapacity()
+    {
+        return entries.size() + entries.remainingCapacity();
+    }
+
+    /**
+     * Stop filling the pool, and clear the presignatures still in it.
+     */
+    public void close()
+    {
+        closed = true;
+
+        Entry entry;
+        while ((entry = entries.poll()) != null)
+        {
+            entry.clear();
+        }
+    }
+
+    /**
+     * Take a presignature from the pool, starting more filling if needed.
+     *
+     * @return an array containing k^-1 and r, or null if the pool is empty.
+     */
+    BigInteger[] take()
+    {
+        Entry entry = entries.poll();
+
+        refill();
+
+        return (entry != null) ? entry.use() : null;
+    }
+
+    /**
+     * Start fill tasks, up to the pool's parallelism, for the space in the pool.
+     */
+    void refill()
+    {
+        for (;;)
+        {
+            int running = fillers.get();
+
+            if (closed || running >= Math.min(parallelism, entries.remainingCapacity()))
+            {
+                return;
+            }
+
+            if (fillers.compareAndSet(running, running + 1))
+            {
+                try
+                {
+                    executor.submit(new FillTask());
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // executor shut down - signers will calculate their own presignatures
+                    fillers.decrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    private class FillTask
+        implements Callable<Integer>
+    {
+        public Integer call()
+        {
+            int count = 0;
+
+            try
+            {
+                while (!closed && entries.remainingCapacity() > 0)
+                {
+                    Entry entry = new Entry(calculatePresignature());
+
+                    if (closed || !entries.offer(entry))
+                    {
+                        entry.clear();
+                        break;
+                    }
+
+                    count++;
+
+                    if (closed)
+                    {
+                        close();    // close() may have emptied the pool before our offer
+                    }
+                }
+            }
+            finally
+            {
+                fillers.decrementAndGet();
+            }
+
+            // anything taken while we were finishing may not have started a filler.
+            refill();
+
+            return Integer.valueOf(count);
+        }
+    }
+
+    /*
+     * k^-1 is held as a byte array so the pool's copy can be zeroed.
+     */
+    private static class Entry
+    {
+        private final byte[]     kInv;
+        private final BigInteger r;
+
+        Entry(BigInteger[] presignature)
+        {
+            this.kInv = presignature[0].toByteArray();
+            this.r = presignature[1];
+        }
+
+        BigInteger[] use()
+        {
+            BigInteger[] presignature = new BigInteger[] { new BigInteger(1, kInv), r };
+
+            clear();
+
+            return presignature;
+        }
+
+        void clear()
+        {
+            Arrays.fill(kInv, (byte)0);
+        }
+    }
+}
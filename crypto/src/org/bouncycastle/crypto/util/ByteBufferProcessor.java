@@ -0,0 +1,386 @@
+package org.bouncycastle.crypto.util;
+
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Passes java.nio ByteBuffers to digests, MACs and ciphers. Buffers with an accessible
+ * backing array are handed to the primitive directly, with no copying. Direct and read-only
+ * buffers are moved through scratch arrays held by the processor a chunk at a time, so the
+ * data is never copied onto the heap in full and the scratch arrays are reused between calls.
+ * <p>
+ * The static processBytes() method does the same for any Operation, with staging arrays
+ * supplied by the caller.
+ * <p>
+ * The position of an input buffer is advanced past the data consumed, and the position of
+ * an output buffer past the data written. A processor is not thread safe, but may be reused
+ * with any number of primitives.
+ */
+public class ByteBufferProcessor
+{
+    private static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final int    chunkSize;
+    private final byte[] inBuf;
+    private byte[]       outBuf;
+
+    /**
+     * Base constructor - use a 4096 byte chunk for direct buffers.
+     */
+    public ByteBufferProcessor()
+    {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor specifying the chunk size used for direct buffers.
+     *
+     * @param chunkSize the number of bytes moved through the scratch arrays at a time.
+     */
+    public ByteBufferProcessor(int chunkSize)
+    {
+        if (chunkSize <= 0)
+        {
+            throw new IllegalArgumentException("chunk size must be positive");
+        }
+
+        this.chunkSize = chunkSize;
+        this.inBuf = new byte[chunkSize];
+        this.outBuf = new byte[chunkSize];
+    }
+
+    /**
+     * update the digest with the remaining bytes in the passed in buffer.
+     *
+     * @param digest the digest to update.
+     * @param in the buffer containing the data.
+     */
+    public void update(Digest digest, ByteBuffer in)
+    {
+        if (in.hasArray())
+        {
+            int len = in.remaining();
+
+            digest.update(in.array(), in.arrayOffset() + in.position(), len);
+            in.position(in.position() + len);
+        }
+        else
+        {
+            while (in.hasRemaining())
+            {
+                int len = Math.min(in.remaining(), chunkSize);
+
+                in.get(inBuf, 0, len);
+                digest.update(inBuf, 0, len);
+            }
+        }
+    }
+
+    /**
+     * update the MAC with the remaining bytes in the passed in buffer.
+     *
+     * @param mac the MAC to update.
+     * @param in the buffer containing the data.
+     */
+    public void update(Mac mac, ByteBuffer in)
+    {
+        if (in.hasArray())
+        {
+            int len = in.remaining();
+
+            mac.update(in.array(), in.arrayOffset() + in.position(), len);
+            in.position(in.position() + len);
+        }
+        else
+        {
+            while (in.hasRemaining())
+            {
+                int len = Math.min(in.remaining(), chunkSize);
+
+                in.get(inBuf, 0, len);
+                mac.update(inBuf, 0, len);
+            }
+        }
+    }
+
+    /**
+     * process the remaining bytes in the input buffer with a stream cipher.
+     *
+     * @param cipher the stream cipher to use.
+     * @param in the buffer containing the input data.
+     * @param out the buffer the processed data is written to.
+     * @return the number of bytes written to out.
+     * @exception DataLengthException if the output buffer has less space remaining than the input.
+     */
+    public int processBytes(final StreamCipher cipher, ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        return processBytes(new Operation()
+        {
+            public int getUpdateOutputSize(int len)
+            {
+                return len;
+            }
+
+            public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+            {
+                cipher.processBytes(in, inOff, len, out, outOff);
+
+                return len;
+            }
+        }, in, out, inBuf, outBuf);
+    }
+
+    /**
+     * process the remaining bytes in the input buffer with a buffered block cipher.
+     *
+     * @param cipher the buffered block cipher to use.
+     * @param in the buffer containing the input data.
+     * @param out the buffer the processed data is written to.
+     * @return the number of bytes written to out.
+     * @exception DataLengthException if the output buffer is too small for the data produced.
+     */
+    public int processBytes(final BufferedBlockCipher cipher, ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        return processBytes(new Operation()
+        {
+            public int getUpdateOutputSize(int len)
+            {
+                return cipher.getUpdateOutputSize(len);
+            }
+
+            public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+            {
+                return cipher.processBytes(in, inOff, len, out, outOff);
+            }
+        }, in, out, inBuf, outBuf);
+    }
+
+    /**
+     * complete the operation of a buffered block cipher, writing the last of the output to out.
+     *
+     * @param cipher the buffered block cipher to use.
+     * @param out the buffer the processed data is written to.
+     * @return the number of bytes written to out.
+     * @exception DataLengthException if the output buffer is too small for the data produced.
+     * @exception InvalidCipherTextException if padding is expected and not found.
+     */
+    public int doFinal(BufferedBlockCipher cipher, ByteBuffer out)
+        throws DataLengthException, InvalidCipherTextException
+    {
+        if (out.remaining() < cipher.getOutputSize(0))
+        {
+            throw new DataLengthException("output buffer too short");
+        }
+
+        int outLen;
+
+        if (out.hasArray())
+        {
+            outLen = cipher.doFinal(out.array(), out.arrayOffset() + out.position());
+            out.position(out.position() + outLen);
+        }
+        else
+        {
+            byte[] tmp = getOutBuf(cipher.getOutputSize(0));
+
+            outLen = cipher.doFinal(tmp, 0);
+            out.put(tmp, 0, outLen);
+        }
+
+        return outLen;
+    }
+
+    /**
+     * process the remaining bytes in the input buffer with an AEAD cipher.
+     *
+     * @param cipher the AEAD cipher to use.
+     * @param in the buffer containing the input data.
+     * @param out the buffer the processed data is written to.
+     * @return the number of bytes written to out.
+     * @exception DataLengthException if the output buffer is too small for the data produced.
+     */
+    public int processBytes(final AEADBlockCipher cipher, ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        return processBytes(new Operation()
+        {
+            public int getUpdateOutputSize(int len)
+            {
+                return cipher.getUpdateOutputSize(len);
+            }
+
+            public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+            {
+                return cipher.processBytes(in, inOff, len, out, outOff);
+            }
+        }, in, out, inBuf, outBuf);
+    }
+
+    /**
+     * complete the operation of an AEAD cipher, writing the last of the output, and the
+     * MAC if encrypting, to out.
+     *
+     * @param cipher the AEAD cipher to use.
+     * @param out the buffer the processed data is written to.
+     * @return the number of bytes written to out.
+     * @exception DataLengthException if the output buffer is too small for the data produced.
+     * @exception InvalidCipherTextException if the MAC fails to match.
+     */
+    public int doFinal(AEADBlockCipher cipher, ByteBuffer out)
+        throws DataLengthException, InvalidCipherTextException
+    {
+        if (out.remaining() < cipher.getOutputSize(0))
+        {
+            throw new DataLengthException("output buffer too short");
+        }
+
+        int outLen;
+
+        if (out.hasArray())
+        {
+            outLen = cipher.doFinal(out.array(), out.arrayOffset() + out.position());
+            out.position(out.position() + outLen);
+        }
+        else
+        {
+            byte[] tmp = getOutBuf(cipher.getOutputSize(0));
+
+            outLen = cipher.doFinal(tmp, 0);
+            out.put(tmp, 0, outLen);
+        }
+
+        return outLen;
+    }
+
+    /**
+     * process the remaining bytes in the input buffer with op, writing the output to out.
+     * Buffers with an accessible backing array are passed to op in place, others are moved
+     * through the staging arrays inBuf and outBuf a chunk at a time.
+     *
+     * @param op the operation to apply.
+     * @param in the buffer containing the input data.
+     * @param out the buffer the processed data is written to.
+     * @param inBuf staging array for input, its length setting the chunk size.
+     * @param outBuf staging array for output.
+     * @return the number of bytes written to out.
+     * @exception DataLengthException if the output buffer is too small for the data produced.
+     */
+    public static int processBytes(Operation op, ByteBuffer in, ByteBuffer out, byte[] inBuf, byte[] outBuf)
+        throws DataLengthException
+    {
+        int len = in.remaining();
+
+        if (out.remaining() < op.getUpdateOutputSize(len))
+        {
+            throw new DataLengthException("output buffer too short");
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            int outLen = op.processBytes(in.array(), in.arrayOffset() + in.position(), len, out.array(), out.arrayOffset() + out.position());
+
+            in.position(in.position() + len);
+            out.position(out.position() + outLen);
+
+            return outLen;
+        }
+
+        int resultLen = 0;
+
+        while (in.hasRemaining())
+        {
+            int    count = Math.min(in.remaining(), inBuf.length);
+            byte[] src = inBuf;
+            int    srcOff = 0;
+            int    outLen;
+
+            if (!out.hasArray())
+            {
+                // keep the output of each chunk within the staging array
+                while (count > 0 && op.getUpdateOutputSize(count) > outBuf.length)
+                {
+                    count /= 2;
+                }
+
+                if (count == 0)
+                {
+                    throw new IllegalArgumentException("output staging array too short");
+                }
+            }
+
+            if (in.hasArray())
+            {
+                src = in.array();
+                srcOff = in.arrayOffset() + in.position();
+                in.position(in.position() + count);
+            }
+            else
+            {
+                in.get(inBuf, 0, count);
+            }
+
+            if (out.hasArray())
+            {
+                outLen = op.processBytes(src, srcOff, count, out.array(), out.arrayOffset() + out.position());
+                out.position(out.position() + outLen);
+            }
+            else
+            {
+                outLen = op.processBytes(src, srcOff, count, outBuf, 0);
+                out.put(outBuf, 0, outLen);
+            }
+
+            resultLen += outLen;
+        }
+
+        return resultLen;
+    }
+
+    /**
+     * zero the scratch arrays, removing any data that has passed through them.
+     */
+    public void clear()
+    {
+        Arrays.fill(inBuf, (byte)0);
+        Arrays.fill(outBuf, (byte)0);
+    }
+
+    private byte[] getOutBuf(int len)
+    {
+        if (outBuf.length < len)
+        {
+            Arrays.fill(outBuf, (byte)0);
+            outBuf = new byte[len];
+        }
+
+        return outBuf;
+    }
+
+    /**
+     * An operation taking input and producing output in byte arrays, in the manner of a
+     * cipher's processBytes(), for processBytes(Operation, ...) to pass ByteBuffers to.
+     */
+    public interface Operation
+    {
+        /**
+         * return the most output a call to processBytes() with len bytes of input can produce.
+         */
+        int getUpdateOutputSize(int len);
+
+        /**
+         * process len bytes from in, returning the number of bytes written to out.
+         */
+        int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+            throws DataLengthException;
+    }
+}
@@ -14,6 +14,7 @@ import org.bouncycastle.asn1.nist.NISTNamedCurves;
 import org.bouncycastle.asn1.oiw.ElGamalParameter;
 import org.bouncycastle.asn1.oiw.OIWObjectIdentifiers;
 import org.bouncycastle.asn1.pkcs.DHParameter;
+import org.bouncycastle.asn1.pkcs.OtherPrimeInfo;
 import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
 import org.bouncycastle.asn1.pkcs.RSAPrivateKey;
@@ -35,6 +36,7 @@ import org.bouncycastle.crypto.params.ECDomainParameters;
 import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
 import org.bouncycastle.crypto.params.ElGamalParameters;
 import org.bouncycastle.crypto.params.ElGamalPrivateKeyParameters;
+import org.bouncycastle.crypto.params.RSAMultiPrimeCrtKeyParameters;
 import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
 
 /**
@@ -81,6 +83,27 @@ public class PrivateKeyFactory
         if (algId.getAlgorithm().equals(PKCSObjectIdentifiers.rsaEncryption))
         {
             RSAPrivateKey keyStructure = RSAPrivateKey.getInstance(keyInfo.parsePrivateKey());
+            OtherPrimeInfo[] otherPrimeInfos = keyStructure.getOtherPrimeInfos();
+
+            if (otherPrimeInfos != null)
+            {
+                BigInteger[] otherPrimes = new BigInteger[otherPrimeInfos.length];
+                BigInteger[] otherExponents = new BigInteger[otherPrimeInfos.length];
+                BigInteger[] otherCoefficients = new BigInteger[otherPrimeInfos.length];
+
+                for (int i = 0; i != otherPrimeInfos.length; i++)
+                {
+                    otherPrimes[i] = otherPrimeInfos[i].getPrime();
+                    otherExponents[i] = otherPrimeInfos[i].getExponent();
+                    otherCoefficients[i] = otherPrimeInfos[i].getCoefficient();
+                }
+
+                return new RSAMultiPrimeCrtKeyParameters(keyStructure.getModulus(),
+                    keyStructure.getPublicExponent(), keyStructure.getPrivateExponent(),
+                    keyStructure.getPrime1(), keyStructure.getPrime2(), keyStructure.getExponent1(),
+                    keyStructure.getExponent2(), keyStructure.getCoefficient(),
+                    otherPrimes, otherExponents, otherCoefficients);
+            }
 
             return new RSAPrivateCrtKeyParameters(keyStructure.getModulus(),
                 keyStructure.getPublicExponent(), keyStructure.getPrivateExponent(),
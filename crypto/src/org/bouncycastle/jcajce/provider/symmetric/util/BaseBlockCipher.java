@@ -1,5 +1,6 @@
 package org.bouncycastle.jcajce.provider.symmetric.util;
 
+import java.nio.ByteBuffer;
 import java.security.AlgorithmParameters;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -20,6 +21,7 @@ import javax.crypto.spec.PBEParameterSpec;
 import javax.crypto.spec.RC2ParameterSpec;
 import javax.crypto.spec.RC5ParameterSpec;
 
+import org.bouncycastle.crypto.BlockCipherProvider;
 import org.bouncycastle.crypto.BufferedBlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
@@ -32,6 +34,7 @@ import org.bouncycastle.crypto.modes.CTSBlockCipher;
 import org.bouncycastle.crypto.modes.EAXBlockCipher;
 import org.bouncycastle.crypto.modes.GCMBlockCipher;
 import org.bouncycastle.crypto.modes.GOFBBlockCipher;
+import org.bouncycastle.crypto.modes.OCBBlockCipher;
 import org.bouncycastle.crypto.modes.OFBBlockCipher;
 import org.bouncycastle.crypto.modes.OpenPGPCFBBlockCipher;
 import org.bouncycastle.crypto.modes.PGPCFBBlockCipher;
@@ -49,6 +52,7 @@ import org.bouncycastle.crypto.params.ParametersWithRandom;
 import org.bouncycastle.crypto.params.ParametersWithSBox;
 import org.bouncycastle.crypto.params.RC2Parameters;
 import org.bouncycastle.crypto.params.RC5Parameters;
+import org.bouncycastle.crypto.util.ByteBufferProcessor;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.jce.spec.GOST28147ParameterSpec;
 import org.bouncycastle.jce.spec.RepeatedSecretKeySpec;
@@ -71,6 +75,7 @@ public class BaseBlockCipher
                                     };
 
     private org.bouncycastle.crypto.BlockCipher baseEngine;
+    private BlockCipherProvider     engineProvider;
     private GenericBlockCipher      cipher;
     private ParametersWithIV        ivParam;
 
@@ -83,6 +88,11 @@ public class BaseBlockCipher
 
     private String                  modeName = null;
 
+    private static final int        BUF_SIZE = 4096;
+
+    private byte[]                  bufferIn;     // scratch space for direct ByteBuffers
+    private byte[]                  bufferOut;
+
     protected BaseBlockCipher(
         org.bouncycastle.crypto.BlockCipher engine)
     {
@@ -91,6 +101,15 @@ public class BaseBlockCipher
         cipher = new BufferedGenericBlockCipher(engine);
     }
 
+    protected BaseBlockCipher(
+        BlockCipherProvider provider)
+    {
+        baseEngine = provider.get();
+        engineProvider = provider;
+
+        cipher = new BufferedGenericBlockCipher(baseEngine);
+    }
+
     protected BaseBlockCipher(
         org.bouncycastle.crypto.BlockCipher engine,
         int ivLength)
@@ -278,6 +297,17 @@ public class BaseBlockCipher
             ivLength = baseEngine.getBlockSize();
             cipher = new AEADGenericBlockCipher(new GCMBlockCipher(baseEngine));
         }
+        else if (modeName.startsWith("OCB"))
+        {
+            if (engineProvider == null)
+            {
+                throw new NoSuchAlgorithmException("can't support mode " + mode);
+            }
+
+            // OCB needs a second engine for the inverse cipher
+            ivLength = 15;
+            cipher = new AEADGenericBlockCipher(new OCBBlockCipher(baseEngine, engineProvider.get()));
+        }
         else
         {
             throw new NoSuchAlgorithmException("can't support mode " + mode);
@@ -656,6 +686,80 @@ public class BaseBlockCipher
         }
     }
 
+    /**
+     * Process the remaining input in a ByteBuffer. Array backed buffers are processed in
+     * place, direct buffers are moved through scratch arrays held by the cipher a chunk at a time.
+     */
+    protected int engineUpdate(
+        ByteBuffer  input,
+        ByteBuffer  output)
+        throws ShortBufferException
+    {
+        if (bufferIn == null)
+        {
+            bufferIn = new byte[BUF_SIZE];
+        }
+
+        try
+        {
+            return ByteBufferProcessor.processBytes(cipher, input, output, bufferIn, getBufferOut(BUF_SIZE));
+        }
+        catch (DataLengthException e)
+        {
+            throw new ShortBufferException(e.getMessage());
+        }
+    }
+
+    protected int engineDoFinal(
+        ByteBuffer  input,
+        ByteBuffer  output)
+        throws ShortBufferException, IllegalBlockSizeException, BadPaddingException
+    {
+        if (output.remaining() < engineGetOutputSize(input.remaining()))
+        {
+            throw new ShortBufferException("output buffer too short for input.");
+        }
+
+        int len = engineUpdate(input, output);
+
+        try
+        {
+            if (output.hasArray())
+            {
+                int finalLen = cipher.doFinal(output.array(), output.arrayOffset() + output.position());
+
+                output.position(output.position() + finalLen);
+
+                return len + finalLen;
+            }
+
+            byte[] out = getBufferOut(cipher.getOutputSize(0));
+            int    finalLen = cipher.doFinal(out, 0);
+
+            output.put(out, 0, finalLen);
+
+            return len + finalLen;
+        }
+        catch (DataLengthException e)
+        {
+            throw new IllegalBlockSizeException(e.getMessage());
+        }
+        catch (InvalidCipherTextException e)
+        {
+            throw new BadPaddingException(e.getMessage());
+        }
+    }
+
+    private byte[] getBufferOut(int len)
+    {
+        if (bufferOut == null || bufferOut.length < len)
+        {
+            bufferOut = new byte[Math.max(len, BUF_SIZE)];
+        }
+
+        return bufferOut;
+    }
+
     protected byte[] engineDoFinal(
         byte[]  input,
         int     inputOffset,
@@ -727,7 +831,7 @@ public class BaseBlockCipher
     private boolean isAEADModeName(
         String modeName)
     {
-        return "CCM".equals(modeName) || "EAX".equals(modeName) || "GCM".equals(modeName);
+        return "CCM".equals(modeName) || "EAX".equals(modeName) || "GCM".equals(modeName) || "OCB".equals(modeName);
     }
 
     /*
@@ -735,6 +839,7 @@ public class BaseBlockCipher
      */
 
     static private interface GenericBlockCipher
+        extends ByteBufferProcessor.Operation
     {
         public void init(boolean forEncryption, CipherParameters params)
             throws IllegalArgumentException;
@@ -1,5 +1,6 @@
 package org.bouncycastle.jce.provider;
 
+import java.nio.ByteBuffer;
 import java.security.AlgorithmParameters;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -55,6 +56,7 @@ import org.bouncycastle.crypto.params.ParametersWithRandom;
 import org.bouncycastle.crypto.params.ParametersWithSBox;
 import org.bouncycastle.crypto.params.RC2Parameters;
 import org.bouncycastle.crypto.params.RC5Parameters;
+import org.bouncycastle.crypto.util.ByteBufferProcessor;
 import org.bouncycastle.jcajce.provider.symmetric.util.BCPBEKey;
 import org.bouncycastle.jcajce.provider.symmetric.util.PBE;
 import org.bouncycastle.jce.spec.GOST28147ParameterSpec;
@@ -92,6 +94,11 @@ public class JCEBlockCipher
 
     private AlgorithmParameters engineParams;
 
+    private static final int        BUF_SIZE = 4096;
+
+    private byte[]                  bufferIn;     // scratch space for direct ByteBuffers
+    private byte[]                  bufferOut;
+
     protected JCEBlockCipher(
         BlockCipher engine)
     {
@@ -665,6 +672,80 @@ public class JCEBlockCipher
         }
     }
 
+    /**
+     * Process the remaining input in a ByteBuffer. Array backed buffers are processed in
+     * place, direct buffers are moved through scratch arrays held by the cipher a chunk at a time.
+     */
+    protected int engineUpdate(
+        ByteBuffer  input,
+        ByteBuffer  output)
+        throws ShortBufferException
+    {
+        if (bufferIn == null)
+        {
+            bufferIn = new byte[BUF_SIZE];
+        }
+
+        try
+        {
+            return ByteBufferProcessor.processBytes(cipher, input, output, bufferIn, getBufferOut(BUF_SIZE));
+        }
+        catch (DataLengthException e)
+        {
+            throw new ShortBufferException(e.getMessage());
+        }
+    }
+
+    protected int engineDoFinal(
+        ByteBuffer  input,
+        ByteBuffer  output)
+        throws ShortBufferException, IllegalBlockSizeException, BadPaddingException
+    {
+        if (output.remaining() < engineGetOutputSize(input.remaining()))
+        {
+            throw new ShortBufferException("output buffer too short for input.");
+        }
+
+        int len = engineUpdate(input, output);
+
+        try
+        {
+            if (output.hasArray())
+            {
+                int finalLen = cipher.doFinal(output.array(), output.arrayOffset() + output.position());
+
+                output.position(output.position() + finalLen);
+
+                return len + finalLen;
+            }
+
+            byte[] out = getBufferOut(cipher.getOutputSize(0));
+            int    finalLen = cipher.doFinal(out, 0);
+
+            output.put(out, 0, finalLen);
+
+            return len + finalLen;
+        }
+        catch (DataLengthException e)
+        {
+            throw new IllegalBlockSizeException(e.getMessage());
+        }
+        catch (InvalidCipherTextException e)
+        {
+            throw new BadPaddingException(e.getMessage());
+        }
+    }
+
+    private byte[] getBufferOut(int len)
+    {
+        if (bufferOut == null || bufferOut.length < len)
+        {
+            bufferOut = new byte[Math.max(len, BUF_SIZE)];
+        }
+
+        return bufferOut;
+    }
+
     protected byte[] engineDoFinal(
         byte[]  input,
         int     inputOffset,
@@ -842,6 +923,7 @@ public class JCEBlockCipher
     }
 
     static private interface GenericBlockCipher
+        extends ByteBufferProcessor.Operation
     {
         public void init(boolean forEncryption, CipherParameters params)
             throws IllegalArgumentException;
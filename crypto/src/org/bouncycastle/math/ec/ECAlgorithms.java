@@ -4,6 +4,9 @@ import java.math.BigInteger;
 
 public class ECAlgorithms
 {
+    private static final WNafPreCompCache preCompCache = new WNafPreCompCache(64);
+    private static final WNafMultiplier wnafMultiplier = new WNafMultiplier();
+
     public static ECPoint sumOfTwoMultiplies(ECPoint P, BigInteger a,
         ECPoint Q, BigInteger b)
     {
@@ -23,7 +26,131 @@ public class ECAlgorithms
             }
         }
 
-        return implShamirsTrick(P, a, Q, b);
+        if (a.signum() < 0 || b.signum() < 0)
+        {
+            return implShamirsTrick(P, a, Q, b);
+        }
+
+        return implSumOfTwoMultipliesWNaf(P, a, Q, b);
+    }
+
+    /**
+     * Calculate the sum of the multiples ks[0] * ps[0] + ks[1] * ps[1] + ... using
+     * interleaved Window NAF multiplication, so the doublings are shared between
+     * all the points.
+     *
+     * @param ps the points, all on the same curve.
+     * @param ks the non-negative multipliers, one for each point.
+     * @return the sum of the multiples.
+     */
+    public static ECPoint sumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
+    {
+        if (ps.length != ks.length)
+        {
+            throw new IllegalArgumentException("point and scalar arrays should be the same length");
+        }
+
+        if (ps.length == 0)
+        {
+            throw new IllegalArgumentException("at least one point required");
+        }
+
+        ECCurve c = ps[0].getCurve();
+        int     count = ps.length;
+        int     maxLength = 0;
+
+        ECPoint[][] preComps = new ECPoint[count][];
+        byte[][]    wnafs = new byte[count][];
+
+        for (int i = 0; i < count; i++)
+        {
+            if (!c.equals(ps[i].getCurve()))
+            {
+                throw new IllegalArgumentException("points must be on same curve");
+            }
+
+            if (ks[i].signum() < 0)
+            {
+                throw new IllegalArgumentException("The multiplicator cannot be negative");
+            }
+
+            if (ps[i].isInfinity() || ks[i].signum() == 0)
+            {
+                wnafs[i] = new byte[0];
+                continue;
+            }
+
+            int width = getWindowSize(ks[i].bitLength());
+
+            preComps[i] = WNafPreCompCache.buildPreComp(ps[i], width, false);
+            wnafs[i] = wnafMultiplier.windowNaf((byte)width, ks[i]);
+
+            maxLength = Math.max(maxLength, wnafs[i].length);
+        }
+
+        normalizeTables(c, preComps);
+
+        ECPoint R = c.getInfinity();
+
+        for (int j = maxLength - 1; j >= 0; --j)
+        {
+            R = R.twice();
+
+            for (int i = 0; i < count; i++)
+            {
+                if (j < wnafs[i].length)
+                {
+                    R = addDigit(R, wnafs[i][j], preComps[i]);
+                }
+            }
+        }
+
+        return R;
+    }
+
+    /**
+     * Replace each of the len field elements from zs[off] by its inverse, using a single
+     * field inversion and 3(len - 1) multiplications (Montgomery's trick - "Guide to
+     * Elliptic Curve Cryptography" Algorithm 2.26).
+     *
+     * @param zs the array holding the elements to invert, none of which may be zero.
+     * @param off the index of the first element.
+     * @param len the number of elements.
+     */
+    public static void montgomeryTrick(ECFieldElement[] zs, int off, int len)
+    {
+        if (len < 1)
+        {
+            return;
+        }
+
+        //
+        // c[i] = zs[off] * zs[off + 1] * ... * zs[off + i]
+        //
+        ECFieldElement[] c = new ECFieldElement[len];
+
+        c[0] = zs[off];
+        for (int i = 1; i < len; i++)
+        {
+            c[i] = c[i - 1].multiply(zs[off + i]);
+        }
+
+        if (c[len - 1].isZero())
+        {
+            throw new ArithmeticException("zero element cannot be inverted");
+        }
+
+        ECFieldElement u = c[len - 1].invert();
+
+        for (int i = len - 1; i > 0; i--)
+        {
+            ECFieldElement z = zs[off + i];
+
+            zs[off + i] = u.multiply(c[i - 1]);
+            u = u.multiply(z);
+        }
+
+        zs[off] = u;
     }
 
     /*
@@ -56,6 +183,136 @@ public class ECAlgorithms
         return implShamirsTrick(P, k, Q, l);
     }
 
+    /*
+     * Interleaved Window NAF multiplication ("Guide to Elliptic Curve Cryptography"
+     * Algorithm 3.51). The precomputed odd multiples of the points come from a shared
+     * cache, so points which are used repeatedly, such as a base point or a frequently
+     * seen public key, only have their tables built once.
+     */
+    private static ECPoint implSumOfTwoMultipliesWNaf(ECPoint P, BigInteger k,
+        ECPoint Q, BigInteger l)
+    {
+        if (P.isInfinity() || k.signum() == 0)
+        {
+            return Q.multiply(l);
+        }
+
+        if (Q.isInfinity() || l.signum() == 0)
+        {
+            return P.multiply(k);
+        }
+
+        int width = getWindowSize(P.getCurve().getFieldSize());
+
+        ECPoint[] preCompP = preCompCache.getPreComp(P, width);
+        ECPoint[] preCompQ = preCompCache.getPreComp(Q, width);
+
+        byte[] wnafP = wnafMultiplier.windowNaf((byte)width, k);
+        byte[] wnafQ = wnafMultiplier.windowNaf((byte)width, l);
+
+        ECPoint R = P.getCurve().getInfinity();
+
+        for (int i = Math.max(wnafP.length, wnafQ.length) - 1; i >= 0; --i)
+        {
+            R = R.twice();
+
+            if (i < wnafP.length)
+            {
+                R = addDigit(R, wnafP[i], preCompP);
+            }
+
+            if (i < wnafQ.length)
+            {
+                R = addDigit(R, wnafQ[i], preCompQ);
+            }
+        }
+
+        return R;
+    }
+
+    /*
+     * Convert the entries of all the tables to affine form with a single shared inversion.
+     */
+    private static void normalizeTables(ECCurve c, ECPoint[][] preComps)
+    {
+        int total = 0;
+        for (int i = 0; i < preComps.length; i++)
+        {
+            if (preComps[i] != null)
+            {
+                total += preComps[i].length;
+            }
+        }
+
+        ECPoint[] all = new ECPoint[total];
+        int       pos = 0;
+
+        for (int i = 0; i < preComps.length; i++)
+        {
+            if (preComps[i] != null)
+            {
+                System.arraycopy(preComps[i], 0, all, pos, preComps[i].length);
+                pos += preComps[i].length;
+            }
+        }
+
+        c.normalizeAll(all);
+
+        pos = 0;
+        for (int i = 0; i < preComps.length; i++)
+        {
+            if (preComps[i] != null)
+            {
+                System.arraycopy(all, pos, preComps[i], 0, preComps[i].length);
+                pos += preComps[i].length;
+            }
+        }
+    }
+
+    private static ECPoint addDigit(ECPoint R, int digit, ECPoint[] preComp)
+    {
+        if (digit > 0)
+        {
+            return R.add(preComp[(digit - 1) / 2]);
+        }
+
+        if (digit < 0)
+        {
+            return R.subtract(preComp[(-digit - 1) / 2]);
+        }
+
+        return R;
+    }
+
+    /*
+     * Window widths giving the best trade-off between precomputation and additions,
+     * from the same literature values as WNafMultiplier.
+     */
+    private static int getWindowSize(int bits)
+    {
+        if (bits < 13)
+        {
+            return 2;
+        }
+        if (bits < 41)
+        {
+            return 3;
+        }
+        if (bits < 121)
+        {
+            return 4;
+        }
+        if (bits < 337)
+        {
+            return 5;
+        }
+        if (bits < 897)
+        {
+            return 6;
+        }
+        return 7;
+    }
+
     private static ECPoint implShamirsTrick(ECPoint P, BigInteger k,
         ECPoint Q, BigInteger l)
     {
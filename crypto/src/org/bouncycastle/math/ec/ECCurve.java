@@ -30,14 +30,72 @@ public abstract class ECCurve
         return b;
     }
 
+    /**
+     * Replace each of the points in the array by its normalized (affine) form.
+     *
+     * @param points the points to normalize, all on this curve, null entries are left as they are.
+     */
+    public void normalizeAll(ECPoint[] points)
+    {
+        normalizeAll(points, 0, points.length);
+    }
+
+    /**
+     * Replace each of the len points from points[off] by its normalized (affine) form. Curves
+     * whose points use projective co-ordinates share a single field inversion between all
+     * of the points, rather than doing one for each. Null entries are left as they are.
+     *
+     * @param points the array holding the points to normalize.
+     * @param off the index of the first point.
+     * @param len the number of points.
+     */
+    public void normalizeAll(ECPoint[] points, int off, int len)
+    {
+        checkPoints(points, off, len);
+
+        for (int i = off; i < off + len; i++)
+        {
+            ECPoint p = points[i];
+
+            if (p != null)
+            {
+                points[i] = p.normalize();
+            }
+        }
+    }
+
+    void checkPoints(ECPoint[] points, int off, int len)
+    {
+        if (off < 0 || len < 0 || off + len > points.length)
+        {
+            throw new IllegalArgumentException("invalid range specified for points array");
+        }
+
+        for (int i = off; i < off + len; i++)
+        {
+            ECPoint p = points[i];
+
+            if (p != null && p.getCurve() != this && !this.equals(p.getCurve()))
+            {
+                throw new IllegalArgumentException("points must be on this curve");
+            }
+        }
+    }
+
     /**
      * Elliptic curve over Fp
      */
     public static class Fp extends ECCurve
     {
+        static final int A_GENERAL = 1;
+        static final int A_ZERO = 2;
+        static final int A_MINUS_THREE = 3;
+
         BigInteger q;
         ECPoint.Fp infinity;
 
+        private int aType;
+
         public Fp(BigInteger q, BigInteger a, BigInteger b)
         {
             this.q = q;
@@ -46,6 +104,16 @@ public abstract class ECCurve
             this.infinity = new ECPoint.Fp(this, null, null);
         }
 
+        /**
+         * For subclasses providing their own field elements - a and b must be set
+         * by the subclass constructor.
+         */
+        Fp(BigInteger q)
+        {
+            this.q = q;
+            this.infinity = new ECPoint.Fp(this, null, null);
+        }
+
         public BigInteger getQ()
         {
             return q;
@@ -94,7 +162,7 @@ public abstract class ECCurve
 
                 System.arraycopy(encoded, 1, i, 0, i.length);
 
-                ECFieldElement x = new ECFieldElement.Fp(this.q, new BigInteger(1, i));
+                ECFieldElement x = fromBigInteger(new BigInteger(1, i));
                 ECFieldElement alpha = x.multiply(x.square().add(a)).add(b);
                 ECFieldElement beta = alpha.sqrt();
 
@@ -115,8 +183,7 @@ public abstract class ECCurve
                 }
                 else
                 {
-                    p = new ECPoint.Fp(this, x,
-                        new ECFieldElement.Fp(this.q, q.subtract(beta.toBigInteger())), true);
+                    p = new ECPoint.Fp(this, x, beta.negate(), true);
                 }
                 break;
                 // uncompressed
@@ -131,8 +198,8 @@ public abstract class ECCurve
                 System.arraycopy(encoded, xEnc.length + 1, yEnc, 0, yEnc.length);
 
                 p = new ECPoint.Fp(this,
-                        new ECFieldElement.Fp(this.q, new BigInteger(1, xEnc)),
-                        new ECFieldElement.Fp(this.q, new BigInteger(1, yEnc)));
+                        fromBigInteger(new BigInteger(1, xEnc)),
+                        fromBigInteger(new BigInteger(1, yEnc)));
                 break;
             default:
                 throw new RuntimeException("Invalid point encoding 0x" + Integer.toString(encoded[0], 16));
@@ -146,6 +213,71 @@ public abstract class ECCurve
             return infinity;
         }
 
+        public void normalizeAll(ECPoint[] points, int off, int len)
+        {
+            checkPoints(points, off, len);
+
+            //
+            // collect the Z co-ordinates of the points still in Jacobian form
+            //
+            int[]            indices = new int[len];
+            ECFieldElement[] zs = new ECFieldElement[len];
+            int              count = 0;
+
+            for (int i = off; i < off + len; i++)
+            {
+                ECPoint.Fp p = (ECPoint.Fp)points[i];
+
+                if (p != null && p.z != null && !p.isInfinity())
+                {
+                    indices[count] = i;
+                    zs[count++] = p.z;
+                }
+            }
+
+            if (count == 0)
+            {
+                return;
+            }
+
+            ECAlgorithms.montgomeryTrick(zs, 0, count);
+
+            for (int j = 0; j < count; j++)
+            {
+                int index = indices[j];
+
+                points[index] = ((ECPoint.Fp)points[index]).normalize(zs[j]);
+            }
+        }
+
+        /**
+         * Classify the a coefficient, so point doubling can take advantage of
+         * a = 0 or a = -3.
+         */
+        int getAType()
+        {
+            // benign race - any thread will calculate the same value.
+            if (aType == 0)
+            {
+                BigInteger aValue = a.toBigInteger();
+
+                if (aValue.signum() == 0)
+                {
+                    aType = A_ZERO;
+                }
+                else if (aValue.equals(q.subtract(BigInteger.valueOf(3))))
+                {
+                    aType = A_MINUS_THREE;
+                }
+                else
+                {
+                    aType = A_GENERAL;
+                }
+            }
+
+            return aType;
+        }
+
         public boolean equals(
             Object anObject) 
         {
@@ -73,7 +73,15 @@ public abstract class ECPoint
             return o.isInfinity();
         }
 
-        return x.equals(o.x) && y.equals(o.y);
+        if (o.isInfinity())
+        {
+            return false;
+        }
+
+        ECPoint a = this.normalize();
+        ECPoint b = o.normalize();
+
+        return a.x.equals(b.x) && a.y.equals(b.y);
     }
 
     public int hashCode()
@@ -82,8 +90,22 @@ public abstract class ECPoint
         {
             return 0;
         }
-        
-        return x.hashCode() ^ y.hashCode();
+
+        ECPoint a = this.normalize();
+
+        return a.x.hashCode() ^ a.y.hashCode();
+    }
+
+    /**
+     * Return an equivalent point in affine co-ordinates. Points held in another
+     * co-ordinate system are converted, which costs a field inversion, affine points
+     * are returned as they are.
+     *
+     * @return a point with affine x and y co-ordinates equal to this one.
+     */
+    public ECPoint normalize()
+    {
+        return this;
     }
 
 //    /**
@@ -154,10 +176,22 @@ public abstract class ECPoint
 
     /**
      * Elliptic curve points over Fp
+     * <p>
+     * Points resulting from add(), twice() and multiply() are held in Jacobian
+     * co-ordinates (X, Y, Z), representing the affine point (X/Z^2, Y/Z^3), so the
+     * point arithmetic needs no field inversions. The affine co-ordinates are only
+     * calculated when getX(), getY(), getEncoded() or normalize() is called, and are
+     * then kept, under the point's lock, for later calls from any thread.
      */
     public static class Fp extends ECPoint
     {
-        
+        /**
+         * The Jacobian Z co-ordinate, null if the point is affine (Z = 1).
+         */
+        ECFieldElement z;
+
+        private ECPoint.Fp normalized;
+
         /**
          * Create a point which encodes with point compression.
          * 
@@ -189,7 +223,69 @@ public abstract class ECPoint
 
             this.withCompression = withCompression;
         }
-         
+
+        /**
+         * Create a point from Jacobian co-ordinates.
+         */
+        Fp(ECCurve curve, ECFieldElement x, ECFieldElement y, ECFieldElement z, boolean withCompression)
+        {
+            super(curve, x, y);
+
+            this.z = z;
+            this.withCompression = withCompression;
+        }
+
+        public ECFieldElement getX()
+        {
+            return normalize().x;
+        }
+
+        public ECFieldElement getY()
+        {
+            return normalize().y;
+        }
+
+        public ECPoint normalize()
+        {
+            if (z == null)
+            {
+                return this;
+            }
+
+            // the affine point is cached and read under the lock, so a point shared between
+            // threads never hands out a cached point whose fields are not yet visible.
+            synchronized (this)
+            {
+                if (normalized == null)
+                {
+                    normalized = affine(z.invert());
+                }
+
+                return normalized;
+            }
+        }
+
+        /**
+         * Return the affine form of this point given the inverse of its Z co-ordinate, as
+         * calculated for a batch of points by {@link ECCurve#normalizeAll(ECPoint[])}.
+         */
+        synchronized ECPoint.Fp normalize(ECFieldElement zInv)
+        {
+            if (normalized == null)
+            {
+                normalized = affine(zInv);
+            }
+
+            return normalized;
+        }
+
+        private ECPoint.Fp affine(ECFieldElement zInv)
+        {
+            ECFieldElement zInv2 = zInv.square();
+
+            return new ECPoint.Fp(curve, x.multiply(zInv2), y.multiply(zInv2.multiply(zInv)), withCompression);
+        }
+
         /**
          * return the field element encoded with point compression. (S 4.3.6)
          */
@@ -200,13 +296,14 @@ public abstract class ECPoint
                 return new byte[1];
             }
 
-            int qLength = converter.getByteLength(x);
+            ECPoint p = normalize();
+            int qLength = converter.getByteLength(p.x);
             
             if (withCompression)
             {
                 byte    PC;
     
-                if (this.getY().toBigInteger().testBit(0))
+                if (p.y.toBigInteger().testBit(0))
                 {
                     PC = 0x03;
                 }
@@ -215,7 +312,7 @@ public abstract class ECPoint
                     PC = 0x02;
                 }
     
-                byte[]  X = converter.integerToBytes(this.getX().toBigInteger(), qLength);
+                byte[]  X = converter.integerToBytes(p.x.toBigInteger(), qLength);
                 byte[]  PO = new byte[X.length + 1];
     
                 PO[0] = PC;
@@ -225,8 +322,8 @@ public abstract class ECPoint
             }
             else
             {
-                byte[]  X = converter.integerToBytes(this.getX().toBigInteger(), qLength);
-                byte[]  Y = converter.integerToBytes(this.getY().toBigInteger(), qLength);
+                byte[]  X = converter.integerToBytes(p.x.toBigInteger(), qLength);
+                byte[]  Y = converter.integerToBytes(p.y.toBigInteger(), qLength);
                 byte[]  PO = new byte[X.length + Y.length + 1];
                 
                 PO[0] = 0x04;
@@ -237,7 +334,7 @@ public abstract class ECPoint
             }
         }
 
-        // B.3 pg 62
+        // Jacobian addition, "add-1998-cmo-2" - cheaper if either point is affine.
         public ECPoint add(ECPoint b)
         {
             if (this.isInfinity())
@@ -250,10 +347,35 @@ public abstract class ECPoint
                 return this;
             }
 
+            ECFieldElement X1 = this.x, Y1 = this.y, Z1 = this.z;
+            ECFieldElement X2 = b.x, Y2 = b.y, Z2 = ((ECPoint.Fp)b).z;
+
+            ECFieldElement U1 = X1, S1 = Y1;
+            ECFieldElement U2 = X2, S2 = Y2;
+
+            if (Z2 != null)
+            {
+                ECFieldElement Z2Z2 = Z2.square();
+
+                U1 = X1.multiply(Z2Z2);
+                S1 = Y1.multiply(Z2Z2.multiply(Z2));
+            }
+
+            if (Z1 != null)
+            {
+                ECFieldElement Z1Z1 = Z1.square();
+
+                U2 = X2.multiply(Z1Z1);
+                S2 = Y2.multiply(Z1Z1.multiply(Z1));
+            }
+
+            ECFieldElement H = U2.subtract(U1);
+            ECFieldElement R = S2.subtract(S1);
+
             // Check if b = this or b = -this
-            if (this.x.equals(b.x))
+            if (H.isZero())
             {
-                if (this.y.equals(b.y))
+                if (R.isZero())
                 {
                     // this = b, i.e. this must be doubled
                     return this.twice();
@@ -263,15 +385,27 @@ public abstract class ECPoint
                 return this.curve.getInfinity();
             }
 
-            ECFieldElement gamma = b.y.subtract(this.y).divide(b.x.subtract(this.x));
+            ECFieldElement HH = H.square();
+            ECFieldElement HHH = HH.multiply(H);
+            ECFieldElement V = U1.multiply(HH);
 
-            ECFieldElement x3 = gamma.square().subtract(this.x).subtract(b.x);
-            ECFieldElement y3 = gamma.multiply(this.x.subtract(x3)).subtract(this.y);
+            ECFieldElement X3 = R.square().subtract(HHH).subtract(V.add(V));
+            ECFieldElement Y3 = R.multiply(V.subtract(X3)).subtract(S1.multiply(HHH));
 
-            return new ECPoint.Fp(curve, x3, y3);
+            ECFieldElement Z3 = H;
+            if (Z1 != null)
+            {
+                Z3 = Z3.multiply(Z1);
+            }
+            if (Z2 != null)
+            {
+                Z3 = Z3.multiply(Z2);
+            }
+
+            return new ECPoint.Fp(curve, X3, Y3, Z3, false);
         }
 
-        // B.3 pg 62
+        // Jacobian doubling, "dbl-1998-cmo-2", with the usual shortcuts for a = -3 and a = 0.
         public ECPoint twice()
         {
             if (this.isInfinity())
@@ -280,21 +414,61 @@ public abstract class ECPoint
                 return this;
             }
 
-            if (this.y.toBigInteger().signum() == 0) 
+            if (this.y.isZero())
             {
                 // if y1 == 0, then (x1, y1) == (x1, -y1)
                 // and hence this = -this and thus 2(x1, y1) == infinity
                 return this.curve.getInfinity();
             }
 
-            ECFieldElement TWO = this.curve.fromBigInteger(BigInteger.valueOf(2));
-            ECFieldElement THREE = this.curve.fromBigInteger(BigInteger.valueOf(3));
-            ECFieldElement gamma = this.x.square().multiply(THREE).add(curve.a).divide(y.multiply(TWO));
+            ECFieldElement X1 = this.x, Y1 = this.y, Z1 = this.z;
 
-            ECFieldElement x3 = gamma.square().subtract(this.x.multiply(TWO));
-            ECFieldElement y3 = gamma.multiply(this.x.subtract(x3)).subtract(this.y);
-                
-            return new ECPoint.Fp(curve, x3, y3, this.withCompression);
+            ECFieldElement X1Squared = X1.square();
+            ECFieldElement M;
+
+            int aType = ((ECCurve.Fp)curve).getAType();
+
+            if (aType == ECCurve.Fp.A_ZERO)
+            {
+                M = three(X1Squared);
+            }
+            else if (Z1 == null)
+            {
+                M = three(X1Squared).add(curve.a);
+            }
+            else
+            {
+                ECFieldElement Z1Squared = Z1.square();
+
+                if (aType == ECCurve.Fp.A_MINUS_THREE)
+                {
+                    M = three(X1.subtract(Z1Squared).multiply(X1.add(Z1Squared)));
+                }
+                else
+                {
+                    M = three(X1Squared).add(curve.a.multiply(Z1Squared.square()));
+                }
+            }
+
+            ECFieldElement YY = Y1.square();
+            ECFieldElement S = twice(twice(X1.multiply(YY)));
+            ECFieldElement YYYY8 = twice(twice(twice(YY.square())));
+
+            ECFieldElement X3 = M.square().subtract(twice(S));
+            ECFieldElement Y3 = M.multiply(S.subtract(X3)).subtract(YYYY8);
+            ECFieldElement Z3 = twice(Z1 == null ? Y1 : Y1.multiply(Z1));
+
+            return new ECPoint.Fp(curve, X3, Y3, Z3, this.withCompression);
+        }
+
+        private static ECFieldElement twice(ECFieldElement e)
+        {
+            return e.add(e);
+        }
+
+        private static ECFieldElement three(ECFieldElement e)
+        {
+            return e.add(e).add(e);
         }
 
         // D.3.2 pg 102 (see Note:)
@@ -311,7 +485,12 @@ public abstract class ECPoint
 
         public ECPoint negate()
         {
-            return new ECPoint.Fp(curve, this.x, this.y.negate(), this.withCompression);
+            if (this.isInfinity())
+            {
+                return this;
+            }
+
+            return new ECPoint.Fp(curve, this.x, this.y.negate(), this.z, this.withCompression);
         }
 
         /**
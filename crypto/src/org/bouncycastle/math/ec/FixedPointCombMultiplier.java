@@ -0,0 +1,173 @@
+package org.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+
+/**
+ * Multiplier for a point which is used over and over again, such as the base point of a
+ * set of domain parameters, using the fixed-base comb method (Lim and Lee, also
+ * "Guide to Elliptic Curve Cryptography" Algorithm 3.44).
+ * <p>
+ * The scalar is split into <code>width</code> rows of <code>d</code> bits and a table of
+ * the <code>2^width</code> possible column sums of the row multiples of the point is built
+ * once in the constructor. A multiplication then costs <code>d</code> doublings and at most
+ * <code>d</code> additions, compared with a doubling for every bit of the scalar in the
+ * general multipliers.
+ * <p>
+ * Instances are not altered after construction, so a single instance can be shared
+ * between threads. getInstance() shares them through a bounded cache keyed by the curve and
+ * the affine co-ordinates of the point.
+ */
+public class FixedPointCombMultiplier
+{
+    private static final PreCompCache cache = new PreCompCache(16);
+
+    private ECPoint   p;  // can't be final - JDK 1.1
+    private int       width;  // can't be final - JDK 1.1
+    private int       d;  // can't be final - JDK 1.1
+    private ECPoint[] table;  // can't be final - JDK 1.1
+
+    /**
+     * Return a shared multiplier for p, built the second time it is asked for - a point
+     * asked for only once never pays for the table.
+     *
+     * @param p the point to be multiplied.
+     * @param bits the maximum bit length of the scalars, usually that of the order of p.
+     * @return the multiplier for p, or null if p has not been asked for before.
+     */
+    public static FixedPointCombMultiplier getInstance(ECPoint p, int bits)
+    {
+        PreCompCache.Key key = new PreCompCache.Key(p, bits);
+        FixedPointCombMultiplier m = (FixedPointCombMultiplier)cache.lookup(key);
+
+        if (m == null && cache.seenBefore(key))
+        {
+            m = new FixedPointCombMultiplier(p, bits);
+
+            cache.store(key, m);
+        }
+
+        return m;
+    }
+
+    /**
+     * Build the comb table for p, for use with scalars of up to bits bits long.
+     *
+     * @param p the point to be multiplied.
+     * @param bits the maximum bit length of the scalars, usually that of the order of p.
+     */
+    public FixedPointCombMultiplier(ECPoint p, int bits)
+    {
+        if (p.isInfinity())
+        {
+            throw new IllegalArgumentException("point at infinity cannot be used");
+        }
+
+        if (bits < 1)
+        {
+            throw new IllegalArgumentException("bits must be at least 1");
+        }
+
+        this.p = p;
+        this.width = (bits > 160) ? 6 : 5;
+        this.d = (bits + width - 1) / width;
+        this.table = new ECPoint[1 << width];
+
+        //
+        // rows[i] = 2^(i * d) * p
+        //
+        ECCurve   curve = p.getCurve();
+        ECPoint[] rows = new ECPoint[width];
+        ECPoint   row = p;
+
+        for (int i = 0; i < width; i++)
+        {
+            rows[i] = row;
+
+            for (int j = 0; j < d; j++)
+            {
+                row = row.twice();
+            }
+        }
+
+        curve.normalizeAll(rows);
+
+        //
+        // table[j] is the sum of the rows[i] for which bit i of j is set
+        //
+        table[0] = curve.getInfinity();
+
+        for (int i = 0; i < width; i++)
+        {
+            int bit = 1 << i;
+
+            table[bit] = rows[i];
+
+            for (int j = 1; j < bit; j++)
+            {
+                table[bit + j] = table[j].add(rows[i]);
+            }
+        }
+
+        curve.normalizeAll(table);
+    }
+
+    /**
+     * Return the point the table was built for.
+     */
+    public ECPoint getPoint()
+    {
+        return p;
+    }
+
+    /**
+     * Return the largest bit length of scalar the table covers - longer scalars are
+     * multiplied using the point's general multiplier.
+     */
+    public int getMaxBits()
+    {
+        return width * d;
+    }
+
+    /**
+     * Multiply the point by k.
+     *
+     * @param k the multiplicator.
+     * @return <code>k * p</code>.
+     */
+    public ECPoint multiply(BigInteger k)
+    {
+        if (k.signum() < 0)
+        {
+            throw new IllegalArgumentException("The multiplicator cannot be negative");
+        }
+
+        if (k.bitLength() > width * d)
+        {
+            return p.multiply(k);
+        }
+
+        ECPoint q = p.getCurve().getInfinity();
+
+        for (int col = d - 1; col >= 0; col--)
+        {
+            q = q.twice();
+
+            int index = 0;
+            for (int i = width - 1; i >= 0; i--)
+            {
+                index <<= 1;
+                if (k.testBit(i * d + col))
+                {
+                    index |= 1;
+                }
+            }
+
+            if (index != 0)
+            {
+                q = q.add(table[index]);
+            }
+        }
+
+        return q;
+    }
+}
@@ -0,0 +1,571 @@
+package org.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A binary polynomial held 64 coefficients to a word in an array of longs, with the
+ * arithmetic needed for elements of F<sub>2<sup>m</sup></sub> given by a trinomial or
+ * pentanomial reduction polynomial.
+ * <p>
+ * Multiplication uses the left-to-right comb method with a window of 4 bits, squaring
+ * spreads the bits out through a table, and reduction folds a word of the product at a
+ * time back into the lower words, using the small gaps between the terms of the
+ * reduction polynomials in the standards ("Guide to Elliptic Curve Cryptography"
+ * Algorithms 2.36, 2.39 and 2.40).
+ */
+class LongArray
+{
+    /*
+     * INTERLEAVE_TABLE[b] is the byte b with a zero bit inserted above each of its bits,
+     * so squaring a polynomial is a table lookup for each byte.
+     */
+    private static final int[] INTERLEAVE_TABLE = new int[256];
+
+    static
+    {
+        for (int i = 0; i < 256; i++)
+        {
+            int v = 0;
+            for (int j = 0; j < 8; j++)
+            {
+                v |= ((i >>> j) & 1) << (2 * j);
+            }
+            INTERLEAVE_TABLE[i] = v;
+        }
+    }
+
+    private long[] m_longs;
+
+    public LongArray(int longLen)
+    {
+        m_longs = new long[longLen];
+    }
+
+    public LongArray(long[] longs)
+    {
+        m_longs = longs;
+    }
+
+    public LongArray(BigInteger bigInt, int minLongLen)
+    {
+        if (bigInt.signum() < 0)
+        {
+            throw new IllegalArgumentException("Only positive Integers allowed");
+        }
+
+        byte[] barr = bigInt.toByteArray();
+        int barrLen = barr.length;
+        int barrStart = 0;
+        if (barr[0] == 0)
+        {
+            // First byte is 0 to enforce highest (=sign) bit is zero.
+            // In this case ignore barr[0].
+            barrLen--;
+            barrStart = 1;
+        }
+
+        int longLen = Math.max((barrLen + 7) >>> 3, Math.max(minLongLen, 1));
+
+        m_longs = new long[longLen];
+
+        for (int i = 0; i < barrLen; i++)
+        {
+            m_longs[i >>> 3] |= (barr[barrStart + barrLen - 1 - i] & 0xffL) << ((i & 7) << 3);
+        }
+    }
+
+    public boolean isZero()
+    {
+        for (int i = 0; i < m_longs.length; i++)
+        {
+            if (m_longs[i] != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getUsedLength()
+    {
+        int i = m_longs.length;
+
+        while (i > 0 && m_longs[i - 1] == 0)
+        {
+            i--;
+        }
+
+        return i;
+    }
+
+    public int bitLength()
+    {
+        int usedLen = getUsedLength();
+        if (usedLen == 0)
+        {
+            return 0;
+        }
+
+        return ((usedLen - 1) << 6) + bitLength(m_longs[usedLen - 1]);
+    }
+
+    private static int bitLength(long w)
+    {
+        // JDK 1.5: see Long.numberOfLeadingZeros()
+        int bits = 0;
+
+        if ((w >>> 32) != 0)
+        {
+            bits += 32;
+            w >>>= 32;
+        }
+        if ((w >>> 16) != 0)
+        {
+            bits += 16;
+            w >>>= 16;
+        }
+        if ((w >>> 8) != 0)
+        {
+            bits += 8;
+            w >>>= 8;
+        }
+        while (w != 0)
+        {
+            bits++;
+            w >>>= 1;
+        }
+
+        return bits;
+    }
+
+    public BigInteger toBigInteger()
+    {
+        int usedLen = getUsedLength();
+        if (usedLen == 0)
+        {
+            return ECConstants.ZERO;
+        }
+
+        byte[] barr = new byte[usedLen << 3];
+        int    barrI = barr.length;
+
+        for (int i = 0; i < usedLen; i++)
+        {
+            long w = m_longs[i];
+            for (int j = 0; j < 8; j++)
+            {
+                barr[--barrI] = (byte)w;
+                w >>>= 8;
+            }
+        }
+
+        return new BigInteger(1, barr);
+    }
+
+    public boolean testBit(int n)
+    {
+        return (m_longs[n >>> 6] & (1L << (n & 0x3F))) != 0;
+    }
+
+    public void setBit(int n)
+    {
+        m_longs[n >>> 6] |= 1L << (n & 0x3F);
+    }
+
+    /**
+     * Return this + other.
+     */
+    public LongArray add(LongArray other)
+    {
+        long[] a = m_longs;
+        long[] b = other.m_longs;
+
+        if (a.length < b.length)
+        {
+            a = other.m_longs;
+            b = m_longs;
+        }
+
+        long[] c = Arrays.clone(a);
+
+        for (int i = 0; i < b.length; i++)
+        {
+            c[i] ^= b[i];
+        }
+
+        return new LongArray(c);
+    }
+
+    /**
+     * Add (xor) other * z^bits into this, growing this if required.
+     */
+    public void addShiftedByBits(LongArray other, int bits)
+    {
+        int otherLen = other.getUsedLength();
+        if (otherLen == 0)
+        {
+            return;
+        }
+
+        int    words = bits >>> 6;
+        int    shift = bits & 0x3F;
+        long[] o = other.m_longs;
+
+        int minLen = otherLen + words + ((shift == 0) ? 0 : 1);
+        if (minLen > m_longs.length)
+        {
+            long[] longs = new long[minLen];
+            System.arraycopy(m_longs, 0, longs, 0, m_longs.length);
+            m_longs = longs;
+        }
+
+        if (shift == 0)
+        {
+            for (int i = 0; i < otherLen; i++)
+            {
+                m_longs[words + i] ^= o[i];
+            }
+        }
+        else
+        {
+            int  shiftInv = 64 - shift;
+            long prev = 0;
+
+            for (int i = 0; i < otherLen; i++)
+            {
+                long next = o[i];
+                m_longs[words + i] ^= (next << shift) | prev;
+                prev = next >>> shiftInv;
+            }
+            m_longs[words + otherLen] ^= prev;
+        }
+    }
+
+    /**
+     * Return this * other mod f(z), where f(z) = z^m + z^ks[ks.length - 1] + ... + z^ks[0] + 1.
+     */
+    public LongArray modMultiply(LongArray other, int m, int[] ks)
+    {
+        int aLen = getUsedLength();
+        int bLen = other.getUsedLength();
+
+        if (aLen == 0 || bLen == 0)
+        {
+            return new LongArray((m + 63) >>> 6);
+        }
+
+        long[] a = m_longs;
+        long[] b = other.m_longs;
+
+        //
+        // T[u] = u(z) * b(z) for each 4 bit polynomial u, tLen words apiece
+        //
+        int    tLen = bLen + 1;
+        long[] T = new long[16 * tLen];
+
+        System.arraycopy(b, 0, T, tLen, bLen);
+        for (int u = 2; u < 16; u++)
+        {
+            int uOff = u * tLen;
+
+            if ((u & 1) == 0)
+            {
+                shiftLeft(T, (u >>> 1) * tLen, T, uOff, tLen, 1);
+            }
+            else
+            {
+                int vOff = (u - 1) * tLen;
+                for (int i = 0; i < tLen; i++)
+                {
+                    T[uOff + i] = T[vOff + i] ^ T[tLen + i];
+                }
+            }
+        }
+
+        long[] c = new long[aLen + bLen];
+
+        for (int k = 60; k >= 0; k -= 4)
+        {
+            for (int j = 0; j < aLen; j++)
+            {
+                int u = (int)(a[j] >>> k) & 0xF;
+
+                if (u != 0)
+                {
+                    int uOff = u * tLen;
+                    int len = Math.min(tLen, c.length - j);
+                    for (int i = 0; i < len; i++)
+                    {
+                        c[j + i] ^= T[uOff + i];
+                    }
+                }
+            }
+
+            if (k > 0)
+            {
+                shiftLeft(c, 0, c, 0, c.length, 4);
+            }
+        }
+
+        return new LongArray(reduce(c, m, ks));
+    }
+
+    /**
+     * Return this^2 mod f(z), where f(z) = z^m + z^ks[ks.length - 1] + ... + z^ks[0] + 1.
+     */
+    public LongArray modSquare(int m, int[] ks)
+    {
+        int usedLen = getUsedLength();
+        if (usedLen == 0)
+        {
+            return new LongArray((m + 63) >>> 6);
+        }
+
+        long[] c = new long[usedLen << 1];
+
+        for (int i = 0; i < usedLen; i++)
+        {
+            long w = m_longs[i];
+
+            c[2 * i] = interleave((int)w);
+            c[2 * i + 1] = interleave((int)(w >>> 32));
+        }
+
+        return new LongArray(reduce(c, m, ks));
+    }
+
+    private static long interleave(int x)
+    {
+        return (INTERLEAVE_TABLE[x & 0xFF] & 0xFFFFL)
+            | ((INTERLEAVE_TABLE[(x >>> 8) & 0xFF] & 0xFFFFL) << 16)
+            | ((INTERLEAVE_TABLE[(x >>> 16) & 0xFF] & 0xFFFFL) << 32)
+            | ((INTERLEAVE_TABLE[x >>> 24] & 0xFFFFL) << 48);
+    }
+
+    /**
+     * Return this^-1 mod f(z), using the extended Euclidean algorithm.
+     */
+    public LongArray modInverse(int m, int[] ks)
+    {
+        // u(z) := a(z)
+        LongArray uz = (LongArray)this.clone();
+
+        // v(z) := f(z)
+        LongArray vz = new LongArray((m + 64) >>> 6);
+        vz.setBit(m);
+        vz.setBit(0);
+        for (int i = 0; i < ks.length; i++)
+        {
+            vz.setBit(ks[i]);
+        }
+
+        // g1(z) := 1, g2(z) := 0
+        LongArray g1z = new LongArray((m + 63) >>> 6);
+        g1z.setBit(0);
+        LongArray g2z = new LongArray((m + 63) >>> 6);
+
+        int uzDegree = uz.bitLength();
+        int vzDegree = vz.bitLength();
+
+        // while u != 0
+        while (uzDegree != 0)
+        {
+            // j := deg(u(z)) - deg(v(z))
+            int j = uzDegree - vzDegree;
+
+            // If j < 0 then: u(z) <-> v(z), g1(z) <-> g2(z), j := -j
+            if (j < 0)
+            {
+                LongArray tmp = uz;
+                uz = vz;
+                vz = tmp;
+
+                tmp = g1z;
+                g1z = g2z;
+                g2z = tmp;
+
+                int tmpDegree = uzDegree;
+                uzDegree = vzDegree;
+                vzDegree = tmpDegree;
+
+                j = -j;
+            }
+
+            // u(z) := u(z) + z^j * v(z)
+            // Note, that no reduction modulo f(z) is required, because
+            // deg(u(z) + z^j * v(z)) <= deg(u(z))
+            uz.addShiftedByBits(vz, j);
+            uzDegree = uz.bitLength();
+
+            // g1(z) := g1(z) + z^j * g2(z)
+            g1z.addShiftedByBits(g2z, j);
+        }
+
+        return g2z;
+    }
+
+    /*
+     * Reduce the polynomial in c modulo f(z) = z^m + z^ks[ks.length - 1] + ... + z^ks[0] + 1,
+     * returning the (m + 63) / 64 words of the result.
+     */
+    private static long[] reduce(long[] c, int m, int[] ks)
+    {
+        int kMax = ks[ks.length - 1];
+
+        if (kMax + 64 <= m)
+        {
+            reduceWords(c, m, ks);
+        }
+        else
+        {
+            reduceBits(c, m, ks);
+        }
+
+        int    len = (m + 63) >>> 6;
+        long[] result = new long[len];
+
+        System.arraycopy(c, 0, result, 0, Math.min(len, c.length));
+
+        return result;
+    }
+
+    /*
+     * Fold each word above z^m back into the lower words: z^n = z^(n - m) * (z^ks... + 1).
+     * As the terms of f(z) other than z^m are at least 64 bits below it, a word never
+     * lands back on itself.
+     */
+    private static void reduceWords(long[] c, int m, int[] ks)
+    {
+        int mWord = m >>> 6;
+        int mBits = m & 0x3F;
+
+        if (mWord >= c.length)
+        {
+            return;
+        }
+
+        for (int i = c.length - 1; i > mWord; i--)
+        {
+            long w = c[i];
+
+            if (w != 0)
+            {
+                int n = (i << 6) - m;
+
+                c[i] = 0;
+                addWordAt(c, n, w);
+                for (int j = 0; j < ks.length; j++)
+                {
+                    addWordAt(c, n + ks[j], w);
+                }
+            }
+        }
+
+        long w = c[mWord] >>> mBits;
+
+        if (w != 0)
+        {
+            c[mWord] ^= w << mBits;
+            addWordAt(c, 0, w);
+            for (int j = 0; j < ks.length; j++)
+            {
+                addWordAt(c, ks[j], w);
+            }
+        }
+    }
+
+    private static void addWordAt(long[] c, int bitPos, long w)
+    {
+        int wordPos = bitPos >>> 6;
+        int shift = bitPos & 0x3F;
+
+        c[wordPos] ^= w << shift;
+        if (shift != 0)
+        {
+            c[wordPos + 1] ^= w >>> (64 - shift);
+        }
+    }
+
+    /*
+     * Bit at a time reduction, for reduction polynomials with a middle term close to z^m.
+     */
+    private static void reduceBits(long[] c, int m, int[] ks)
+    {
+        for (int i = (c.length << 6) - 1; i >= m; i--)
+        {
+            if ((c[i >>> 6] & (1L << (i & 0x3F))) != 0)
+            {
+                int bit = i - m;
+
+                flipBit(c, i);
+                flipBit(c, bit);
+                for (int j = 0; j < ks.length; j++)
+                {
+                    flipBit(c, bit + ks[j]);
+                }
+            }
+        }
+    }
+
+    private static void flipBit(long[] c, int n)
+    {
+        c[n >>> 6] ^= 1L << (n & 0x3F);
+    }
+
+    /*
+     * Shift len words from x[xOff] left by bits (0 < bits < 64) into z[zOff], dropping
+     * the bits shifted out of the top word. x and z may overlap if zOff == xOff.
+     */
+    private static void shiftLeft(long[] x, int xOff, long[] z, int zOff, int len, int bits)
+    {
+        int bitsInv = 64 - bits;
+
+        for (int i = len - 1; i > 0; i--)
+        {
+            z[zOff + i] = (x[xOff + i] << bits) | (x[xOff + i - 1] >>> bitsInv);
+        }
+        z[zOff] = x[xOff] << bits;
+    }
+
+    public boolean equals(Object o)
+    {
+        if (!(o instanceof LongArray))
+        {
+            return false;
+        }
+        LongArray other = (LongArray)o;
+        int usedLen = getUsedLength();
+        if (other.getUsedLength() != usedLen)
+        {
+            return false;
+        }
+        for (int i = 0; i < usedLen; i++)
+        {
+            if (m_longs[i] != other.m_longs[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int hashCode()
+    {
+        int usedLen = getUsedLength();
+        int hash = 1;
+        for (int i = 0; i < usedLen; i++)
+        {
+            long w = m_longs[i];
+            hash = hash * 31 + (int)w;
+            hash = hash * 31 + (int)(w >>> 32);
+        }
+        return hash;
+    }
+
+    public Object clone()
+    {
+        return new LongArray(Arrays.clone(m_longs));
+    }
+}
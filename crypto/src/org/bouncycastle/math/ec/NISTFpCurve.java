@@ -0,0 +1,32 @@
+package org.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+
+/**
+ * An elliptic curve over one of the NIST prime fields, with field elements using the
+ * fixed width arithmetic of {@link NISTPrimeField} in place of BigInteger.
+ */
+public class NISTFpCurve
+    extends ECCurve.Fp
+{
+    private NISTPrimeField field;  // can't be final - JDK 1.1
+
+    public NISTFpCurve(NISTPrimeField field, BigInteger a, BigInteger b)
+    {
+        super(field.getP());
+
+        this.field = field;
+        this.a = fromBigInteger(a);
+        this.b = fromBigInteger(b);
+    }
+
+    public NISTPrimeField getField()
+    {
+        return field;
+    }
+
+    public ECFieldElement fromBigInteger(BigInteger x)
+    {
+        return new NISTFpFieldElement(field, x);
+    }
+}
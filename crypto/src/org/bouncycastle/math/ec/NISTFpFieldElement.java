@@ -0,0 +1,154 @@
+package org.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+
+/**
+ * An element of one of the NIST prime fields, held as a fixed width array of words
+ * rather than a BigInteger. Arithmetic with elements of the same field avoids BigInteger
+ * altogether, other elements of the field are converted as required.
+ */
+public class NISTFpFieldElement
+    extends ECFieldElement.Fp
+{
+    private NISTPrimeField field;  // can't be final - JDK 1.1
+    private int[]          ints;  // can't be final - JDK 1.1
+
+    public NISTFpFieldElement(NISTPrimeField field, BigInteger x)
+    {
+        this(field, field.fromBigInteger(x));
+
+        this.x = x;
+    }
+
+    NISTFpFieldElement(NISTPrimeField field, int[] ints)
+    {
+        super(field.getP());
+
+        this.field = field;
+        this.ints = ints;
+    }
+
+    public NISTPrimeField getField()
+    {
+        return field;
+    }
+
+    public BigInteger toBigInteger()
+    {
+        // benign race - any thread will calculate the same value.
+        if (x == null)
+        {
+            x = field.toBigInteger(ints);
+        }
+
+        return x;
+    }
+
+    public int getFieldSize()
+    {
+        return field.getFieldSize();
+    }
+
+    public boolean isZero()
+    {
+        return field.isZero(ints);
+    }
+
+    public ECFieldElement add(ECFieldElement b)
+    {
+        int[] z = field.create();
+        field.add(ints, toInts(b), z);
+        return new NISTFpFieldElement(field, z);
+    }
+
+    public ECFieldElement subtract(ECFieldElement b)
+    {
+        int[] z = field.create();
+        field.subtract(ints, toInts(b), z);
+        return new NISTFpFieldElement(field, z);
+    }
+
+    public ECFieldElement multiply(ECFieldElement b)
+    {
+        // the product is reduced in place, the result keeping the double width array
+        int[] zz = field.createScratch();
+        field.multiply(ints, toInts(b), zz, zz);
+        return new NISTFpFieldElement(field, zz);
+    }
+
+    public ECFieldElement divide(ECFieldElement b)
+    {
+        int[] bInv = field.create();
+        field.invert(toInts(b), bInv);
+
+        int[] zz = field.createScratch();
+        field.multiply(ints, bInv, zz, zz);
+        return new NISTFpFieldElement(field, zz);
+    }
+
+    public ECFieldElement negate()
+    {
+        int[] z = field.create();
+        field.negate(ints, z);
+        return new NISTFpFieldElement(field, z);
+    }
+
+    public ECFieldElement square()
+    {
+        int[] zz = field.createScratch();
+        field.square(ints, zz, zz);
+        return new NISTFpFieldElement(field, zz);
+    }
+
+    public ECFieldElement invert()
+    {
+        int[] z = field.create();
+        field.invert(ints, z);
+        return new NISTFpFieldElement(field, z);
+    }
+
+    /**
+     * return a sqrt root - the routine verifies that the calculation
+     * returns the right value - if none exists it returns null.
+     */
+    public ECFieldElement sqrt()
+    {
+        int[] z = field.create();
+        field.sqrt(ints, z);
+        NISTFpFieldElement root = new NISTFpFieldElement(field, z);
+
+        return root.square().equals(this) ? root : null;
+    }
+
+    public boolean equals(Object other)
+    {
+        if (other == this)
+        {
+            return true;
+        }
+
+        if (other instanceof NISTFpFieldElement)
+        {
+            NISTFpFieldElement o = (NISTFpFieldElement)other;
+
+            return field == o.field && field.areEqual(ints, o.ints);
+        }
+
+        return super.equals(other);
+    }
+
+    int[] getInts()
+    {
+        return ints;
+    }
+
+    private int[] toInts(ECFieldElement b)
+    {
+        if (b instanceof NISTFpFieldElement && ((NISTFpFieldElement)b).field == field)
+        {
+            return ((NISTFpFieldElement)b).ints;
+        }
+
+        return field.fromBigInteger(b.toBigInteger());
+    }
+}
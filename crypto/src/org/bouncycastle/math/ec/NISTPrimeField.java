@@ -0,0 +1,603 @@
+package org.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+
+/**
+ * Fixed width arithmetic for the prime fields of the NIST curves P-256, P-384 and P-521
+ * (FIPS 186-3 D.1.2). Field elements are held as little-endian arrays of 32 bit words and
+ * products are reduced using the special form of each prime (Solinas reduction, FIPS 186-3 D.2)
+ * rather than a general division.
+ * <p>
+ * The arithmetic methods write their result to a caller supplied array and take a scratch buffer
+ * where one is required, so a calculation can be carried out without allocation. Arrays may be
+ * longer than getWordCount() words, only the low words are used.
+ */
+public abstract class NISTPrimeField
+{
+    private static final long M = 0xFFFFFFFFL;
+
+    /**
+     * The field for P-256, p = 2^256 - 2^224 + 2^192 + 2^96 - 1.
+     */
+    public static final NISTPrimeField P256 = new P256Field();
+
+    /**
+     * The field for P-384, p = 2^384 - 2^128 - 2^96 + 2^32 - 1.
+     */
+    public static final NISTPrimeField P384 = new P384Field();
+
+    /**
+     * The field for P-521, p = 2^521 - 1.
+     */
+    public static final NISTPrimeField P521 = new P521Field();
+
+    private BigInteger p;  // can't be final - JDK 1.1
+    private int[]      P;  // can't be final - JDK 1.1
+    private int        size;  // can't be final - JDK 1.1
+    private int[]      invertExp;  // can't be final - JDK 1.1
+    private int[]      sqrtExp;  // can't be final - JDK 1.1
+
+    NISTPrimeField(BigInteger p)
+    {
+        this.p = p;
+        this.size = (p.bitLength() + 31) / 32;
+        this.P = fromBigInteger(p, size);
+        this.invertExp = fromBigInteger(p.subtract(ECConstants.TWO), size);
+        this.sqrtExp = fromBigInteger(p.shiftRight(2).add(ECConstants.ONE), size);
+    }
+
+    /**
+     * Return the field matching the passed in prime, or null if the prime is not one of
+     * the NIST primes supported.
+     *
+     * @param p the field prime.
+     * @return the matching field, null otherwise.
+     */
+    public static NISTPrimeField getInstance(BigInteger p)
+    {
+        if (P256.p.equals(p))
+        {
+            return P256;
+        }
+        if (P384.p.equals(p))
+        {
+            return P384;
+        }
+        if (P521.p.equals(p))
+        {
+            return P521;
+        }
+
+        return null;
+    }
+
+    public BigInteger getP()
+    {
+        return p;
+    }
+
+    public int getFieldSize()
+    {
+        return p.bitLength();
+    }
+
+    /**
+     * Return the number of 32 bit words used to hold a field element.
+     */
+    public int getWordCount()
+    {
+        return size;
+    }
+
+    int[] create()
+    {
+        return new int[size];
+    }
+
+    int[] createScratch()
+    {
+        return new int[2 * size];
+    }
+
+    int[] fromBigInteger(BigInteger x)
+    {
+        if (x.signum() < 0 || x.compareTo(p) >= 0)
+        {
+            throw new IllegalArgumentException("x value invalid for field element");
+        }
+
+        return fromBigInteger(x, size);
+    }
+
+    private static int[] fromBigInteger(BigInteger x, int size)
+    {
+        int[]  z = new int[size];
+        byte[] bytes = x.toByteArray();
+        int    bytePos = bytes.length;
+
+        for (int i = 0; i < size && bytePos > 0; i++)
+        {
+            int word = 0;
+            for (int j = 0; j < 32 && bytePos > 0; j += 8)
+            {
+                word |= (bytes[--bytePos] & 0xff) << j;
+            }
+            z[i] = word;
+        }
+
+        return z;
+    }
+
+    BigInteger toBigInteger(int[] x)
+    {
+        byte[] bytes = new byte[size * 4];
+
+        for (int i = 0; i < size; i++)
+        {
+            int word = x[i];
+            int pos = bytes.length - 4 * i;
+
+            bytes[pos - 1] = (byte)word;
+            bytes[pos - 2] = (byte)(word >>> 8);
+            bytes[pos - 3] = (byte)(word >>> 16);
+            bytes[pos - 4] = (byte)(word >>> 24);
+        }
+
+        return new BigInteger(1, bytes);
+    }
+
+    boolean isZero(int[] x)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (x[i] != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean areEqual(int[] x, int[] y)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (x[i] != y[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * z = (x + y) mod p
+     */
+    void add(int[] x, int[] y, int[] z)
+    {
+        long c = 0;
+        for (int i = 0; i < size; i++)
+        {
+            c += (x[i] & M) + (y[i] & M);
+            z[i] = (int)c;
+            c >>>= 32;
+        }
+
+        if (c != 0 || !lessThanP(z))
+        {
+            subtractP(z);
+        }
+    }
+
+    /**
+     * z = (x - y) mod p
+     */
+    void subtract(int[] x, int[] y, int[] z)
+    {
+        long c = 0;
+        for (int i = 0; i < size; i++)
+        {
+            c += (x[i] & M) - (y[i] & M);
+            z[i] = (int)c;
+            c >>= 32;
+        }
+
+        if (c != 0)
+        {
+            addP(z);
+        }
+    }
+
+    /**
+     * z = 2x mod p
+     */
+    void twice(int[] x, int[] z)
+    {
+        add(x, x, z);
+    }
+
+    /**
+     * z = -x mod p
+     */
+    void negate(int[] x, int[] z)
+    {
+        if (isZero(x))
+        {
+            for (int i = 0; i < size; i++)
+            {
+                z[i] = 0;
+            }
+            return;
+        }
+
+        long c = 0;
+        for (int i = 0; i < size; i++)
+        {
+            c += (P[i] & M) - (x[i] & M);
+            z[i] = (int)c;
+            c >>= 32;
+        }
+    }
+
+    /**
+     * z = (x * y) mod p, tt must be 2 * getWordCount() words long. The product is reduced in
+     * place, so z may be tt, but neither may be x or y.
+     */
+    void multiply(int[] x, int[] y, int[] z, int[] tt)
+    {
+        for (int i = 0; i < tt.length; i++)
+        {
+            tt[i] = 0;
+        }
+
+        for (int i = 0; i < size; i++)
+        {
+            long xi = x[i] & M;
+            long c = 0;
+
+            for (int j = 0; j < size; j++)
+            {
+                c += xi * (y[j] & M) + (tt[i + j] & M);
+                tt[i + j] = (int)c;
+                c >>>= 32;
+            }
+
+            tt[i + size] = (int)c;
+        }
+
+        reduce(tt, z);
+    }
+
+    /**
+     * z = x^2 mod p, tt must be 2 * getWordCount() words long. As for multiply(), z may
+     * be tt, but tt may not be x.
+     */
+    void square(int[] x, int[] z, int[] tt)
+    {
+        for (int i = 0; i < tt.length; i++)
+        {
+            tt[i] = 0;
+        }
+
+        // the cross products, each only once
+        for (int i = 0; i < size - 1; i++)
+        {
+            long xi = x[i] & M;
+            long c = 0;
+
+            for (int j = i + 1; j < size; j++)
+            {
+                c += xi * (x[j] & M) + (tt[i + j] & M);
+                tt[i + j] = (int)c;
+                c >>>= 32;
+            }
+
+            tt[i + size] = (int)c;
+        }
+
+        // double them
+        int carry = 0;
+        for (int i = 0; i < tt.length; i++)
+        {
+            int t = tt[i];
+            tt[i] = (t << 1) | carry;
+            carry = t >>> 31;
+        }
+
+        // and add the squares along the diagonal
+        long c = 0;
+        for (int i = 0; i < size; i++)
+        {
+            long xi = x[i] & M;
+            long sq = xi * xi;
+
+            c += (tt[2 * i] & M) + (sq & M);
+            tt[2 * i] = (int)c;
+            c >>>= 32;
+            c += (tt[2 * i + 1] & M) + (sq >>> 32);
+            tt[2 * i + 1] = (int)c;
+            c >>>= 32;
+        }
+
+        reduce(tt, z);
+    }
+
+    /**
+     * z = x^-1 mod p, calculated as x^(p - 2) (Fermat), z may not be x.
+     */
+    void invert(int[] x, int[] z)
+    {
+        if (isZero(x))
+        {
+            throw new ArithmeticException("zero has no inverse");
+        }
+
+        exponentiate(x, invertExp, z);
+    }
+
+    /**
+     * z = x^((p + 1) / 4) mod p, which is a square root of x if x has one as all the NIST
+     * primes are 3 mod 4. z may not be x.
+     */
+    void sqrt(int[] x, int[] z)
+    {
+        exponentiate(x, sqrtExp, z);
+    }
+
+    /**
+     * z = x^e mod p, e non-zero, using a fixed window of 4 bits. z may not be x.
+     */
+    private void exponentiate(int[] x, int[] e, int[] z)
+    {
+        int[]   tt = createScratch();
+        int[][] table = new int[16][];
+
+        table[1] = x;
+        for (int i = 2; i < 16; i++)
+        {
+            table[i] = create();
+            multiply(table[i - 1], x, table[i], tt);
+        }
+
+        boolean started = false;
+        for (int i = 8 * size - 1; i >= 0; i--)
+        {
+            int n = (e[i >>> 3] >>> ((i & 7) << 2)) & 0xF;
+
+            if (started)
+            {
+                for (int j = 0; j < 4; j++)
+                {
+                    square(z, z, tt);
+                }
+
+                if (n != 0)
+                {
+                    multiply(z, table[n], z, tt);
+                }
+            }
+            else if (n != 0)
+            {
+                System.arraycopy(table[n], 0, z, 0, size);
+                started = true;
+            }
+        }
+    }
+
+    /**
+     * Reduce the double width value tt, writing the result to z.
+     */
+    abstract void reduce(int[] tt, int[] z);
+
+    /**
+     * Bring a reduced value and its signed overflow word c back into the range [0, p).
+     */
+    void normalise(int[] z, long c)
+    {
+        while (c > 0)
+        {
+            c -= subtractP(z);
+        }
+
+        while (c < 0)
+        {
+            c += addP(z);
+        }
+
+        if (!lessThanP(z))
+        {
+            subtractP(z);
+        }
+    }
+
+    private boolean lessThanP(int[] z)
+    {
+        for (int i = size - 1; i >= 0; i--)
+        {
+            int zi = z[i] ^ Integer.MIN_VALUE;
+            int pi = P[i] ^ Integer.MIN_VALUE;
+
+            if (zi < pi)
+            {
+                return true;
+            }
+            if (zi > pi)
+            {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * z -= p, returning the borrow.
+     */
+    private int subtractP(int[] z)
+    {
+        long c = 0;
+        for (int i = 0; i < size; i++)
+        {
+            c += (z[i] & M) - (P[i] & M);
+            z[i] = (int)c;
+            c >>= 32;
+        }
+        return (int)-c;
+    }
+
+    /**
+     * z += p, returning the carry.
+     */
+    private int addP(int[] z)
+    {
+        long c = 0;
+        for (int i = 0; i < size; i++)
+        {
+            c += (z[i] & M) + (P[i] & M);
+            z[i] = (int)c;
+            c >>>= 32;
+        }
+        return (int)c;
+    }
+
+    private static class P256Field
+        extends NISTPrimeField
+    {
+        P256Field()
+        {
+            super(new BigInteger("FFFFFFFF00000001000000000000000000000000FFFFFFFFFFFFFFFFFFFFFFFF", 16));
+        }
+
+        // FIPS 186-3 D.2.3
+        void reduce(int[] tt, int[] z)
+        {
+            long a8 = tt[8] & M, a9 = tt[9] & M, a10 = tt[10] & M, a11 = tt[11] & M;
+            long a12 = tt[12] & M, a13 = tt[13] & M, a14 = tt[14] & M, a15 = tt[15] & M;
+
+            long c = 0;
+
+            c += (tt[0] & M) + a8 + a9 - a11 - a12 - a13 - a14;
+            z[0] = (int)c;
+            c >>= 32;
+            c += (tt[1] & M) + a9 + a10 - a12 - a13 - a14 - a15;
+            z[1] = (int)c;
+            c >>= 32;
+            c += (tt[2] & M) + a10 + a11 - a13 - a14 - a15;
+            z[2] = (int)c;
+            c >>= 32;
+            c += (tt[3] & M) + 2 * (a11 + a12) + a13 - a15 - a8 - a9;
+            z[3] = (int)c;
+            c >>= 32;
+            c += (tt[4] & M) + 2 * (a12 + a13) + a14 - a9 - a10;
+            z[4] = (int)c;
+            c >>= 32;
+            c += (tt[5] & M) + 2 * (a13 + a14) + a15 - a10 - a11;
+            z[5] = (int)c;
+            c >>= 32;
+            c += (tt[6] & M) + 3 * a14 + 2 * a15 + a13 - a8 - a9;
+            z[6] = (int)c;
+            c >>= 32;
+            c += (tt[7] & M) + 3 * a15 + a8 - a10 - a11 - a12 - a13;
+            z[7] = (int)c;
+            c >>= 32;
+
+            normalise(z, c);
+        }
+    }
+
+    private static class P384Field
+        extends NISTPrimeField
+    {
+        P384Field()
+        {
+            super(new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFFFF0000000000000000FFFFFFFF", 16));
+        }
+
+        // FIPS 186-3 D.2.4
+        void reduce(int[] tt, int[] z)
+        {
+            long a12 = tt[12] & M, a13 = tt[13] & M, a14 = tt[14] & M, a15 = tt[15] & M;
+            long a16 = tt[16] & M, a17 = tt[17] & M, a18 = tt[18] & M, a19 = tt[19] & M;
+            long a20 = tt[20] & M, a21 = tt[21] & M, a22 = tt[22] & M, a23 = tt[23] & M;
+
+            long c = 0;
+
+            c += (tt[0] & M) + a12 + a21 + a20 - a23;
+            z[0] = (int)c;
+            c >>= 32;
+            c += (tt[1] & M) + a13 + a22 + a23 - a12 - a20;
+            z[1] = (int)c;
+            c >>= 32;
+            c += (tt[2] & M) + a14 + a23 - a13 - a21;
+            z[2] = (int)c;
+            c >>= 32;
+            c += (tt[3] & M) + a15 + a12 + a20 + a21 - a14 - a22 - a23;
+            z[3] = (int)c;
+            c >>= 32;
+            c += (tt[4] & M) + 2 * a21 + a16 + a13 + a12 + a20 + a22 - a15 - 2 * a23;
+            z[4] = (int)c;
+            c >>= 32;
+            c += (tt[5] & M) + 2 * a22 + a17 + a14 + a13 + a21 + a23 - a16;
+            z[5] = (int)c;
+            c >>= 32;
+            c += (tt[6] & M) + 2 * a23 + a18 + a15 + a14 + a22 - a17;
+            z[6] = (int)c;
+            c >>= 32;
+            c += (tt[7] & M) + a19 + a16 + a15 + a23 - a18;
+            z[7] = (int)c;
+            c >>= 32;
+            c += (tt[8] & M) + a20 + a17 + a16 - a19;
+            z[8] = (int)c;
+            c >>= 32;
+            c += (tt[9] & M) + a21 + a18 + a17 - a20;
+            z[9] = (int)c;
+            c >>= 32;
+            c += (tt[10] & M) + a22 + a19 + a18 - a21;
+            z[10] = (int)c;
+            c >>= 32;
+            c += (tt[11] & M) + a23 + a20 + a19 - a22;
+            z[11] = (int)c;
+            c >>= 32;
+
+            normalise(z, c);
+        }
+    }
+
+    private static class P521Field
+        extends NISTPrimeField
+    {
+        P521Field()
+        {
+            super(BigInteger.valueOf(1).shiftLeft(521).subtract(BigInteger.valueOf(1)));
+        }
+
+        // 2^521 = 1 mod p, so the bits above 521 are just added back in
+        void reduce(int[] tt, int[] z)
+        {
+            long c = 0;
+
+            for (int i = 0; i < 16; i++)
+            {
+                c += (tt[i] & M) + (((tt[16 + i] >>> 9) | (tt[17 + i] << 23)) & M);
+                z[i] = (int)c;
+                c >>>= 32;
+            }
+
+            c += (tt[16] & 0x1FF) + ((tt[32] >>> 9) & M);
+            z[16] = (int)c;
+
+            // at most one extra bit above 2^521
+            int top = z[16] >>> 9;
+            z[16] &= 0x1FF;
+
+            c = top;
+            for (int i = 0; c != 0 && i < 17; i++)
+            {
+                c += z[i] & M;
+                z[i] = (int)c;
+                c >>>= 32;
+            }
+
+            normalise(z, 0);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * A bounded cache of tables precomputed for points, keyed by the curve, the affine
+ * co-ordinates of the point and an integer describing the table (a window width or a bit
+ * length), so the tables for a point can be found again when the point is created afresh.
+ * <p>
+ * A table should only be cached when its point has been seen before, so a stream of points
+ * which are only used once does not push out the points which are used over and over again.
+ * Once the cache is full the least recently used table is dropped. Access to the cache is
+ * synchronized, but tables are built outside the lock and must never be altered once stored,
+ * so they can be shared freely between threads.
+ */
+class PreCompCache
+{
+    private int       maxSize;
+    private Hashtable tables = new Hashtable();
+    private Vector    tableOrder = new Vector();
+    private Hashtable seen = new Hashtable();
+    private Vector    seenOrder = new Vector();
+
+    PreCompCache(int maxSize)
+    {
+        if (maxSize < 1)
+        {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+
+        this.maxSize = maxSize;
+    }
+
+    synchronized int size()
+    {
+        return tables.size();
+    }
+
+    synchronized void clear()
+    {
+        tables.clear();
+        tableOrder.removeAllElements();
+        seen.clear();
+        seenOrder.removeAllElements();
+    }
+
+    /**
+     * Return the table stored for key, or null if there is none.
+     */
+    synchronized Object lookup(Key key)
+    {
+        Object table = tables.get(key);
+
+        if (table != null)
+        {
+            // move to the most recently used end
+            int index = tableOrder.indexOf(key);
+
+            if (index != tableOrder.size() - 1)
+            {
+                Object stored = tableOrder.elementAt(index);
+
+                tableOrder.removeElementAt(index);
+                tableOrder.addElement(stored);
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Note a sighting of key, returning true if it had been seen before, in which case its
+     * table is worth storing.
+     */
+    synchronized boolean seenBefore(Key key)
+    {
+        if (seen.remove(key) == null)
+        {
+            // first sighting - remember the point, but not the table
+            if (seenOrder.size() >= maxSize)
+            {
+                seen.remove(seenOrder.elementAt(0));
+                seenOrder.removeElementAt(0);
+            }
+
+            seen.put(key, key);
+            seenOrder.addElement(key);
+            return false;
+        }
+
+        seenOrder.removeElement(key);
+        return true;
+    }
+
+    synchronized void store(Key key, Object table)
+    {
+        if (tables.containsKey(key))
+        {
+            return;
+        }
+
+        if (tableOrder.size() >= maxSize)
+        {
+            tables.remove(tableOrder.elementAt(0));
+            tableOrder.removeElementAt(0);
+        }
+
+        tables.put(key, table);
+        tableOrder.addElement(key);
+    }
+
+    static class Key
+    {
+        private ECCurve    curve;
+        private BigInteger x;
+        private BigInteger y;
+        private int        param;
+        private int        hashCode;
+
+        Key(ECPoint p, int param)
+        {
+            ECPoint a = p.normalize();
+
+            this.curve = p.getCurve();
+            this.x = a.getX().toBigInteger();
+            this.y = a.getY().toBigInteger();
+            this.param = param;
+            this.hashCode = x.hashCode() ^ y.hashCode() ^ param;
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        public boolean equals(Object o)
+        {
+            if (o == this)
+            {
+                return true;
+            }
+
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            Key other = (Key)o;
+
+            return param == other.param
+                && x.equals(other.x)
+                && y.equals(other.y)
+                && curve.equals(other.curve);
+        }
+    }
+}
@@ -202,7 +202,11 @@ class WNafMultiplier implements ECMultiplier
                 // The values 1, 3, 5, ..., 2^(width-1)-1 times p are
                 // computed
                 preComp[i] = twiceP.add(preComp[i - 1]);
-            }            
+            }
+
+            // Convert the new points to affine form, sharing one inversion
+            // between them, so the additions below are cheaper
+            p.getCurve().normalizeAll(preComp, preCompLen, reqPreCompLen - preCompLen);
         }
 
         // Compute the Window NAF of the desired width
@@ -0,0 +1,68 @@
+package org.bouncycastle.math.ec;
+
+/**
+ * A bounded cache of Window NAF precomputations, keyed by the curve and the affine
+ * co-ordinates of the point, so the tables for a point can be found again when the point is
+ * decoded afresh (for example, the public key in a certificate seen on every request),
+ * whether or not its encoding was compressed.
+ * <p>
+ * A table is only cached when its point has been seen before, and the least recently used
+ * table is dropped once the cache is full (see PreCompCache).
+ */
+class WNafPreCompCache
+    extends PreCompCache
+{
+    WNafPreCompCache(int maxSize)
+    {
+        super(maxSize);
+    }
+
+    /**
+     * Return the odd multiples P, 3P, 5P, ... (2^(width-1) - 1)P of p, in affine form.
+     *
+     * @param p the point the table is for.
+     * @param width the width of the Window NAF the table will be used with.
+     * @return the table.
+     */
+    ECPoint[] getPreComp(ECPoint p, int width)
+    {
+        Key key = new Key(p, width);
+        ECPoint[] preComp = (ECPoint[])lookup(key);
+
+        if (preComp == null)
+        {
+            preComp = buildPreComp(p, width, true);
+
+            if (seenBefore(key))
+            {
+                store(key, preComp);
+            }
+        }
+
+        return preComp;
+    }
+
+    /**
+     * Build the table of odd multiples of p - normalizing the entries costs an inversion,
+     * shared between all of them, but makes every later addition of them cheaper.
+     */
+    static ECPoint[] buildPreComp(ECPoint p, int width, boolean normalize)
+    {
+        ECPoint[] preComp = new ECPoint[1 << (width - 2)];
+        ECPoint   twiceP = p.twice();
+
+        preComp[0] = p;
+
+        for (int i = 1; i < preComp.length; i++)
+        {
+            preComp[i] = preComp[i - 1].add(twiceP);
+        }
+
+        if (normalize)
+        {
+            p.getCurve().normalizeAll(preComp);
+        }
+
+        return preComp;
+    }
+}
@@ -371,6 +371,19 @@ public final class Arrays
         return copy;
     }
 
+    public static long[] clone(long[] data)
+    {
+        if (data == null)
+        {
+            return null;
+        }
+        long[] copy = new long[data.length];
+
+        System.arraycopy(data, 0, copy, 0, data.length);
+
+        return copy;
+    }
+
     public static BigInteger[] clone(BigInteger[] data)
     {
         if (data == null)
@@ -0,0 +1,255 @@
+package org.bouncycastle.crypto.test;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.engines.Salsa20Engine;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.util.ByteBufferProcessor;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check ByteBufferProcessor gives the same results as the byte array API for heap,
+ * direct and read-only buffers.
+ */
+public class ByteBufferProcessorTest
+    extends SimpleTest
+{
+    private static final int HEAP = 0;
+    private static final int DIRECT = 1;
+    private static final int READ_ONLY = 2;
+
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ByteBufferProcessor";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ByteBufferProcessor processor = new ByteBufferProcessor(100);
+
+        for (int inType = HEAP; inType <= READ_ONLY; inType++)
+        {
+            for (int outType = HEAP; outType <= DIRECT; outType++)
+            {
+                digestTest(processor, inType);
+                macTest(processor, inType);
+                streamCipherTest(processor, inType, outType);
+                blockCipherTest(processor, inType, outType);
+                aeadTest(processor, inType, outType);
+            }
+        }
+
+        shortOutputTest(processor);
+
+        processor.clear();
+    }
+
+    private void digestTest(ByteBufferProcessor processor, int inType)
+    {
+        byte[] data = randomBytes(1000);
+        Digest digest = new SHA256Digest();
+        byte[] expected = new byte[digest.getDigestSize()];
+        byte[] result = new byte[digest.getDigestSize()];
+
+        digest.update(data, 0, data.length);
+        digest.doFinal(expected, 0);
+
+        ByteBuffer in = wrap(data, 13, inType);
+
+        processor.update(digest, in);
+        digest.doFinal(result, 0);
+
+        if (!areEqual(expected, result) || in.hasRemaining())
+        {
+            fail("digest update failed for input type " + inType);
+        }
+    }
+
+    private void macTest(ByteBufferProcessor processor, int inType)
+    {
+        byte[] data = randomBytes(777);
+        Mac mac = new HMac(new SHA256Digest());
+        byte[] expected = new byte[mac.getMacSize()];
+        byte[] result = new byte[mac.getMacSize()];
+
+        mac.init(new KeyParameter(randomBytes(32)));
+        mac.update(data, 0, data.length);
+        mac.doFinal(expected, 0);
+
+        processor.update(mac, wrap(data, 5, inType));
+        mac.doFinal(result, 0);
+
+        if (!areEqual(expected, result))
+        {
+            fail("mac update failed for input type " + inType);
+        }
+    }
+
+    private void streamCipherTest(ByteBufferProcessor processor, int inType, int outType)
+    {
+        byte[] data = randomBytes(1234);
+        ParametersWithIV params = new ParametersWithIV(new KeyParameter(randomBytes(32)), randomBytes(8));
+        StreamCipher cipher = new Salsa20Engine();
+        byte[] expected = new byte[data.length];
+
+        cipher.init(true, params);
+        cipher.processBytes(data, 0, data.length, expected, 0);
+
+        cipher.init(true, params);
+
+        ByteBuffer in = wrap(data, 3, inType);
+        ByteBuffer out = allocate(data.length, 7, outType);
+
+        int len = processor.processBytes(cipher, in, out);
+
+        checkOutput("stream cipher", inType, outType, expected, out, len);
+    }
+
+    private void blockCipherTest(ByteBufferProcessor processor, int inType, int outType)
+        throws InvalidCipherTextException
+    {
+        byte[] data = randomBytes(1001);
+        ParametersWithIV params = new ParametersWithIV(new KeyParameter(randomBytes(16)), randomBytes(16));
+        BufferedBlockCipher cipher = new PaddedBufferedBlockCipher(new CBCBlockCipher(new AESFastEngine()));
+
+        cipher.init(true, params);
+
+        byte[] expected = new byte[cipher.getOutputSize(data.length)];
+        int    expectedLen = cipher.processBytes(data, 0, data.length, expected, 0);
+
+        cipher.doFinal(expected, expectedLen);
+
+        cipher.init(true, params);
+
+        ByteBuffer in = wrap(data, 11, inType);
+        ByteBuffer out = allocate(cipher.getOutputSize(data.length), 2, outType);
+
+        int len = processor.processBytes(cipher, in, out);
+        len += processor.doFinal(cipher, out);
+
+        checkOutput("block cipher", inType, outType, expected, out, len);
+    }
+
+    private void aeadTest(ByteBufferProcessor processor, int inType, int outType)
+        throws InvalidCipherTextException
+    {
+        byte[] data = randomBytes(999);
+        AEADParameters params = new AEADParameters(new KeyParameter(randomBytes(16)), 128, randomBytes(12), randomBytes(20));
+        AEADBlockCipher cipher = new GCMBlockCipher(new AESFastEngine());
+
+        cipher.init(true, params);
+
+        byte[] expected = new byte[cipher.getOutputSize(data.length)];
+        int    expectedLen = cipher.processBytes(data, 0, data.length, expected, 0);
+
+        cipher.doFinal(expected, expectedLen);
+
+        cipher.init(false, params);
+
+        ByteBuffer in = wrap(expected, 0, inType);
+        ByteBuffer out = allocate(data.length, 0, outType);
+
+        int len = processor.processBytes(cipher, in, out);
+        len += processor.doFinal(cipher, out);
+
+        checkOutput("AEAD cipher", inType, outType, data, out, len);
+    }
+
+    private void shortOutputTest(ByteBufferProcessor processor)
+    {
+        StreamCipher cipher = new Salsa20Engine();
+
+        cipher.init(true, new ParametersWithIV(new KeyParameter(randomBytes(32)), randomBytes(8)));
+
+        ByteBuffer in = ByteBuffer.wrap(randomBytes(100));
+
+        try
+        {
+            processor.processBytes(cipher, in, ByteBuffer.allocateDirect(99));
+
+            fail("short output buffer not detected");
+        }
+        catch (DataLengthException e)
+        {
+            if (in.position() != 0)
+            {
+                fail("input consumed on short output buffer");
+            }
+        }
+    }
+
+    private void checkOutput(String label, int inType, int outType, byte[] expected, ByteBuffer out, int len)
+    {
+        if (len != expected.length || out.hasRemaining())
+        {
+            fail(label + " wrong output length for types " + inType + ", " + outType);
+        }
+
+        out.position(out.position() - len);
+
+        byte[] result = new byte[len];
+
+        out.get(result);
+
+        if (!areEqual(expected, result))
+        {
+            fail(label + " output mismatch for types " + inType + ", " + outType);
+        }
+    }
+
+    private byte[] randomBytes(int len)
+    {
+        byte[] bytes = new byte[len];
+
+        random.nextBytes(bytes);
+
+        return bytes;
+    }
+
+    /**
+     * return a buffer holding data at a non-zero offset into its storage, so offsets are exercised.
+     */
+    private ByteBuffer wrap(byte[] data, int offset, int type)
+    {
+        ByteBuffer buf = allocate(data.length, offset, type == DIRECT ? DIRECT : HEAP);
+
+        buf.put(data);
+        buf.position(buf.position() - data.length);
+
+        return (type == READ_ONLY) ? buf.asReadOnlyBuffer() : buf;
+    }
+
+    private ByteBuffer allocate(int len, int offset, int type)
+    {
+        ByteBuffer buf = (type == DIRECT) ? ByteBuffer.allocateDirect(offset + len) : ByteBuffer.allocate(offset + len);
+
+        buf.position(offset);
+
+        return buf.slice();
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ByteBufferProcessorTest());
+    }
+}
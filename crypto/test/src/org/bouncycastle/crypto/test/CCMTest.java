@@ -1,5 +1,6 @@
 package org.bouncycastle.crypto.test;
 
+import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.engines.AESEngine;
 import org.bouncycastle.crypto.engines.DESEngine;
@@ -80,6 +81,19 @@ public class CCMTest
         // long data test
         //
         checkVectors(4, ccm, K4, 112, N4, A4, A4, T5, C5);
+
+        //
+        // single pass tests
+        //
+        CCMBlockCipher streamCcm = new CCMBlockCipher(new AESEngine(), true);
+
+        checkStreaming(0, streamCcm, K1, 32, N1, A1, P1, T1, C1);
+        checkStreaming(1, streamCcm, K2, 48, N2, A2, P2, T2, C2);
+        checkStreaming(2, streamCcm, K3, 64, N3, A3, P3, T3, C3);
+        checkStreaming(3, streamCcm, K4, 112, N4, a4, P4, T4, C4);
+        checkStreaming(4, streamCcm, K4, 112, N4, A4, A4, T5, C5);
+
+        streamingExceptionTest(streamCcm);
         
         //
         // exception tests
@@ -169,6 +183,145 @@ public class CCMTest
         }
     }
 
+    private void checkStreaming(
+        int count,
+        CCMBlockCipher ccm,
+        byte[] k,
+        int macSize,
+        byte[] n,
+        byte[] a,
+        byte[] p,
+        byte[] t,
+        byte[] c)
+        throws InvalidCipherTextException
+    {
+        ccm.init(true, new AEADParameters(new KeyParameter(k), macSize, n, a));
+        ccm.setDataLength(p.length);
+
+        byte[] enc = new byte[ccm.getOutputSize(p.length)];
+        int len = 0;
+
+        for (int i = 0; i != p.length; i++)
+        {
+            int expected = ccm.getUpdateOutputSize(1);
+            int outLen = ccm.processByte(p[i], enc, len);
+
+            if (outLen != expected)
+            {
+                fail("single pass update output size wrong in test " + count);
+            }
+
+            len += outLen;
+        }
+
+        if (len != p.length - p.length % 16)
+        {
+            fail("single pass encryption not producing output in test " + count);
+        }
+
+        len += ccm.doFinal(enc, len);
+
+        if (len != c.length || !areEqual(c, enc))
+        {
+            fail("single pass encrypted stream fails to match in test " + count);
+        }
+
+        ccm.init(false, new AEADParameters(new KeyParameter(k), macSize, n, a));
+        ccm.setDataLength(c.length);
+
+        byte[] dec = new byte[ccm.getOutputSize(c.length)];
+
+        len = ccm.processBytes(c, 0, 7, dec, 0);
+        len += ccm.processBytes(c, 7, c.length - 7, dec, len);
+
+        if (len != (c.length - macSize / 8) - (c.length - macSize / 8) % 16)
+        {
+            fail("single pass decryption not producing output in test " + count);
+        }
+
+        len += ccm.doFinal(dec, len);
+
+        if (len != p.length || !areEqual(p, dec))
+        {
+            fail("single pass decrypted stream fails to match in test " + count);
+        }
+
+        if (!areEqual(t, ccm.getMac()))
+        {
+            fail("single pass MAC fails to match in test " + count);
+        }
+    }
+
+    private void streamingExceptionTest(CCMBlockCipher ccm)
+        throws InvalidCipherTextException
+    {
+        byte[] tmp = new byte[C2.length];
+
+        ccm.init(false, new AEADParameters(new KeyParameter(K2), 48, N2, A2));
+        ccm.setDataLength(C2.length);
+
+        byte[] c = new byte[C2.length];
+        System.arraycopy(C2, 0, c, 0, c.length);
+        c[0] ^= 1;
+
+        int len = ccm.processBytes(c, 0, c.length, tmp, 0);
+
+        try
+        {
+            ccm.doFinal(tmp, len);
+
+            fail("invalid cipher text not picked up in single pass");
+        }
+        catch (InvalidCipherTextException e)
+        {
+            // expected
+        }
+
+        ccm.init(true, new AEADParameters(new KeyParameter(K2), 48, N2, A2));
+        ccm.setDataLength(P2.length);
+
+        try
+        {
+            ccm.processBytes(P2, 0, P2.length, tmp, 0);
+            ccm.processByte((byte)0, tmp, 0);
+
+            fail("declared data length overrun not picked up");
+        }
+        catch (DataLengthException e)
+        {
+            // expected
+        }
+
+        ccm.init(true, new AEADParameters(new KeyParameter(K2), 48, N2, A2));
+        ccm.setDataLength(P2.length);
+
+        try
+        {
+            len = ccm.processBytes(P2, 0, P2.length - 1, tmp, 0);
+            ccm.doFinal(tmp, len);
+
+            fail("declared data length shortfall not picked up");
+        }
+        catch (DataLengthException e)
+        {
+            // expected
+        }
+
+        ccm.init(true, new AEADParameters(new KeyParameter(K2), 48, N2, A2));
+        ccm.processBytes(P2, 0, 1, tmp, 0);
+
+        try
+        {
+            ccm.setDataLength(P2.length);
+
+            fail("late data length not picked up");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+    }
+
     private void ivParamTest(
         int count,
         CCMBlockCipher ccm,
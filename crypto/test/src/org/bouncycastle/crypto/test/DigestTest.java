@@ -1,6 +1,7 @@
 package org.bouncycastle.crypto.test;
 
 import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.util.Memoable;
 import org.bouncycastle.util.encoders.Hex;
 import org.bouncycastle.util.test.SimpleTest;
 
@@ -65,6 +66,59 @@ public abstract class DigestTest
         {
             fail("failing second clone vector test", results[results.length - 1], new String(Hex.encode(resBuf)));
         }
+
+        if (digest instanceof Memoable)
+        {
+            memoTest(lastV, lastDigest, resBuf);
+        }
+    }
+
+    private void memoTest(byte[] lastV, byte[] lastDigest, byte[] resBuf)
+    {
+        //
+        // state saved part way through, restored into the original and a copy
+        //
+        digest.update(lastV, 0, lastV.length/2);
+
+        Memoable m = ((Memoable)digest).copy();
+        Digest md = (Digest)m.copy();
+
+        digest.update(lastV, lastV.length/2, lastV.length - lastV.length/2);
+        digest.doFinal(resBuf, 0);
+
+        if (!areEqual(lastDigest, resBuf))
+        {
+            fail("failing memo vector test", results[results.length - 1], new String(Hex.encode(resBuf)));
+        }
+
+        ((Memoable)digest).reset(m);
+
+        digest.update(lastV, lastV.length/2, lastV.length - lastV.length/2);
+        digest.doFinal(resBuf, 0);
+
+        if (!areEqual(lastDigest, resBuf))
+        {
+            fail("failing memo reset vector test", results[results.length - 1], new String(Hex.encode(resBuf)));
+        }
+
+        md.update(lastV, lastV.length/2, lastV.length - lastV.length/2);
+        md.doFinal(resBuf, 0);
+
+        if (!areEqual(lastDigest, resBuf))
+        {
+            fail("failing memo copy vector test", results[results.length - 1], new String(Hex.encode(resBuf)));
+        }
+
+        // the saved state must be unaffected by the digest being reset from it and reused
+        ((Memoable)digest).reset(m);
+
+        digest.update(lastV, lastV.length/2, lastV.length - lastV.length/2);
+        digest.doFinal(resBuf, 0);
+
+        if (!areEqual(lastDigest, resBuf))
+        {
+            fail("failing second memo reset vector test", results[results.length - 1], new String(Hex.encode(resBuf)));
+        }
     }
 
     private byte[] toByteArray(String input)
@@ -0,0 +1,213 @@
+package org.bouncycastle.crypto.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import org.bouncycastle.asn1.nist.NISTNamedCurves;
+import org.bouncycastle.asn1.sec.SECNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSABatchVerifier;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check the batch verifier gives the same results as verifying each signature on its own.
+ */
+public class ECDSABatchVerifierTest
+    extends SimpleTest
+{
+    protected SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ECDSABatchVerifier";
+    }
+
+    protected ECDSABatchVerifier createVerifier()
+    {
+        return new ECDSABatchVerifier(random);
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ECDomainParameters p256 = getParameters(NISTNamedCurves.getByName("P-256"));
+        ECDomainParameters k256 = getParameters(SECNamedCurves.getByName("secp256k1"));
+        ECDomainParameters p192 = getParameters(NISTNamedCurves.getByName("P-192"));
+
+        AsymmetricCipherKeyPair[] p256Keys = generateKeys(p256, 3);
+        AsymmetricCipherKeyPair[] k256Keys = generateKeys(k256, 2);
+        AsymmetricCipherKeyPair[] p192Keys = generateKeys(p192, 1);
+
+        ECDSABatchVerifier verifier = createVerifier();
+
+        //
+        // all good
+        //
+        for (int i = 0; i != 20; i++)
+        {
+            addSignature(verifier, p256Keys[i % p256Keys.length], i, true, false);
+        }
+        for (int i = 0; i != 5; i++)
+        {
+            addSignature(verifier, k256Keys[i % k256Keys.length], i, true, false);
+            addSignature(verifier, p192Keys[0], i, i % 2 == 0, false);
+        }
+
+        checkResults(verifier, new boolean[verifier.size()]);
+
+        //
+        // some bad ones in amongst the good
+        //
+        verifier.reset();
+
+        boolean[] bad = new boolean[30];
+        bad[3] = true;
+        bad[17] = true;
+        bad[22] = true;
+
+        for (int i = 0; i != bad.length; i++)
+        {
+            AsymmetricCipherKeyPair kp = (i < 20) ? p256Keys[i % p256Keys.length] : k256Keys[i % k256Keys.length];
+
+            addSignature(verifier, kp, i, i % 3 != 0, bad[i]);
+        }
+
+        checkResults(verifier, bad);
+
+        //
+        // a wrong R must not cause a good signature to be rejected - one not matching r,
+        // and one with the right x co-ordinate but the wrong y.
+        //
+        verifier.reset();
+
+        bad = new boolean[4];
+
+        byte[] message = randomMessage();
+        BigInteger[] sig = sign(p256Keys[0], message);
+        ECPublicKeyParameters pub = (ECPublicKeyParameters)p256Keys[0].getPublic();
+        ECPoint R = recoverR(pub, message, sig);
+
+        addSignature(verifier, p256Keys[1], 0, true, false);
+        verifier.add(pub, message, sig[0], sig[1], R.negate().add(p256.getG()));
+        verifier.add(pub, message, sig[0], sig[1], R.negate());  // R and -R have the same x
+        addSignature(verifier, p256Keys[2], 1, true, false);
+
+        checkResults(verifier, bad);
+
+        verifier.reset();
+
+        if (verifier.size() != 0)
+        {
+            fail("reset failed");
+        }
+
+        if (verifier.verify().length != 0)
+        {
+            fail("empty batch failed");
+        }
+    }
+
+    private ECDomainParameters getParameters(X9ECParameters x9)
+    {
+        return new ECDomainParameters(x9.getCurve(), x9.getG(), x9.getN(), x9.getH());
+    }
+
+    private AsymmetricCipherKeyPair[] generateKeys(ECDomainParameters params, int count)
+    {
+        ECKeyPairGenerator kpGen = new ECKeyPairGenerator();
+
+        kpGen.init(new ECKeyGenerationParameters(params, random));
+
+        AsymmetricCipherKeyPair[] keys = new AsymmetricCipherKeyPair[count];
+        for (int i = 0; i != count; i++)
+        {
+            keys[i] = kpGen.generateKeyPair();
+        }
+
+        return keys;
+    }
+
+    private byte[] randomMessage()
+    {
+        byte[] message = new byte[32];
+
+        random.nextBytes(message);
+
+        return message;
+    }
+
+    private BigInteger[] sign(AsymmetricCipherKeyPair kp, byte[] message)
+    {
+        ECDSASigner signer = new ECDSASigner();
+
+        signer.init(true, kp.getPrivate());
+
+        return signer.generateSignature(message);
+    }
+
+    /*
+     * R = u1 * G + u2 * Q, as the signer would have calculated it as k * G.
+     */
+    private ECPoint recoverR(ECPublicKeyParameters pub, byte[] message, BigInteger[] sig)
+    {
+        BigInteger n = pub.getParameters().getN();
+        BigInteger e = new BigInteger(1, message);
+
+        if (n.bitLength() < message.length * 8)
+        {
+            e = e.shiftRight(message.length * 8 - n.bitLength());
+        }
+
+        BigInteger c = sig[1].modInverse(n);
+
+        return ECAlgorithms.sumOfTwoMultiplies(pub.getParameters().getG(), e.multiply(c).mod(n),
+            pub.getQ(), sig[0].multiply(c).mod(n));
+    }
+
+    private void addSignature(ECDSABatchVerifier verifier, AsymmetricCipherKeyPair kp, int index, boolean withR, boolean corrupt)
+    {
+        ECPublicKeyParameters pub = (ECPublicKeyParameters)kp.getPublic();
+        byte[] message = randomMessage();
+        BigInteger[] sig = sign(kp, message);
+        ECPoint R = withR ? recoverR(pub, message, sig) : null;
+
+        if (corrupt)
+        {
+            message[index % message.length] ^= 1;
+        }
+
+        verifier.add(pub, message, sig[0], sig[1], R);
+    }
+
+    private void checkResults(ECDSABatchVerifier verifier, boolean[] bad)
+    {
+        boolean[] results = verifier.verify();
+
+        if (results.length != bad.length)
+        {
+            fail("wrong number of results");
+        }
+
+        for (int i = 0; i != results.length; i++)
+        {
+            if (results[i] == bad[i])
+            {
+                fail("signature " + i + " " + (bad[i] ? "bad signature accepted" : "good signature rejected"));
+            }
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ECDSABatchVerifierTest());
+    }
+}
@@ -651,6 +651,19 @@ public class ECTest
         {
             fail("signature fails");
         }
+
+        AsymmetricCipherKeyPair[] pairs = pGen.generateKeyPairs(5);
+
+        for (int i = 0; i != pairs.length; i++)
+        {
+            ECPoint Q = ((ECPublicKeyParameters)pairs[i].getPublic()).getQ();
+            BigInteger d = ((ECPrivateKeyParameters)pairs[i].getPrivate()).getD();
+
+            if (!Q.equals(params.getG().multiply(d)) || !Q.equals(curve.decodePoint(Q.getEncoded())))
+            {
+                fail("batch key generation public key incorrect");
+            }
+        }
     }
 
     /**
@@ -6,7 +6,10 @@ import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.engines.AESFastEngine;
 import org.bouncycastle.crypto.modes.GCMBlockCipher;
 import org.bouncycastle.crypto.modes.gcm.BasicGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.CachingGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.GCMMultiplierCache;
 import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables32kGCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.Tables64kGCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.Tables8kGCMMultiplier;
 import org.bouncycastle.crypto.params.AEADParameters;
@@ -287,6 +290,15 @@ public class GCMTest
         },
     };
 
+    private GCMMultiplierCache cache = new GCMMultiplierCache(2);
+    private GCMMultiplierCache cache32k = new GCMMultiplierCache(2)
+    {
+        protected GCMMultiplier createMultiplier()
+        {
+            return new Tables32kGCMMultiplier();
+        }
+    };
+
     public String getName()
     {
         return "GCM";
@@ -300,6 +312,7 @@ public class GCMTest
         }
 
         randomTests();
+        cacheTest();
     }    
 
     private void runTestCase(String[] testVector)
@@ -335,6 +348,9 @@ public class GCMTest
         runTestCase(new BasicGCMMultiplier(), new BasicGCMMultiplier(), parameters, testName, P, C, T);
         runTestCase(new Tables8kGCMMultiplier(), new Tables8kGCMMultiplier(), parameters, testName, P, C, T);
         runTestCase(new Tables64kGCMMultiplier(), new Tables64kGCMMultiplier(), parameters, testName, P, C, T);
+        runTestCase(new Tables32kGCMMultiplier(), new Tables32kGCMMultiplier(), parameters, testName, P, C, T);
+        runTestCase(new CachingGCMMultiplier(cache), new CachingGCMMultiplier(cache), parameters, testName, P, C, T);
+        runTestCase(new CachingGCMMultiplier(cache32k), new CachingGCMMultiplier(cache32k), parameters, testName, P, C, T);
     }
 
     private void runTestCase(
@@ -415,6 +431,84 @@ public class GCMTest
         }
     }
 
+    private void cacheTest()
+    {
+        GCMMultiplierCache c = new GCMMultiplierCache(3);
+        byte[][] keys = new byte[5][16];
+
+        for (int i = 0; i != keys.length; i++)
+        {
+            keys[i][0] = (byte)(i + 1);
+        }
+
+        GCMMultiplier m0 = c.getMultiplier(keys[0]);
+        GCMMultiplier mLru = c.getMultiplier(keys[1]);
+        c.getMultiplier(keys[2]);
+
+        if (m0 != c.getMultiplier(Hex.decode("01000000000000000000000000000000")))
+        {
+            fail("cache did not return existing multiplier");
+        }
+
+        // keys[1] is now the least recently used
+        GCMMultiplier m1 = c.getMultiplier(keys[3]);
+        if (c.size() != 3)
+        {
+            fail("cache exceeded its size: " + c.size());
+        }
+
+        if (m0 != c.getMultiplier(keys[0]) || m1 != c.getMultiplier(keys[3]))
+        {
+            fail("cache evicted wrong entry");
+        }
+
+        if (mLru == c.getMultiplier(keys[1]))
+        {
+            fail("least recently used entry not evicted");
+        }
+
+        byte[] x = Hex.decode("0388dace60b6a392f328c2b971b2fe78");
+        byte[] block = (byte[])x.clone();
+
+        mLru.multiplyH(block);
+        if (!areEqual(new byte[16], block))
+        {
+            fail("evicted tables not wiped");
+        }
+
+        // tables held by a CachingGCMMultiplier are only wiped once released
+        CachingGCMMultiplier held = new CachingGCMMultiplier(c);
+        held.init(keys[4]);
+        GCMMultiplier mHeld = c.getMultiplier(keys[4]);
+
+        GCMMultiplier reference = new Tables8kGCMMultiplier();
+        reference.init(keys[4]);
+        byte[] expected = (byte[])x.clone();
+        reference.multiplyH(expected);
+
+        c.clear();
+        if (c.size() != 0)
+        {
+            fail("cache clear failed");
+        }
+
+        block = (byte[])x.clone();
+        held.multiplyH(block);
+        if (!areEqual(expected, block))
+        {
+            fail("tables in use wiped");
+        }
+
+        held.release();
+
+        block = (byte[])x.clone();
+        mHeld.multiplyH(block);
+        if (!areEqual(new byte[16], block))
+        {
+            fail("released tables not wiped");
+        }
+    }
+
     private void randomTests()
         throws InvalidCipherTextException
     {
@@ -425,6 +519,7 @@ public class GCMTest
             randomTest(srng, new BasicGCMMultiplier()); 
             randomTest(srng, new Tables8kGCMMultiplier()); 
             randomTest(srng, new Tables64kGCMMultiplier()); 
+            randomTest(srng, new Tables32kGCMMultiplier()); 
         }
     }
 
@@ -469,6 +564,24 @@ public class GCMTest
             fail("stream contained wrong mac in randomised test");
         }
 
+        //
+        // byte at a time, checks the single block path against the four block one
+        //
+        GCMBlockCipher byteCipher = new GCMBlockCipher(new AESFastEngine(), new BasicGCMMultiplier());
+        byteCipher.init(true, parameters);
+        byte[] byteC = new byte[byteCipher.getOutputSize(P.length)];
+        len = 0;
+        for (int i = 0; i != P.length; i++)
+        {
+            len += byteCipher.processByte(P[i], byteC, len);
+        }
+        len += byteCipher.doFinal(byteC, len);
+
+        if (!areEqual(C, byteC))
+        {
+            fail("byte at a time encryption differs in randomised test");
+        }
+
         cipher.init(false, parameters);
         byte[] decP = new byte[cipher.getOutputSize(C.length)];
         len = cipher.processBytes(C, 0, C.length, decP, 0);
@@ -0,0 +1,266 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.engines.AESLightEngine;
+import org.bouncycastle.crypto.engines.CamelliaEngine;
+import org.bouncycastle.crypto.engines.CamelliaLightEngine;
+import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check the multi block paths give the same results as processing a block at a time.
+ */
+public class MultiBlockCipherTest
+    extends SimpleTest
+{
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "MultiBlockCipher";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        for (int keySize = 16; keySize <= 32; keySize += 8)
+        {
+            byte[] key = new byte[keySize];
+            random.nextBytes(key);
+
+            engineTest(new AESFastEngine(), key);
+            engineTest(new AESEngine(), key);
+            engineTest(new CamelliaEngine(), key);
+
+            // the light engines do not support multi block processing and give the reference results
+            modeTest(new AESFastEngine(), new AESLightEngine(), key);
+            modeTest(new AESEngine(), new AESLightEngine(), key);
+            modeTest(new CamelliaEngine(), new CamelliaLightEngine(), key);
+
+            inPlaceTest(new CBCBlockCipher(new AESFastEngine()), key);
+            inPlaceTest(new SICBlockCipher(new AESFastEngine()), key);
+        }
+    }
+
+    private void engineTest(MultiBlockCipher engine, byte[] key)
+    {
+        int blockSize = engine.getBlockSize();
+        byte[] in = new byte[37 * blockSize];
+        random.nextBytes(in);
+
+        for (int i = 0; i != 2; i++)
+        {
+            boolean forEncryption = (i == 0);
+
+            engine.init(forEncryption, new KeyParameter(key));
+
+            byte[] single = new byte[in.length];
+            for (int pos = 0; pos != in.length; pos += blockSize)
+            {
+                engine.processBlock(in, pos, single, pos);
+            }
+
+            byte[] multi = new byte[in.length];
+            int len = engine.processBlocks(in, 0, in.length / blockSize, multi, 0);
+
+            if (len != in.length)
+            {
+                fail(engine.getAlgorithmName() + " processBlocks returned wrong length");
+            }
+
+            if (!areEqual(single, multi))
+            {
+                fail(engine.getAlgorithmName() + " processBlocks failed, forEncryption = " + forEncryption);
+            }
+        }
+
+        try
+        {
+            engine.processBlocks(in, blockSize, in.length / blockSize, new byte[in.length], 0);
+
+            fail(engine.getAlgorithmName() + " processBlocks failed input length check");
+        }
+        catch (DataLengthException e)
+        {
+            // expected
+        }
+    }
+
+    private void inPlaceTest(MultiBlockCipher mode, byte[] key)
+    {
+        int blockSize = mode.getBlockSize();
+        byte[] iv = new byte[blockSize];
+        random.nextBytes(iv);
+
+        ParametersWithIV params = new ParametersWithIV(new KeyParameter(key), iv);
+
+        byte[] in = new byte[53 * blockSize];
+        random.nextBytes(in);
+
+        mode.init(true, params);
+
+        byte[] cipherText = new byte[in.length];
+        mode.processBlocks(in, 0, in.length / blockSize, cipherText, 0);
+
+        mode.init(false, params);
+
+        byte[] buf = new byte[in.length + blockSize];
+        System.arraycopy(cipherText, 0, buf, blockSize, cipherText.length);
+        mode.processBlocks(buf, blockSize, 10, buf, blockSize);
+        mode.processBlocks(buf, 11 * blockSize, in.length / blockSize - 10, buf, 11 * blockSize);
+
+        byte[] plainText = new byte[in.length];
+        System.arraycopy(buf, blockSize, plainText, 0, plainText.length);
+
+        if (!areEqual(in, plainText))
+        {
+            fail(mode.getAlgorithmName() + " in place processBlocks failed");
+        }
+    }
+
+    private void modeTest(BlockCipher engine, BlockCipher referenceEngine, byte[] key)
+        throws InvalidCipherTextException
+    {
+        byte[] iv = new byte[16];
+        random.nextBytes(iv);
+
+        ParametersWithIV params = new ParametersWithIV(new KeyParameter(key), iv);
+
+        for (int len = 0; len < 600; len += 1 + random.nextInt(53))
+        {
+            byte[] in = new byte[len];
+            random.nextBytes(in);
+
+            bufferedTest(new SICBlockCipher(engine), new SICBlockCipher(referenceEngine), params, in);
+            bufferedTest(new CBCBlockCipher(engine), new CBCBlockCipher(referenceEngine), params, in);
+
+            AEADParameters aeadParams = new AEADParameters(new KeyParameter(key), 128, iv, iv);
+
+            aeadTest(new GCMBlockCipher(engine), new GCMBlockCipher(referenceEngine), aeadParams, in);
+        }
+    }
+
+    private void bufferedTest(BlockCipher mode, BlockCipher reference, ParametersWithIV params, byte[] in)
+        throws InvalidCipherTextException
+    {
+        for (int i = 0; i != 2; i++)
+        {
+            boolean forEncryption = (i == 0);
+
+            BufferedBlockCipher c1 = new PaddedBufferedBlockCipher(mode);
+            BufferedBlockCipher c2 = new PaddedBufferedBlockCipher(reference);
+
+            c1.init(forEncryption, params);
+            c2.init(true, params);
+
+            byte[] data = in;
+            if (!forEncryption)
+            {
+                data = process(c2, in);
+                c2.init(false, params);
+            }
+
+            byte[] out1 = process(c1, data);
+            byte[] out2 = process(c2, data);
+
+            if (!areEqual(out1, out2))
+            {
+                fail(mode.getAlgorithmName() + " multi block output mismatch, forEncryption = " + forEncryption);
+            }
+
+            if (!forEncryption && !areEqual(in, out1))
+            {
+                fail(mode.getAlgorithmName() + " multi block decryption failed");
+            }
+        }
+    }
+
+    private void aeadTest(AEADBlockCipher mode, AEADBlockCipher reference, AEADParameters params, byte[] in)
+        throws InvalidCipherTextException
+    {
+        mode.init(true, params);
+        reference.init(true, params);
+
+        byte[] out1 = process(mode, in);
+        byte[] out2 = process(reference, in);
+
+        if (!areEqual(out1, out2))
+        {
+            fail(mode.getAlgorithmName() + " multi block output mismatch");
+        }
+
+        mode.init(false, params);
+
+        if (!areEqual(in, process(mode, out1)))
+        {
+            fail(mode.getAlgorithmName() + " multi block decryption failed");
+        }
+    }
+
+    private byte[] process(BufferedBlockCipher c, byte[] in)
+        throws InvalidCipherTextException
+    {
+        byte[] out = new byte[c.getOutputSize(in.length)];
+        int len = 0;
+        int pos = 0;
+
+        while (pos < in.length)
+        {
+            int chunk = Math.min(in.length - pos, 1 + random.nextInt(100));
+
+            len += c.processBytes(in, pos, chunk, out, len);
+            pos += chunk;
+        }
+
+        len += c.doFinal(out, len);
+
+        byte[] res = new byte[len];
+        System.arraycopy(out, 0, res, 0, len);
+
+        return res;
+    }
+
+    private byte[] process(AEADBlockCipher c, byte[] in)
+        throws InvalidCipherTextException
+    {
+        byte[] out = new byte[c.getOutputSize(in.length)];
+        int len = 0;
+        int pos = 0;
+
+        while (pos < in.length)
+        {
+            int chunk = Math.min(in.length - pos, 1 + random.nextInt(100));
+
+            len += c.processBytes(in, pos, chunk, out, len);
+            pos += chunk;
+        }
+
+        len += c.doFinal(out, len);
+
+        byte[] res = new byte[len];
+        System.arraycopy(out, 0, res, 0, len);
+
+        return res;
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new MultiBlockCipherTest());
+    }
+}
@@ -0,0 +1,343 @@
+package org.bouncycastle.crypto.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.engines.AESLightEngine;
+import org.bouncycastle.crypto.engines.DESEngine;
+import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.crypto.modes.OCBBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Test vectors from RFC 7253 on The OCB Authenticated-Encryption Algorithm
+ */
+public class OCBTest
+    extends SimpleTest
+{
+    private static final String K = "000102030405060708090A0B0C0D0E0F";
+
+    // Nonce, associated text, plain text, cipher text with tag
+    private static final String[][] TEST_VECTORS = new String[][] {
+        {
+            "BBAA99887766554433221100",
+            "",
+            "",
+            "785407BFFFC8AD9EDCC5520AC9111EE6"
+        },
+        {
+            "BBAA99887766554433221101",
+            "0001020304050607",
+            "0001020304050607",
+            "6820B3657B6F615A5725BDA0D3B4EB3A257C9AF1F8F03009"
+        },
+        {
+            "BBAA99887766554433221102",
+            "0001020304050607",
+            "",
+            "81017F8203F081277152FADE694A0A00"
+        },
+        {
+            "BBAA99887766554433221103",
+            "",
+            "0001020304050607",
+            "45DD69F8F5AAE72414054CD1F35D82760B2CD00D2F99BFA9"
+        },
+        {
+            "BBAA99887766554433221104",
+            "000102030405060708090A0B0C0D0E0F",
+            "000102030405060708090A0B0C0D0E0F",
+            "571D535B60B277188BE5147170A9A22C3AD7A4FF3835B8C5701C1CCEC8FC3358"
+        },
+        {
+            "BBAA99887766554433221105",
+            "000102030405060708090A0B0C0D0E0F",
+            "",
+            "8CF761B6902EF764462AD86498CA6B97"
+        },
+    };
+
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "OCB";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        for (int i = 0; i < TEST_VECTORS.length; ++i)
+        {
+            runTestCase(i, TEST_VECTORS[i]);
+        }
+
+        // the iterated test from RFC 7253, Appendix A
+        runLongerTestCase(128, "67E944D23256C5E0B6C61FA22FDF1EA2");
+        runLongerTestCase(96, "77A3D8E73589158D25D01209");
+        runLongerTestCase(64, "192C9B7BD90BA06A");
+
+        for (int i = 0; i != 20; i++)
+        {
+            randomTest(new AESFastEngine(), new AESFastEngine());
+            randomTest(new AESLightEngine(), new AESLightEngine());
+            randomTest(new AESEngine(), new AESEngine());
+        }
+
+        exceptionTests();
+    }
+
+    private void runTestCase(int count, String[] testVector)
+        throws InvalidCipherTextException
+    {
+        byte[] N = Hex.decode(testVector[0]);
+        byte[] A = Hex.decode(testVector[1]);
+        byte[] P = Hex.decode(testVector[2]);
+        byte[] C = Hex.decode(testVector[3]);
+
+        AEADParameters parameters = new AEADParameters(new KeyParameter(Hex.decode(K)), 128, N, A);
+
+        OCBBlockCipher encCipher = createOCBCipher();
+        OCBBlockCipher decCipher = createOCBCipher();
+
+        encCipher.init(true, parameters);
+        decCipher.init(false, parameters);
+
+        byte[] enc = process(encCipher, P);
+
+        if (!areEqual(C, enc))
+        {
+            fail("encrypt failed in test " + count, testVector[3], new String(Hex.encode(enc)));
+        }
+
+        byte[] tag = Arrays.copyOfRange(C, C.length - 16, C.length);
+
+        if (!areEqual(tag, encCipher.getMac()))
+        {
+            fail("getMac() failed in test " + count);
+        }
+
+        byte[] dec = process(decCipher, C);
+
+        if (!areEqual(P, dec))
+        {
+            fail("decrypt failed in test " + count);
+        }
+
+        if (!areEqual(tag, decCipher.getMac()))
+        {
+            fail("getMac() after decryption failed in test " + count);
+        }
+    }
+
+    private void runLongerTestCase(int macLen, String expectedOutput)
+        throws InvalidCipherTextException, IOException
+    {
+        byte[] keyBytes = new byte[16];
+        keyBytes[15] = (byte)macLen;
+
+        KeyParameter key = new KeyParameter(keyBytes);
+        OCBBlockCipher cipher = createOCBCipher();
+        ByteArrayOutputStream C = new ByteArrayOutputStream();
+
+        for (int i = 0; i < 128; ++i)
+        {
+            byte[] S = new byte[i];
+
+            C.write(processOne(cipher, key, macLen, 3 * i + 1, S, S));
+            C.write(processOne(cipher, key, macLen, 3 * i + 2, new byte[0], S));
+            C.write(processOne(cipher, key, macLen, 3 * i + 3, S, new byte[0]));
+        }
+
+        byte[] output = processOne(cipher, key, macLen, 385, C.toByteArray(), new byte[0]);
+
+        if (!areEqual(Hex.decode(expectedOutput), output))
+        {
+            fail("iterated test failed for MAC length " + macLen, expectedOutput, new String(Hex.encode(output)));
+        }
+    }
+
+    private byte[] processOne(OCBBlockCipher cipher, KeyParameter key, int macLen, int nonce, byte[] A, byte[] P)
+        throws InvalidCipherTextException
+    {
+        byte[] N = new byte[12];
+
+        N[8] = (byte)(nonce >>> 24);
+        N[9] = (byte)(nonce >>> 16);
+        N[10] = (byte)(nonce >>> 8);
+        N[11] = (byte)nonce;
+
+        // key reuse after the first message
+        cipher.init(true, new AEADParameters(nonce == 1 ? key : null, macLen, N, A));
+
+        return process(cipher, P);
+    }
+
+    private void randomTest(BlockCipher hashCipher, BlockCipher mainCipher)
+        throws InvalidCipherTextException
+    {
+        byte[] K = new byte[16 + 8 * random.nextInt(3)];
+        byte[] N = new byte[1 + random.nextInt(15)];
+        byte[] A = new byte[random.nextInt(100)];
+        byte[] P = new byte[random.nextInt(2000)];
+
+        random.nextBytes(K);
+        random.nextBytes(N);
+        random.nextBytes(A);
+        random.nextBytes(P);
+
+        int macLen = 64 + 8 * random.nextInt(9);
+        AEADParameters parameters = new AEADParameters(new KeyParameter(K), macLen, N, A);
+
+        OCBBlockCipher cipher = new OCBBlockCipher(hashCipher, mainCipher);
+
+        cipher.init(true, parameters);
+        byte[] C = process(cipher, P);
+
+        // the same data a byte at a time
+        cipher.init(true, parameters);
+
+        byte[] C2 = new byte[cipher.getOutputSize(P.length)];
+        int len = 0;
+        for (int i = 0; i != P.length; i++)
+        {
+            len += cipher.processByte(P[i], C2, len);
+        }
+        len += cipher.doFinal(C2, len);
+
+        if (len != C.length || !areEqual(C, C2))
+        {
+            fail("byte at a time encryption differs, length " + P.length);
+        }
+
+        // key reuse with a change of direction
+        cipher.init(false, new AEADParameters(null, macLen, N, A));
+
+        if (!areEqual(P, process(cipher, C)))
+        {
+            fail("decryption failed, length " + P.length);
+        }
+
+        C[random.nextInt(C.length)] ^= (byte)(1 << random.nextInt(8));
+
+        cipher.init(false, parameters);
+
+        try
+        {
+            process(cipher, C);
+
+            fail("tampered cipher text not detected");
+        }
+        catch (InvalidCipherTextException e)
+        {
+            // expected
+        }
+    }
+
+    private void exceptionTests()
+    {
+        try
+        {
+            new OCBBlockCipher(new DESEngine(), new DESEngine());
+
+            fail("incorrect block size not picked up");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            new OCBBlockCipher(new AESFastEngine(), new DESEngine());
+
+            fail("mismatched ciphers not picked up");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            BlockCipher aes = new AESFastEngine();
+
+            new OCBBlockCipher(aes, aes);
+
+            fail("shared cipher instance not picked up");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        OCBBlockCipher cipher = createOCBCipher();
+
+        try
+        {
+            cipher.init(true, new AEADParameters(new KeyParameter(Hex.decode(K)), 56, new byte[12], null));
+
+            fail("illegal MAC size not picked up");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            cipher.init(true, new AEADParameters(new KeyParameter(Hex.decode(K)), 128, new byte[16], null));
+
+            fail("illegal nonce length not picked up");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private byte[] process(AEADBlockCipher cipher, byte[] in)
+        throws InvalidCipherTextException
+    {
+        byte[] out = new byte[cipher.getOutputSize(in.length)];
+        int len = 0;
+        int pos = 0;
+
+        while (pos < in.length)
+        {
+            int chunk = Math.min(in.length - pos, 1 + random.nextInt(600));
+
+            len += cipher.processBytes(in, pos, chunk, out, len);
+            pos += chunk;
+        }
+
+        len += cipher.doFinal(out, len);
+
+        if (len != out.length)
+        {
+            fail(cipher.getAlgorithmName() + " reported wrong output length");
+        }
+
+        return out;
+    }
+
+    private OCBBlockCipher createOCBCipher()
+    {
+        return new OCBBlockCipher(new AESFastEngine(), new AESFastEngine());
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new OCBTest());
+    }
+}
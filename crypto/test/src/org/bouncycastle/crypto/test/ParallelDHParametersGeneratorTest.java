@@ -0,0 +1,78 @@
+package org.bouncycastle.crypto.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.generators.DHParametersGenerator;
+import org.bouncycastle.crypto.generators.ParallelDHParametersGenerator;
+import org.bouncycastle.crypto.params.DHParameters;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check the parameters from the parallel DH parameters generator form a safe prime group.
+ */
+public class ParallelDHParametersGeneratorTest
+    extends SimpleTest
+{
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ParallelDHParametersGenerator";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            checkParameters(new ParallelDHParametersGenerator(executor, 4), 256);
+            checkParameters(new ParallelDHParametersGenerator(executor, 4), 512);
+            checkParameters(new ParallelDHParametersGenerator(executor, 2), 20);     // too small to sieve
+            checkParameters(new DHParametersGenerator(), 256);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void checkParameters(DHParametersGenerator pGen, int size)
+    {
+        pGen.init(size, 20, random);
+
+        DHParameters params = pGen.generateParameters();
+        BigInteger p = params.getP();
+        BigInteger q = params.getQ();
+
+        if (p.bitLength() != size)
+        {
+            fail("wrong size for p: " + p.bitLength() + " for " + size);
+        }
+
+        if (!p.equals(q.shiftLeft(1).add(BigInteger.valueOf(1))))
+        {
+            fail("p is not 2q + 1");
+        }
+
+        if (!p.isProbablePrime(50) || !q.isProbablePrime(50))
+        {
+            fail("p or q not prime");
+        }
+
+        if (!params.getG().modPow(q, p).equals(BigInteger.valueOf(1)))
+        {
+            fail("g not in the subgroup of order q");
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ParallelDHParametersGeneratorTest());
+    }
+}
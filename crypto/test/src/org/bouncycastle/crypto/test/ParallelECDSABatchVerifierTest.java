@@ -0,0 +1,47 @@
+package org.bouncycastle.crypto.test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.signers.ECDSABatchVerifier;
+import org.bouncycastle.crypto.signers.ParallelECDSABatchVerifier;
+
+/**
+ * run the batch verifier tests with the individual verifications done on an executor.
+ */
+public class ParallelECDSABatchVerifierTest
+    extends ECDSABatchVerifierTest
+{
+    private ExecutorService executor;
+
+    public String getName()
+    {
+        return "ParallelECDSABatchVerifier";
+    }
+
+    protected ECDSABatchVerifier createVerifier()
+    {
+        return new ParallelECDSABatchVerifier(random, executor, 4);
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        executor = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            super.performTest();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ParallelECDSABatchVerifierTest());
+    }
+}
@@ -0,0 +1,177 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.BlockCipherProvider;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.ParallelGCMBlockCipher;
+import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.GCMMultiplierCache;
+import org.bouncycastle.crypto.modes.gcm.Tables32kGCMMultiplier;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check the parallel GCM implementation produces the same cipher text and tags as GCMBlockCipher.
+ */
+public class ParallelGCMTest
+    extends SimpleTest
+{
+    private static final BlockCipherProvider AES_PROVIDER = new BlockCipherProvider()
+    {
+        public BlockCipher get()
+        {
+            return new AESFastEngine();
+        }
+    };
+
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ParallelGCM";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        GCMMultiplierCache cache32k = new GCMMultiplierCache(4)
+        {
+            protected GCMMultiplier createMultiplier()
+            {
+                return new Tables32kGCMMultiplier();
+            }
+        };
+
+        try
+        {
+            for (int i = 0; i != 20; i++)
+            {
+                randomTest(new ParallelGCMBlockCipher(AES_PROVIDER, executor, 96), 12);
+                randomTest(new ParallelGCMBlockCipher(AES_PROVIDER, executor, 96), 1 + random.nextInt(40));
+                randomTest(new ParallelGCMBlockCipher(AES_PROVIDER, executor, 160, cache32k), 12);
+            }
+
+            tamperTest(executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void randomTest(ParallelGCMBlockCipher parallel, int ivLength)
+        throws InvalidCipherTextException
+    {
+        byte[] K = new byte[16 + 8 * random.nextInt(3)];
+        byte[] IV = new byte[ivLength];
+        byte[] A = new byte[random.nextInt(100)];
+        byte[] P = new byte[random.nextInt(4000)];
+
+        random.nextBytes(K);
+        random.nextBytes(IV);
+        random.nextBytes(A);
+        random.nextBytes(P);
+
+        int macBits = 96 + 8 * random.nextInt(5);
+        AEADParameters parameters = new AEADParameters(new KeyParameter(K), macBits, IV, A);
+
+        GCMBlockCipher reference = new GCMBlockCipher(new AESFastEngine());
+
+        reference.init(true, parameters);
+        byte[] expected = process(reference, P, false);
+
+        parallel.init(true, parameters);
+        byte[] C = process(parallel, P, true);
+
+        if (!areEqual(expected, C))
+        {
+            fail("parallel GCM encryption differs, length " + P.length + ", IV length " + ivLength);
+        }
+
+        if (!areEqual(reference.getMac(), parallel.getMac()))
+        {
+            fail("parallel GCM mac differs");
+        }
+
+        // key reuse
+        parallel.init(false, new AEADParameters(null, macBits, IV, A));
+
+        if (!areEqual(P, process(parallel, C, true)))
+        {
+            fail("parallel GCM decryption failed, length " + P.length);
+        }
+    }
+
+    private void tamperTest(ExecutorService executor)
+        throws InvalidCipherTextException
+    {
+        byte[] K = new byte[16];
+        byte[] IV = new byte[12];
+        byte[] P = new byte[2000];
+
+        random.nextBytes(K);
+        random.nextBytes(P);
+
+        AEADParameters parameters = new AEADParameters(new KeyParameter(K), 128, IV, null);
+        ParallelGCMBlockCipher parallel = new ParallelGCMBlockCipher(AES_PROVIDER, executor, 64);
+
+        parallel.init(true, parameters);
+        byte[] C = process(parallel, P, false);
+
+        C[1000] ^= 1;
+
+        parallel.init(false, parameters);
+
+        try
+        {
+            process(parallel, C, false);
+
+            fail("tampered cipher text not detected");
+        }
+        catch (InvalidCipherTextException e)
+        {
+            // expected
+        }
+    }
+
+    private byte[] process(AEADBlockCipher c, byte[] in, boolean chunked)
+        throws InvalidCipherTextException
+    {
+        byte[] out = new byte[c.getOutputSize(in.length)];
+        int len = 0;
+        int pos = 0;
+
+        while (pos < in.length)
+        {
+            int chunk = chunked ? Math.min(in.length - pos, random.nextInt(1000)) : in.length;
+
+            len += c.processBytes(in, pos, chunk, out, len);
+            pos += chunk;
+        }
+
+        len += c.doFinal(out, len);
+
+        if (len != out.length)
+        {
+            fail(c.getAlgorithmName() + " reported wrong output length");
+        }
+
+        return out;
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ParallelGCMTest());
+    }
+}
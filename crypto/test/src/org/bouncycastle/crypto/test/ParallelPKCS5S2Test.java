@@ -0,0 +1,113 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.PBEParametersGenerator;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.generators.ParallelPKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Strings;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check the parallel PBKDF2 generator against RFC 6070 and the plain generator.
+ */
+public class ParallelPKCS5S2Test
+    extends SimpleTest
+{
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ParallelPKCS5S2";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            PBEParametersGenerator generator = new ParallelPKCS5S2ParametersGenerator(new SHA1Digest(), executor);
+
+            vectorTest(generator, "password", "salt", 1, 20, "0c60c80f961f0e71f3a9b524af6012062fe037a6");
+            vectorTest(generator, "password", "salt", 2, 20, "ea6c014dc72d6f8ccd1ed92ace1d41f0d8de8957");
+            vectorTest(generator, "password", "salt", 4096, 20, "4b007901b765489abead49d926f721d065a429c1");
+            vectorTest(generator, "passwordPASSWORDpassword", "saltSALTsaltSALTsaltSALTsaltSALTsalt", 4096, 25,
+                "3d2eec4fe41c849b80c8d83662c0e44a8b291a964cf2f07038");
+
+            for (int i = 0; i != 10; i++)
+            {
+                randomTest(new PKCS5S2ParametersGenerator(new SHA256Digest()),
+                    new ParallelPKCS5S2ParametersGenerator(new SHA256Digest(), executor));
+                randomTest(new PKCS5S2ParametersGenerator(new SHA512Digest()),
+                    new ParallelPKCS5S2ParametersGenerator(new SHA512Digest(), executor));
+            }
+
+            generator.init(new byte[1], new byte[1], 0);
+
+            try
+            {
+                generator.generateDerivedParameters(320);
+
+                fail("zero iteration count not detected");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void vectorTest(PBEParametersGenerator generator, String P, String S, int c, int dkLen, String expected)
+    {
+        generator.init(Strings.toByteArray(P), Strings.toByteArray(S), c);
+
+        byte[] result = ((KeyParameter)generator.generateDerivedParameters(dkLen * 8)).getKey();
+
+        if (!areEqual(Hex.decode(expected), result))
+        {
+            fail("vector failed for c = " + c + ", dkLen = " + dkLen, expected, new String(Hex.encode(result)));
+        }
+    }
+
+    private void randomTest(PBEParametersGenerator reference, PBEParametersGenerator parallel)
+    {
+        byte[] P = new byte[random.nextInt(30)];
+        byte[] S = new byte[random.nextInt(30)];
+
+        random.nextBytes(P);
+        random.nextBytes(S);
+
+        int c = 1 + random.nextInt(200);
+        int dkLen = 1 + random.nextInt(300);
+
+        reference.init(P, S, c);
+        parallel.init(P, S, c);
+
+        byte[] expected = ((KeyParameter)reference.generateDerivedParameters(dkLen * 8)).getKey();
+        byte[] result = ((KeyParameter)parallel.generateDerivedParameters(dkLen * 8)).getKey();
+
+        if (!areEqual(expected, result))
+        {
+            fail("mismatch with PKCS5S2ParametersGenerator for c = " + c + ", dkLen = " + dkLen);
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ParallelPKCS5S2Test());
+    }
+}
@@ -0,0 +1,135 @@
+package org.bouncycastle.crypto.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.engines.RSAEngine;
+import org.bouncycastle.crypto.generators.ParallelRSAKeyPairGenerator;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.params.RSAMultiPrimeCrtKeyParameters;
+import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check the keys from the parallel RSA key pair generator are well formed and work.
+ */
+public class ParallelRSAKeyPairGeneratorTest
+    extends SimpleTest
+{
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ParallelRSAKeyPairGenerator";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            ParallelRSAKeyPairGenerator kpGen = new ParallelRSAKeyPairGenerator(executor, 4);
+
+            checkKeys(kpGen, 1024, 2);
+            checkKeys(kpGen, 1025, 2);
+            checkKeys(kpGen, 1536, 3);
+            checkKeys(kpGen, 2048, 4);
+
+            // too small to sieve
+            for (int i = 0; i != 10; i++)
+            {
+                checkKeys(kpGen, 16, 2);
+            }
+
+            checkKeys(new ParallelRSAKeyPairGenerator(executor, 1), 512, 2);
+
+            try
+            {
+                new ParallelRSAKeyPairGenerator(executor, 0);
+
+                fail("zero parallelism not detected");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void checkKeys(ParallelRSAKeyPairGenerator kpGen, int strength, int numPrimes)
+    {
+        kpGen.init(new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), random, strength, 25, numPrimes));
+
+        AsymmetricCipherKeyPair pair = kpGen.generateKeyPair();
+        RSAKeyParameters pubKey = (RSAKeyParameters)pair.getPublic();
+        RSAPrivateCrtKeyParameters privKey = (RSAPrivateCrtKeyParameters)pair.getPrivate();
+
+        if (pubKey.getModulus().bitLength() != strength)
+        {
+            fail("wrong modulus length: " + pubKey.getModulus().bitLength() + " for " + strength);
+        }
+
+        BigInteger[] primes;
+        if (numPrimes > 2)
+        {
+            BigInteger[] others = ((RSAMultiPrimeCrtKeyParameters)privKey).getOtherPrimes();
+
+            primes = new BigInteger[others.length + 2];
+            System.arraycopy(others, 0, primes, 2, others.length);
+        }
+        else
+        {
+            primes = new BigInteger[2];
+        }
+        primes[0] = privKey.getP();
+        primes[1] = privKey.getQ();
+
+        BigInteger n = BigInteger.valueOf(1);
+        for (int i = 0; i != primes.length; i++)
+        {
+            if (!primes[i].isProbablePrime(50))
+            {
+                fail("composite prime in key");
+            }
+            n = n.multiply(primes[i]);
+        }
+
+        if (!n.equals(pubKey.getModulus()))
+        {
+            fail("primes do not make up the modulus");
+        }
+
+        BigInteger m = new BigInteger(strength - 1, random);
+        RSAEngine eng = new RSAEngine();
+        byte[] data = m.toByteArray();
+
+        eng.init(true, pubKey);
+
+        byte[] enc = eng.processBlock(data, 0, data.length);
+
+        eng.init(false, privKey);
+
+        byte[] dec = eng.processBlock(enc, 0, enc.length);
+
+        if (!m.equals(new BigInteger(1, dec)))
+        {
+            fail("encryption round trip failed for " + strength);
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ParallelRSAKeyPairGeneratorTest());
+    }
+}
@@ -0,0 +1,108 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.generators.ParallelSCrypt;
+import org.bouncycastle.crypto.generators.SCrypt;
+import org.bouncycastle.util.Strings;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check the parallel scrypt engine against the scrypt paper's test vectors and SCrypt.generate().
+ */
+public class ParallelSCryptTest
+    extends SimpleTest
+{
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ParallelSCrypt";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            ParallelSCrypt scrypt = new ParallelSCrypt(executor);
+
+            vectorTest(scrypt, "", "", 16, 1, 1, 64,
+                "77d6576238657b203b19ca42c18a0497f16b4844e3074ae8dfdffa3fede21442"
+                    + "fcd0069ded0948f8326a753a0fc81f17e8d3e0fb2e0d3628cf35e20c38d18906");
+            vectorTest(scrypt, "password", "NaCl", 1024, 8, 16, 64,
+                "fdbabe1c9d3472007856e7190d01e9fe7c6ad7cbc8237830e77376634b373162"
+                    + "2eaf30d92e22a3886ff109279d9830dac727afb94a83ee6d8360cbdfa2cc0640");
+
+            // the working storage is reused, or replaced when N or r change
+            for (int i = 0; i != 10; i++)
+            {
+                randomTest(scrypt);
+            }
+
+            scrypt.wipe();
+
+            randomTest(scrypt);
+
+            scrypt.wipe();
+
+            try
+            {
+                scrypt.generate(new byte[1], new byte[1], 1000, 1, 1, 16);
+
+                fail("N not a power of 2 not detected");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void vectorTest(ParallelSCrypt scrypt, String P, String S, int N, int r, int p, int dkLen, String expected)
+    {
+        byte[] result = scrypt.generate(Strings.toByteArray(P), Strings.toByteArray(S), N, r, p, dkLen);
+
+        if (!areEqual(Hex.decode(expected), result))
+        {
+            fail("vector failed for N = " + N + ", r = " + r + ", p = " + p, expected, new String(Hex.encode(result)));
+        }
+    }
+
+    private void randomTest(ParallelSCrypt scrypt)
+    {
+        byte[] P = new byte[random.nextInt(20)];
+        byte[] S = new byte[random.nextInt(20)];
+
+        random.nextBytes(P);
+        random.nextBytes(S);
+
+        int N = 2 << random.nextInt(6);
+        int r = 1 + random.nextInt(4);
+        int p = 1 + random.nextInt(6);
+        int dkLen = 1 + random.nextInt(100);
+
+        byte[] expected = SCrypt.generate(P, S, N, r, p, dkLen);
+        byte[] result = scrypt.generate(P, S, N, r, p, dkLen);
+
+        if (!areEqual(expected, result))
+        {
+            fail("mismatch with SCrypt for N = " + N + ", r = " + r + ", p = " + p);
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ParallelSCryptTest());
+    }
+}
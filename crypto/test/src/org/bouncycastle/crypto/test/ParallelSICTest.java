@@ -0,0 +1,134 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.BlockCipherProvider;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.modes.ParallelSICBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check the parallel SIC front end against a plain SICBlockCipher.
+ */
+public class ParallelSICTest
+    extends SimpleTest
+{
+    private static final BlockCipherProvider AES_PROVIDER = new BlockCipherProvider()
+    {
+        public BlockCipher get()
+        {
+            return new AESFastEngine();
+        }
+    };
+
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ParallelSIC";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            byte[] key = new byte[16];
+            random.nextBytes(key);
+
+            // counter wraps across the whole block
+            counterTest(executor, key, Hex.decode("00000000000000000000000000000000"));
+            counterTest(executor, key, Hex.decode("00000000000000fffffffffffffffff0"));
+            counterTest(executor, key, Hex.decode("fffffffffffffffffffffffffffffffa"));
+
+            byte[] iv = new byte[16];
+            for (int i = 0; i != 10; i++)
+            {
+                random.nextBytes(iv);
+                counterTest(executor, key, iv);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void counterTest(ExecutorService executor, byte[] key, byte[] iv)
+    {
+        ParametersWithIV params = new ParametersWithIV(new KeyParameter(key), iv);
+
+        SICBlockCipher reference = new SICBlockCipher(new AESFastEngine());
+        ParallelSICBlockCipher parallel = new ParallelSICBlockCipher(AES_PROVIDER, executor, 64);
+
+        byte[] in = new byte[5000];
+        random.nextBytes(in);
+
+        reference.init(true, params);
+
+        byte[] expected = new byte[in.length];
+        for (int pos = 0; pos < in.length; pos += 16)
+        {
+            if (pos + 16 <= in.length)
+            {
+                reference.processBlock(in, pos, expected, pos);
+            }
+            else
+            {
+                byte[] block = new byte[16];
+                System.arraycopy(in, pos, block, 0, in.length - pos);
+                reference.processBlock(block, 0, block, 0);
+                System.arraycopy(block, 0, expected, pos, in.length - pos);
+            }
+        }
+
+        parallel.init(true, params);
+
+        byte[] out = new byte[in.length];
+        int pos = 0;
+
+        while (pos < in.length)
+        {
+            int len = Math.min(in.length - pos, random.nextInt(1500));
+
+            if (len == 0)
+            {
+                out[pos] = parallel.returnByte(in[pos]);
+                pos++;
+            }
+            else
+            {
+                parallel.processBytes(in, pos, len, out, pos);
+                pos += len;
+            }
+        }
+
+        if (!areEqual(expected, out))
+        {
+            fail("parallel SIC output mismatch with IV " + new String(Hex.encode(iv)));
+        }
+
+        parallel.reset();
+        parallel.processBytes(out, 0, out.length, out, 0);
+
+        if (!areEqual(in, out))
+        {
+            fail("parallel SIC reset failed");
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ParallelSICTest());
+    }
+}
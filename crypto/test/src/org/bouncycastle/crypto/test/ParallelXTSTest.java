@@ -0,0 +1,125 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.BlockCipherProvider;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.modes.ParallelXTSBlockCipher;
+import org.bouncycastle.crypto.modes.XTSBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check the parallel XTS front end against a plain XTSBlockCipher.
+ */
+public class ParallelXTSTest
+    extends SimpleTest
+{
+    private static final BlockCipherProvider AES_PROVIDER = new BlockCipherProvider()
+    {
+        public BlockCipher get()
+        {
+            return new AESFastEngine();
+        }
+    };
+
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ParallelXTS";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            for (int i = 0; i != 10; i++)
+            {
+                sectorTest(executor, 512);
+                sectorTest(executor, 16 + random.nextInt(1000));
+            }
+
+            exceptionTest(executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void sectorTest(ExecutorService executor, int sectorSize)
+    {
+        byte[] K = new byte[32];
+        random.nextBytes(K);
+
+        KeyParameter key = new KeyParameter(K);
+        long firstSector = random.nextInt() & 0xffffffffL;
+
+        // a short final sector, when the sector size allows one
+        int len = 37 * sectorSize + ((sectorSize > 32) ? 16 + random.nextInt(sectorSize - 16) : 0);
+
+        byte[] in = new byte[len];
+        random.nextBytes(in);
+
+        XTSBlockCipher reference = new XTSBlockCipher(new AESFastEngine(), new AESFastEngine());
+        ParallelXTSBlockCipher parallel = new ParallelXTSBlockCipher(AES_PROVIDER, executor, 4);
+
+        reference.init(true, key);
+
+        byte[] expected = new byte[len];
+        reference.processSectors(firstSector, sectorSize, in, 0, len, expected, 0);
+
+        parallel.init(true, key);
+
+        byte[] out = new byte[len];
+        parallel.processSectors(firstSector, sectorSize, in, 0, len, out, 0);
+
+        if (!areEqual(expected, out))
+        {
+            fail("parallel XTS output mismatch, sector size " + sectorSize);
+        }
+
+        parallel.init(false, key);
+        parallel.processSectors(firstSector, sectorSize, out, 0, len, out, 0);
+
+        if (!areEqual(in, out))
+        {
+            fail("parallel XTS decryption failed, sector size " + sectorSize);
+        }
+    }
+
+    private void exceptionTest(ExecutorService executor)
+    {
+        byte[] K = new byte[32];
+        random.nextBytes(K);
+
+        ParallelXTSBlockCipher parallel = new ParallelXTSBlockCipher(AES_PROVIDER, executor, 2);
+
+        parallel.init(true, new KeyParameter(K));
+
+        try
+        {
+            parallel.processSectors(0, 64, new byte[64 * 10 + 8], 0, 64 * 10 + 8, new byte[64 * 10 + 8], 0);
+
+            fail("short final sector not picked up");
+        }
+        catch (DataLengthException e)
+        {
+            // expected
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ParallelXTSTest());
+    }
+}
@@ -0,0 +1,229 @@
+package org.bouncycastle.crypto.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.asn1.nist.NISTNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.DSA;
+import org.bouncycastle.crypto.generators.DSAKeyPairGenerator;
+import org.bouncycastle.crypto.generators.DSAParametersGenerator;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.params.DSAKeyGenerationParameters;
+import org.bouncycastle.crypto.params.DSAParameters;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.DSAPresignaturePool;
+import org.bouncycastle.crypto.signers.DSASigner;
+import org.bouncycastle.crypto.signers.ECDSAPresignaturePool;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.PooledDSASigner;
+import org.bouncycastle.crypto.signers.PooledECDSASigner;
+import org.bouncycastle.crypto.signers.PresignaturePool;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check DSA and ECDSA signatures made from pooled presignatures verify, and that each
+ * presignature is only used once.
+ */
+public class PresignaturePoolTest
+    extends SimpleTest
+{
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "PresignaturePool";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try
+        {
+            ecdsaTest(executor);
+            dsaTest(executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void ecdsaTest(ExecutorService executor)
+        throws Exception
+    {
+        X9ECParameters x9 = NISTNamedCurves.getByName("P-256");
+        ECDomainParameters params = new ECDomainParameters(x9.getCurve(), x9.getG(), x9.getN(), x9.getH());
+
+        ECKeyPairGenerator kpGen = new ECKeyPairGenerator();
+
+        kpGen.init(new ECKeyGenerationParameters(params, random));
+
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+        ECDSAPresignaturePool pool = new ECDSAPresignaturePool(params, random, executor, 16, 2);
+
+        signTest(pool, new PooledECDSASigner(pool), new ECDSASigner(), kp);
+
+        //
+        // a key on equal, but separately created, domain parameters
+        //
+        ECDomainParameters paramsCopy = new ECDomainParameters(x9.getCurve(), x9.getG(), x9.getN());
+
+        if (!params.equals(paramsCopy) || params.hashCode() != paramsCopy.hashCode())
+        {
+            fail("equal EC parameters not matched");
+        }
+
+        new PooledECDSASigner(pool).init(true,
+            new ECPrivateKeyParameters(((ECPrivateKeyParameters)kp.getPrivate()).getD(), paramsCopy));
+
+        //
+        // a key on other domain parameters
+        //
+        X9ECParameters x9Other = NISTNamedCurves.getByName("P-384");
+
+        kpGen.init(new ECKeyGenerationParameters(
+            new ECDomainParameters(x9Other.getCurve(), x9Other.getG(), x9Other.getN(), x9Other.getH()), random));
+
+        try
+        {
+            new PooledECDSASigner(pool).init(true, kpGen.generateKeyPair().getPrivate());
+
+            fail("mismatched EC parameters not detected");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        closeTest(pool, new PooledECDSASigner(pool), new ECDSASigner(), kp);
+    }
+
+    private void dsaTest(ExecutorService executor)
+        throws Exception
+    {
+        DSAParametersGenerator pGen = new DSAParametersGenerator();
+
+        pGen.init(512, 80, random);
+
+        DSAParameters params = pGen.generateParameters();
+        DSAKeyPairGenerator kpGen = new DSAKeyPairGenerator();
+
+        kpGen.init(new DSAKeyGenerationParameters(random, params));
+
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+        DSAPresignaturePool pool = new DSAPresignaturePool(params, random, executor, 16, 2);
+
+        signTest(pool, new PooledDSASigner(pool), new DSASigner(), kp);
+
+        try
+        {
+            DSAParameters other = new DSAParameters(params.getP(), params.getQ(), params.getG().modPow(BigInteger.valueOf(2), params.getP()));
+
+            kpGen.init(new DSAKeyGenerationParameters(random, other));
+
+            new PooledDSASigner(pool).init(true, kpGen.generateKeyPair().getPrivate());
+
+            fail("mismatched DSA parameters not detected");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        closeTest(pool, new PooledDSASigner(pool), new DSASigner(), kp);
+    }
+
+    private void signTest(PresignaturePool pool, DSA signer, DSA verifier, AsymmetricCipherKeyPair kp)
+        throws Exception
+    {
+        waitForFull(pool);
+
+        signer.init(true, kp.getPrivate());
+        verifier.init(false, kp.getPublic());
+
+        //
+        // more signatures than the pool holds, so some are made while it refills
+        //
+        Set rValues = new HashSet();
+
+        for (int i = 0; i != 3 * pool.getCapacity(); i++)
+        {
+            byte[] message = new byte[20];
+
+            random.nextBytes(message);
+
+            BigInteger[] sig = signer.generateSignature(message);
+
+            if (!verifier.verifySignature(message, sig[0], sig[1]))
+            {
+                fail("pooled signature " + i + " failed to verify");
+            }
+
+            if (!rValues.add(sig[0]))
+            {
+                fail("presignature used twice");
+            }
+        }
+
+        waitForFull(pool);
+    }
+
+    private void closeTest(PresignaturePool pool, DSA signer, DSA verifier, AsymmetricCipherKeyPair kp)
+    {
+        pool.close();
+
+        if (pool.size() != 0)
+        {
+            fail("pool not cleared by close");
+        }
+
+        //
+        // a closed pool is just empty, so the signer makes its own
+        //
+        signer.init(true, kp.getPrivate());
+        verifier.init(false, kp.getPublic());
+
+        byte[] message = new byte[20];
+        BigInteger[] sig = signer.generateSignature(message);
+
+        if (!verifier.verifySignature(message, sig[0], sig[1]))
+        {
+            fail("signature from closed pool failed to verify");
+        }
+
+        if (pool.size() != 0)
+        {
+            fail("closed pool refilled");
+        }
+    }
+
+    private void waitForFull(PresignaturePool pool)
+        throws InterruptedException
+    {
+        for (int i = 0; i != 1000 && pool.size() != pool.getCapacity(); i++)
+        {
+            Thread.sleep(10);
+        }
+
+        if (pool.size() != pool.getCapacity())
+        {
+            fail("pool did not fill");
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new PresignaturePoolTest());
+    }
+}
@@ -6,6 +6,7 @@ import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.encodings.OAEPEncoding;
 import org.bouncycastle.crypto.encodings.PKCS1Encoding;
 import org.bouncycastle.crypto.engines.RSABlindedEngine;
+import org.bouncycastle.crypto.engines.RSAEngine;
 import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
 import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
@@ -156,6 +157,45 @@ public class RSABlindedTest
         }
     }
 
+    /**
+     * the blinding factors are updated between operations and replaced periodically, so
+     * check enough operations to cover several replacements against the unblinded engine.
+     */
+    private void testRepeatedPrivateOperations(RSAKeyParameters privParameters)
+    {
+        SecureRandom          rand = new SecureRandom();
+        AsymmetricBlockCipher blinded = new RSABlindedEngine();
+        AsymmetricBlockCipher plain = new RSAEngine();
+
+        blinded.init(false, privParameters);
+        plain.init(false, privParameters);
+
+        for (int i = 0; i != 100; i++)
+        {
+            byte[] data = new byte[blinded.getInputBlockSize() - 1];
+
+            rand.nextBytes(data);
+
+            if (i % 40 == 39)
+            {
+                // re-initialising with the same key keeps the factors going
+                blinded.init(false, privParameters);
+            }
+
+            try
+            {
+                if (!areEqual(plain.processBlock(data, 0, data.length), blinded.processBlock(data, 0, data.length)))
+                {
+                    fail("blinded private operation " + i + " failed");
+                }
+            }
+            catch (InvalidCipherTextException e)
+            {
+                fail("failed - exception " + e.toString(), e);
+            }
+        }
+    }
+
     private void testOAEP(RSAKeyParameters pubParameters, RSAKeyParameters privParameters)
     {
         //
@@ -411,6 +451,7 @@ public class RSABlindedTest
         }
 
         testOAEP(pubParameters, privParameters);
+        testRepeatedPrivateOperations(privParameters);
         testStrictPKCS1Length(pubParameters, privParameters);
         testDudPKCS1Block(pubParameters, privParameters);
         testMissingDataPKCS1Block(pubParameters, privParameters);
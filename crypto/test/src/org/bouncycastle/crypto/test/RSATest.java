@@ -3,6 +3,12 @@ package org.bouncycastle.crypto.test;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 
+import org.bouncycastle.asn1.DERNull;
+import org.bouncycastle.asn1.pkcs.OtherPrimeInfo;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.pkcs.RSAPrivateKey;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.crypto.AsymmetricBlockCipher;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.CipherParameters;
@@ -13,7 +19,9 @@ import org.bouncycastle.crypto.engines.RSAEngine;
 import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
 import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.params.RSAMultiPrimeCrtKeyParameters;
 import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+import org.bouncycastle.crypto.util.PrivateKeyFactory;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
 import org.bouncycastle.util.test.SimpleTest;
@@ -194,6 +202,99 @@ public class RSATest
         }
     }
 
+    private void testMultiPrime(int strength, int numPrimes)
+        throws Exception
+    {
+        RSAKeyPairGenerator pGen = new RSAKeyPairGenerator();
+
+        pGen.init(new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), new SecureRandom(), strength, 25, numPrimes));
+
+        AsymmetricCipherKeyPair pair = pGen.generateKeyPair();
+        RSAKeyParameters pubKey = (RSAKeyParameters)pair.getPublic();
+        RSAMultiPrimeCrtKeyParameters privKey = (RSAMultiPrimeCrtKeyParameters)pair.getPrivate();
+
+        if (pubKey.getModulus().bitLength() != strength)
+        {
+            fail("failed multi-prime key generation (" + strength + ", " + numPrimes + ") length test");
+        }
+
+        BigInteger[] others = privKey.getOtherPrimes();
+        BigInteger n = privKey.getP().multiply(privKey.getQ());
+        for (int i = 0; i != others.length; i++)
+        {
+            n = n.multiply(others[i]);
+        }
+
+        if (others.length != numPrimes - 2 || !n.equals(pubKey.getModulus()))
+        {
+            fail("multi-prime key primes do not make up the modulus");
+        }
+
+        //
+        // CRT decryption should match the plain private exponent
+        //
+        RSAKeyParameters plainKey = new RSAKeyParameters(true, privKey.getModulus(), privKey.getExponent());
+        byte[] data = Hex.decode(input);
+
+        RSAEngine eng = new RSAEngine();
+
+        eng.init(true, pubKey);
+
+        byte[] enc = eng.processBlock(data, 0, data.length);
+
+        eng.init(false, privKey);
+
+        byte[] crtDec = eng.processBlock(enc, 0, enc.length);
+
+        eng.init(false, plainKey);
+
+        byte[] plainDec = eng.processBlock(enc, 0, enc.length);
+
+        if (!Arrays.areEqual(data, crtDec) || !Arrays.areEqual(plainDec, crtDec))
+        {
+            fail("multi-prime CRT decryption failed (" + strength + ", " + numPrimes + ")");
+        }
+
+        //
+        // round trip the key through its PKCS#1 encoding
+        //
+        OtherPrimeInfo[] infos = new OtherPrimeInfo[others.length];
+        for (int i = 0; i != infos.length; i++)
+        {
+            infos[i] = new OtherPrimeInfo(others[i], privKey.getOtherExponents()[i], privKey.getOtherCoefficients()[i]);
+        }
+
+        RSAPrivateKey keyStruct = new RSAPrivateKey(privKey.getModulus(), privKey.getPublicExponent(),
+            privKey.getExponent(), privKey.getP(), privKey.getQ(), privKey.getDP(), privKey.getDQ(),
+            privKey.getQInv(), infos);
+
+        PrivateKeyInfo info = new PrivateKeyInfo(
+            new AlgorithmIdentifier(PKCSObjectIdentifiers.rsaEncryption, DERNull.INSTANCE), keyStruct);
+
+        RSAPrivateKey decStruct = RSAPrivateKey.getInstance(keyStruct.getEncoded());
+
+        if (decStruct.getVersion().intValue() != 1 || decStruct.getOtherPrimeInfos().length != infos.length)
+        {
+            fail("multi-prime RSAPrivateKey encoding failed");
+        }
+
+        RSAMultiPrimeCrtKeyParameters decKey = (RSAMultiPrimeCrtKeyParameters)PrivateKeyFactory.createKey(info.getEncoded());
+
+        if (!Arrays.areEqual(privKey.getOtherPrimes(), decKey.getOtherPrimes())
+            || !Arrays.areEqual(privKey.getOtherExponents(), decKey.getOtherExponents())
+            || !Arrays.areEqual(privKey.getOtherCoefficients(), decKey.getOtherCoefficients()))
+        {
+            fail("multi-prime key factory failed");
+        }
+
+        eng.init(false, decKey);
+
+        if (!Arrays.areEqual(data, eng.processBlock(enc, 0, enc.length)))
+        {
+            fail("multi-prime decryption with decoded key failed");
+        }
+    }
+
     private void zeroBlockTest(CipherParameters encParameters, CipherParameters decParameters)
     {
         AsymmetricBlockCipher eng = new PKCS1Encoding(new RSAEngine());
@@ -471,6 +572,27 @@ public class RSATest
             }
         }
         
+        try
+        {
+            testMultiPrime(1024, 3);
+            testMultiPrime(1536, 4);
+            testMultiPrime(385, 3);
+        }
+        catch (Exception e)
+        {
+            fail("failed - exception " + e.toString(), e);
+        }
+
+        try
+        {
+            new RSAKeyGenerationParameters(BigInteger.valueOf(0x11), new SecureRandom(), 1024, 25, 5);
+            fail("failed number of primes check");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
         testOAEP(pubParameters, privParameters);
         testStrictPKCS1Length(pubParameters, privParameters);
         testDudPKCS1Block(pubParameters, privParameters);
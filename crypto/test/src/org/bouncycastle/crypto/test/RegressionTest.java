@@ -106,7 +106,21 @@ public class RegressionTest
         new SCryptTest(),
         new ResetTest(),
         new NullTest(),
-        new DSTU4145Test()
+        new DSTU4145Test(),
+        new MultiBlockCipherTest(),
+        new ParallelSICTest(),
+        new ParallelGCMTest(),
+        new ByteBufferProcessorTest(),
+        new OCBTest(),
+        new XTSTest(),
+        new ParallelXTSTest(),
+        new ParallelSCryptTest(),
+        new ParallelPKCS5S2Test(),
+        new ECDSABatchVerifierTest(),
+        new ParallelECDSABatchVerifierTest(),
+        new ParallelRSAKeyPairGeneratorTest(),
+        new ParallelDHParametersGeneratorTest(),
+        new PresignaturePoolTest()
     };
 
     public static void main(
@@ -94,6 +94,20 @@ public class SHA256HMacTest
                     "Reset with vector " + vector + " failed");
         }
 
+        //
+        // test reset part way through a message
+        //
+        hmac.update(m, 0, m.length);
+        hmac.reset();
+        hmac.update(m, 0, m.length);
+        hmac.doFinal(resBuf, 0);
+
+        if (!Arrays.areEqual(resBuf, Hex.decode(digests[vector])))
+        {
+            return new SimpleTestResult(false, getName() +
+                    "Reset part way through vector " + vector + " failed");
+        }
+
         return new SimpleTestResult(true, getName() + ": Okay");
     }
 
@@ -0,0 +1,236 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.engines.DESEngine;
+import org.bouncycastle.crypto.modes.XTSBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Test vectors from IEEE Std 1619-2007, XTS-AES-128. Vector 1 is omitted as it uses the
+ * same key for data and tweak, which XTSBlockCipher rejects.
+ */
+public class XTSTest
+    extends SimpleTest
+{
+    // key1 || key2, data unit sequence number, plain text, cipher text - note the standard
+    // lists the sequence number as its little-endian encoding, so 9a78563412 is 0x123456789a
+    private static final String[][] TEST_VECTORS = new String[][] {
+        {
+            "11111111111111111111111111111111" + "22222222222222222222222222222222",
+            "3333333333",
+            "4444444444444444444444444444444444444444444444444444444444444444",
+            "c454185e6a16936e39334038acef838bfb186fff7480adc4289382ecd6d394f0"
+        },
+        {
+            "fffefdfcfbfaf9f8f7f6f5f4f3f2f1f0" + "22222222222222222222222222222222",
+            "3333333333",
+            "4444444444444444444444444444444444444444444444444444444444444444",
+            "af85336b597afc1a900b2eb21ec949d292df4c047e0b21532186a5971a227a89"
+        },
+        {
+            "fffefdfcfbfaf9f8f7f6f5f4f3f2f1f0" + "bfbebdbcbbbab9b8b7b6b5b4b3b2b1b0",
+            "123456789a",
+            "000102030405060708090a0b0c0d0e0f10",
+            "6c1625db4671522d3d7599601de7ca09ed"
+        },
+        {
+            "fffefdfcfbfaf9f8f7f6f5f4f3f2f1f0" + "bfbebdbcbbbab9b8b7b6b5b4b3b2b1b0",
+            "123456789a",
+            "000102030405060708090a0b0c0d0e0f1011",
+            "d069444b7a7e0cab09e24447d24deb1fedbf"
+        },
+        {
+            "fffefdfcfbfaf9f8f7f6f5f4f3f2f1f0" + "bfbebdbcbbbab9b8b7b6b5b4b3b2b1b0",
+            "123456789a",
+            "000102030405060708090a0b0c0d0e0f101112",
+            "e5df1351c0544ba1350b3363cd8ef4beedbf9d"
+        },
+        {
+            "fffefdfcfbfaf9f8f7f6f5f4f3f2f1f0" + "bfbebdbcbbbab9b8b7b6b5b4b3b2b1b0",
+            "123456789a",
+            "000102030405060708090a0b0c0d0e0f10111213",
+            "9d84c813f719aa2c7be3f66171c7c5c2edbf9dac"
+        },
+    };
+
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "XTS";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        for (int i = 0; i < TEST_VECTORS.length; ++i)
+        {
+            runTestCase(i, TEST_VECTORS[i]);
+        }
+
+        for (int i = 0; i != 20; i++)
+        {
+            randomTest(new AESFastEngine(), new AESFastEngine());
+            randomTest(new AESEngine(), new AESEngine());
+        }
+
+        exceptionTests();
+    }
+
+    private void runTestCase(int count, String[] testVector)
+    {
+        KeyParameter key = new KeyParameter(Hex.decode(testVector[0]));
+        long sector = Long.parseLong(testVector[1], 16);
+        byte[] P = Hex.decode(testVector[2]);
+        byte[] C = Hex.decode(testVector[3]);
+
+        XTSBlockCipher cipher = new XTSBlockCipher(new AESFastEngine(), new AESFastEngine());
+        byte[] out = new byte[P.length];
+
+        cipher.init(true, key);
+        cipher.processSector(sector, P, 0, P.length, out, 0);
+
+        if (!areEqual(C, out))
+        {
+            fail("encrypt failed in test " + count, testVector[3], new String(Hex.encode(out)));
+        }
+
+        cipher.init(false, key);
+        cipher.processSector(sector, C, 0, C.length, out, 0);
+
+        if (!areEqual(P, out))
+        {
+            fail("decrypt failed in test " + count);
+        }
+    }
+
+    private void randomTest(BlockCipher dataCipher, BlockCipher tweakCipher)
+    {
+        byte[] K = new byte[2 * (16 + 16 * random.nextInt(2))];
+        random.nextBytes(K);
+
+        int sectorSize = 16 + random.nextInt(600);
+        int sectors = 1 + random.nextInt(10);
+        int len = (sectors - 1) * sectorSize + 16 + random.nextInt(sectorSize - 15);
+        long firstSector = random.nextLong();
+
+        byte[] P = new byte[len];
+        random.nextBytes(P);
+
+        XTSBlockCipher cipher = new XTSBlockCipher(dataCipher, tweakCipher);
+
+        cipher.init(true, new KeyParameter(K));
+
+        byte[] C = new byte[len];
+        cipher.processSectors(firstSector, sectorSize, P, 0, len, C, 0);
+
+        // the same data a sector at a time
+        byte[] C2 = new byte[len];
+        for (int pos = 0, sector = 0; pos < len; pos += sectorSize, sector++)
+        {
+            cipher.processSector(firstSector + sector, P, pos, Math.min(sectorSize, len - pos), C2, pos);
+        }
+
+        if (!areEqual(C, C2))
+        {
+            fail("sector at a time encryption differs, sector size " + sectorSize + " length " + len);
+        }
+
+        // in place decryption
+        cipher.init(false, new KeyParameter(K));
+        cipher.processSectors(firstSector, sectorSize, C, 0, len, C, 0);
+
+        if (!areEqual(P, C))
+        {
+            fail("decryption failed, sector size " + sectorSize + " length " + len);
+        }
+    }
+
+    private void exceptionTests()
+    {
+        try
+        {
+            new XTSBlockCipher(new DESEngine(), new DESEngine());
+
+            fail("incorrect block size not picked up");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            BlockCipher aes = new AESFastEngine();
+
+            new XTSBlockCipher(aes, aes);
+
+            fail("shared cipher instance not picked up");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        XTSBlockCipher cipher = new XTSBlockCipher(new AESFastEngine(), new AESFastEngine());
+
+        try
+        {
+            cipher.processSector(0, new byte[16], 0, 16, new byte[16], 0);
+
+            fail("uninitialised cipher not picked up");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            cipher.init(true, new KeyParameter(new byte[32]));
+
+            fail("equal key halves not picked up");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        cipher.init(true, new KeyParameter(Hex.decode(TEST_VECTORS[0][0])));
+
+        try
+        {
+            cipher.processSector(0, new byte[15], 0, 15, new byte[15], 0);
+
+            fail("short sector not picked up");
+        }
+        catch (DataLengthException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            cipher.processSectors(0, 32, new byte[40], 0, 40, new byte[40], 0);
+
+            fail("short final sector not picked up");
+        }
+        catch (DataLengthException e)
+        {
+            // expected
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new XTSTest());
+    }
+}
@@ -286,6 +286,51 @@ public class AESTest
         }
     }
 
+    private void ocbTest()
+        throws Exception
+    {
+        // RFC 7253, Appendix A
+        byte[] K = Hex.decode("000102030405060708090A0B0C0D0E0F");
+        byte[] P = Hex.decode("0001020304050607");
+        byte[] N = Hex.decode("BBAA99887766554433221103");
+        byte[] C = Hex.decode("45DD69F8F5AAE72414054CD1F35D82760B2CD00D2F99BFA9");
+
+        Key                     key;
+        Cipher                  in, out;
+
+        key = new SecretKeySpec(K, "AES");
+
+        in = Cipher.getInstance("AES/OCB/NoPadding", "BC");
+        out = Cipher.getInstance("AES/OCB/NoPadding", "BC");
+
+        in.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(N));
+
+        byte[] enc = in.doFinal(P);
+        if (!areEqual(enc, C))
+        {
+            fail("ciphertext doesn't match in OCB");
+        }
+
+        out.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(N));
+
+        byte[] dec = out.doFinal(C);
+        if (!areEqual(dec, P))
+        {
+            fail("plaintext doesn't match in OCB");
+        }
+
+        try
+        {
+            in = Cipher.getInstance("AES/OCB/PKCS5Padding", "BC");
+
+            fail("bad padding missed in OCB");
+        }
+        catch (NoSuchPaddingException e)
+        {
+            // expected
+        }
+    }
+
     public void performTest()
         throws Exception
     {
@@ -347,6 +392,7 @@ public class AESTest
         eaxTest();
         ccmTest();
         gcmTest();
+        ocbTest();
     }
 
     public static void main(
@@ -0,0 +1,132 @@
+package org.bouncycastle.jce.provider.test;
+
+import java.nio.ByteBuffer;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.security.Security;
+
+import javax.crypto.Cipher;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check Cipher.update() and Cipher.doFinal() with heap and direct ByteBuffers
+ * match the byte array versions.
+ */
+public class ByteBufferCipherTest
+    extends SimpleTest
+{
+    private SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ByteBufferCipher";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        byte[] keyBytes = new byte[16];
+        byte[] iv = new byte[16];
+
+        random.nextBytes(keyBytes);
+        random.nextBytes(iv);
+
+        Key key = new SecretKeySpec(keyBytes, "AES");
+
+        cipherTest("AES/CBC/PKCS7Padding", key, iv);
+        cipherTest("AES/SIC/NoPadding", key, iv);
+        cipherTest("AES/GCM/NoPadding", key, iv);
+
+        shortBufferTest(key, iv);
+    }
+
+    private void cipherTest(String algorithm, Key key, byte[] iv)
+        throws Exception
+    {
+        byte[] data = new byte[10000 + random.nextInt(100)];
+
+        random.nextBytes(data);
+
+        Cipher c = Cipher.getInstance(algorithm, "BC");
+
+        c.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+
+        byte[] expected = c.doFinal(data);
+
+        for (int inDirect = 0; inDirect != 2; inDirect++)
+        {
+            for (int outDirect = 0; outDirect != 2; outDirect++)
+            {
+                ByteBuffer in = allocate(data.length, inDirect != 0);
+                ByteBuffer out = allocate(expected.length, outDirect != 0);
+
+                in.put(data);
+                in.flip();
+
+                c.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+
+                in.limit(data.length / 3);
+                int len = c.update(in, out);
+                in.limit(data.length);
+                len += c.doFinal(in, out);
+
+                if (len != expected.length || in.hasRemaining())
+                {
+                    fail(algorithm + " wrong output length, direct: " + inDirect + ", " + outDirect);
+                }
+
+                byte[] result = new byte[len];
+
+                out.flip();
+                out.get(result);
+
+                if (!areEqual(expected, result))
+                {
+                    fail(algorithm + " output mismatch, direct: " + inDirect + ", " + outDirect);
+                }
+            }
+        }
+    }
+
+    private void shortBufferTest(Key key, byte[] iv)
+        throws Exception
+    {
+        Cipher c = Cipher.getInstance("AES/CBC/PKCS7Padding", "BC");
+
+        c.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+
+        ByteBuffer in = ByteBuffer.allocateDirect(100);
+
+        try
+        {
+            c.doFinal(in, ByteBuffer.allocateDirect(100));
+
+            fail("short output buffer not detected");
+        }
+        catch (ShortBufferException e)
+        {
+            if (in.position() != 0)
+            {
+                fail("input consumed on short output buffer");
+            }
+        }
+    }
+
+    private ByteBuffer allocate(int len, boolean direct)
+    {
+        return direct ? ByteBuffer.allocateDirect(len) : ByteBuffer.allocate(len);
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        Security.addProvider(new BouncyCastleProvider());
+
+        runTest(new ByteBufferCipherTest());
+    }
+}
@@ -65,7 +65,8 @@ public class RegressionTest
         new SigNameTest(),
         new MQVTest(),
         new CMacTest(),
-        new CRL5Test()
+        new CRL5Test(),
+        new ByteBufferCipherTest()
     };
 
     public static void main(
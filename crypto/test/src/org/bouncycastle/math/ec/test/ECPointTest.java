@@ -10,9 +10,13 @@ import junit.framework.TestSuite;
 
 import org.bouncycastle.asn1.sec.SECNamedCurves;
 import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.math.ec.ECAlgorithms;
 import org.bouncycastle.math.ec.ECCurve;
 import org.bouncycastle.math.ec.ECFieldElement;
 import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.util.Arrays;
 
 /**
  * Test class for {@link org.bouncycastle.math.ec.ECPoint ECPoint}. All
@@ -444,6 +448,263 @@ public class ECPointTest extends TestCase
         }
     }
 
+    /**
+     * Checks the affine form of points held in other co-ordinates, using the
+     * prime curves given in <code>SECNamedCurves</code>.
+     */
+    public void testNormalize()
+    {
+        Enumeration curveEnum = SECNamedCurves.getNames();
+        while (curveEnum.hasMoreElements())
+        {
+            String name = (String) curveEnum.nextElement();
+            X9ECParameters x9ECParameters = SECNamedCurves.getByName(name);
+            ECCurve curve = x9ECParameters.getCurve();
+
+            if (!(curve instanceof ECCurve.Fp))
+            {
+                continue;
+            }
+
+            BigInteger b = new BigInteger(x9ECParameters.getN().bitLength(), secRand);
+            ECPoint q = x9ECParameters.getG().multiply(b);
+            ECPoint n = q.normalize();
+
+            ECFieldElement x = n.getX();
+            ECFieldElement y = n.getY();
+            ECFieldElement rhs = x.square().add(curve.getA()).multiply(x).add(curve.getB());
+
+            assertEquals("normalized point not on curve", y.square(), rhs);
+            assertEquals("normalized point differs", q, n);
+            assertEquals("normalized point differs", n, q);
+            assertEquals("hashCode differs", n.hashCode(), q.hashCode());
+            assertSame("normalize of affine point", n, n.normalize());
+            assertEquals("mixed add inconsistent", n.twice(), q.add(n));
+            assertEquals("mixed add inconsistent", n.twice(), n.add(q));
+            assertEquals("negate inconsistent", curve.getInfinity(), q.add(n.negate()));
+            assertEquals("decode inconsistent", n, curve.decodePoint(q.getEncoded()));
+        }
+    }
+
+    /**
+     * Checks that Jacobian points normalized by several threads at once give every
+     * thread the full affine point.
+     */
+    public void testNormalizeShared()
+        throws Exception
+    {
+        X9ECParameters x9ECParameters = SECNamedCurves.getByName("secp256r1");
+        ECPoint g = x9ECParameters.getG();
+
+        final ECPoint[] points = new ECPoint[200];
+        final byte[][] encodings = new byte[points.length][];
+
+        // the expected encodings come from a second chain of equal points, leaving
+        // the shared points to be normalized for the first time by the threads.
+        ECPoint p = g.multiply(new BigInteger(x9ECParameters.getN().bitLength(), secRand));
+        ECPoint q = p;
+        for (int i = 0; i != points.length; i++)
+        {
+            p = p.add(g);
+            q = q.add(g);
+            points[i] = p;
+            encodings[i] = q.getEncoded();
+        }
+
+        final String[] failures = new String[4];
+        Thread[] threads = new Thread[failures.length];
+
+        for (int t = 0; t != threads.length; t++)
+        {
+            final int index = t;
+
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    for (int i = 0; i != points.length; i++)
+                    {
+                        ECPoint n = points[i].normalize();
+
+                        if (n.isInfinity() || n.getX() == null || n.getY() == null)
+                        {
+                            failures[index] = "shared point normalized to incomplete point";
+                            return;
+                        }
+                        if (!Arrays.areEqual(encodings[i], points[i].getEncoded()))
+                        {
+                            failures[index] = "shared point normalized incorrectly";
+                            return;
+                        }
+                    }
+                }
+            };
+        }
+
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t].start();
+        }
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t].join();
+        }
+
+        for (int t = 0; t != failures.length; t++)
+        {
+            assertNull(failures[t], failures[t]);
+        }
+    }
+
+    /**
+     * Checks the fixed-base comb multiplier against the general multiplier for
+     * the curves given in <code>SECNamedCurves</code>.
+     */
+    public void testFixedPointComb()
+    {
+        Enumeration curveEnum = SECNamedCurves.getNames();
+        while (curveEnum.hasMoreElements())
+        {
+            String name = (String) curveEnum.nextElement();
+            X9ECParameters x9ECParameters = SECNamedCurves.getByName(name);
+
+            BigInteger n = x9ECParameters.getN();
+            ECPoint g = x9ECParameters.getG();
+            FixedPointCombMultiplier comb = new FixedPointCombMultiplier(g, n.bitLength());
+
+            BigInteger[] ks = {
+                BigInteger.ZERO, BigInteger.ONE, n.subtract(BigInteger.ONE), n,
+                BigInteger.ONE.shiftLeft(comb.getMaxBits()).subtract(BigInteger.ONE),
+                BigInteger.ONE.shiftLeft(comb.getMaxBits()),
+                new BigInteger(n.bitLength(), secRand)
+            };
+
+            for (int i = 0; i != ks.length; i++)
+            {
+                assertEquals("comb multiply incorrect for " + name, g.multiply(ks[i]), comb.multiply(ks[i]));
+            }
+
+            ECDomainParameters params = new ECDomainParameters(x9ECParameters.getCurve(), g, n);
+
+            for (int i = 0; i != 3; i++)
+            {
+                BigInteger k = new BigInteger(n.bitLength(), secRand);
+
+                assertEquals("multiplyG incorrect for " + name, g.multiply(k), params.multiplyG(k));
+            }
+
+            // a fresh point only gets a shared table when asked for a second time
+            ECPoint p = g.multiply(new BigInteger(n.bitLength(), secRand));
+
+            assertNull("comb built on first use for " + name, FixedPointCombMultiplier.getInstance(p, n.bitLength()));
+
+            FixedPointCombMultiplier shared = FixedPointCombMultiplier.getInstance(p, n.bitLength());
+            assertNotNull("comb not built on second use for " + name, shared);
+
+            ECPoint pCopy = x9ECParameters.getCurve().decodePoint(p.getEncoded());
+            assertSame("comb not shared for " + name, shared, FixedPointCombMultiplier.getInstance(pCopy, n.bitLength()));
+        }
+    }
+
+    /**
+     * Checks <code>ECAlgorithms.sumOfTwoMultiplies()</code> against separate
+     * multiplications, decoding the points afresh each time as a verifier
+     * would, for the curves given in <code>SECNamedCurves</code>.
+     */
+    public void testSumOfTwoMultiplies()
+    {
+        Enumeration curveEnum = SECNamedCurves.getNames();
+        while (curveEnum.hasMoreElements())
+        {
+            String name = (String) curveEnum.nextElement();
+            X9ECParameters x9ECParameters = SECNamedCurves.getByName(name);
+
+            ECCurve curve = x9ECParameters.getCurve();
+            BigInteger n = x9ECParameters.getN();
+            ECPoint g = x9ECParameters.getG();
+            byte[] qEnc = g.multiply(new BigInteger(n.bitLength(), secRand)).getEncoded();
+
+            for (int i = 0; i != 3; i++)
+            {
+                ECPoint q = curve.decodePoint(qEnc);
+                BigInteger a = new BigInteger(n.bitLength(), secRand);
+                BigInteger b = new BigInteger(n.bitLength(), secRand);
+
+                assertEquals("sumOfTwoMultiplies incorrect for " + name,
+                    g.multiply(a).add(q.multiply(b)), ECAlgorithms.sumOfTwoMultiplies(g, a, q, b));
+            }
+
+            ECPoint q = curve.decodePoint(qEnc);
+
+            assertEquals(q, ECAlgorithms.sumOfTwoMultiplies(g, BigInteger.ZERO, q, BigInteger.ONE));
+            assertEquals(g, ECAlgorithms.sumOfTwoMultiplies(g, BigInteger.ONE, q, BigInteger.ZERO));
+            assertEquals(curve.getInfinity(), ECAlgorithms.sumOfTwoMultiplies(g, n, q, BigInteger.ZERO));
+        }
+    }
+
+    /**
+     * Checks <code>ECCurve.normalizeAll()</code> and the batch inversion it uses against
+     * normalizing the points one at a time, for the curves given in
+     * <code>SECNamedCurves</code>.
+     */
+    public void testNormalizeAll()
+    {
+        Enumeration curveEnum = SECNamedCurves.getNames();
+        while (curveEnum.hasMoreElements())
+        {
+            String name = (String) curveEnum.nextElement();
+            X9ECParameters x9ECParameters = SECNamedCurves.getByName(name);
+
+            ECCurve curve = x9ECParameters.getCurve();
+            BigInteger n = x9ECParameters.getN();
+            ECPoint g = x9ECParameters.getG();
+
+            ECPoint[] points = new ECPoint[6];
+            points[0] = g;
+            points[1] = curve.getInfinity();
+            for (int i = 2; i != points.length; i++)
+            {
+                points[i] = g.multiply(new BigInteger(n.bitLength(), secRand));
+            }
+
+            ECPoint[] normalized = new ECPoint[points.length];
+            System.arraycopy(points, 0, normalized, 0, points.length);
+
+            curve.normalizeAll(normalized, 1, normalized.length - 1);
+
+            for (int i = 0; i != points.length; i++)
+            {
+                assertEquals("normalizeAll point differs for " + name, points[i], normalized[i]);
+                assertSame("normalizeAll point not affine for " + name, normalized[i], normalized[i].normalize());
+            }
+
+            // null entries are skipped, on binary as well as prime curves
+            ECPoint[] withNull = new ECPoint[]{ points[2], null, points[3] };
+            curve.normalizeAll(withNull);
+            assertNull("normalizeAll replaced null for " + name, withNull[1]);
+            assertEquals("normalizeAll point differs for " + name, points[3], withNull[2]);
+
+            if (curve instanceof ECCurve.Fp)
+            {
+                ECFieldElement[] zs = new ECFieldElement[5];
+                for (int i = 0; i != zs.length; i++)
+                {
+                    zs[i] = points[i + 1].isInfinity() ? curve.fromBigInteger(BigInteger.ONE) : points[i + 1].getX();
+                }
+
+                ECFieldElement[] inverses = new ECFieldElement[zs.length];
+                System.arraycopy(zs, 0, inverses, 0, zs.length);
+
+                ECAlgorithms.montgomeryTrick(inverses, 0, inverses.length);
+
+                for (int i = 0; i != zs.length; i++)
+                {
+                    assertEquals("montgomeryTrick incorrect for " + name, zs[i].invert(), inverses[i]);
+                }
+            }
+        }
+    }
+
     public static Test suite()
     {
         return new TestSuite(ECPointTest.class);
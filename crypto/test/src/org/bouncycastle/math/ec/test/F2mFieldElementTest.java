@@ -0,0 +1,137 @@
+package org.bouncycastle.math.ec.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Enumeration;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.bouncycastle.asn1.sec.SECNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECFieldElement;
+
+/**
+ * Test the word based F2m arithmetic against a straightforward BigInteger
+ * implementation, for the fields of the binary curves in <code>SECNamedCurves</code>
+ * and some small fields.
+ */
+public class F2mFieldElementTest extends TestCase
+{
+    private SecureRandom secRand = new SecureRandom();
+
+    /*
+     * f(z) for the field, as a BigInteger.
+     */
+    private BigInteger reductionPolynomial(int m, int k1, int k2, int k3)
+    {
+        return BigInteger.ZERO.setBit(m).setBit(k1).setBit(k2).setBit(k3).setBit(0);
+    }
+
+    private BigInteger refReduce(BigInteger x, int m, BigInteger f)
+    {
+        for (int i = x.bitLength() - 1; i >= m; i--)
+        {
+            if (x.testBit(i))
+            {
+                x = x.xor(f.shiftLeft(i - m));
+            }
+        }
+        return x;
+    }
+
+    private BigInteger refMultiply(BigInteger a, BigInteger b, int m, BigInteger f)
+    {
+        BigInteger c = BigInteger.ZERO;
+
+        for (int i = 0; i < b.bitLength(); i++)
+        {
+            if (b.testBit(i))
+            {
+                c = c.xor(a.shiftLeft(i));
+            }
+        }
+
+        return refReduce(c, m, f);
+    }
+
+    private void implTestField(int m, int k1, int k2, int k3, int count)
+    {
+        BigInteger f = (k2 == 0) ? BigInteger.ZERO.setBit(m).setBit(k1).setBit(0) : reductionPolynomial(m, k1, k2, k3);
+
+        for (int i = 0; i != count; i++)
+        {
+            BigInteger x = new BigInteger(m, secRand);
+            BigInteger y = new BigInteger(m, secRand);
+
+            if (i == 0)
+            {
+                // all ones - the largest element
+                x = BigInteger.ONE.shiftLeft(m).subtract(BigInteger.ONE);
+            }
+
+            ECFieldElement a = new ECFieldElement.F2m(m, k1, k2, k3, x);
+            ECFieldElement b = new ECFieldElement.F2m(m, k1, k2, k3, y);
+
+            assertEquals("add", x.xor(y), a.add(b).toBigInteger());
+            assertEquals("multiply", refMultiply(x, y, m, f), a.multiply(b).toBigInteger());
+            assertEquals("square", refMultiply(x, x, m, f), a.square().toBigInteger());
+            assertEquals("equals", new ECFieldElement.F2m(m, k1, k2, k3, refMultiply(x, y, m, f)), a.multiply(b));
+            assertEquals("hashCode", new ECFieldElement.F2m(m, k1, k2, k3, x).hashCode(), a.hashCode());
+
+            if (y.signum() != 0)
+            {
+                assertEquals("invert", BigInteger.ONE, b.multiply(b.invert()).toBigInteger());
+                assertEquals("divide", x, a.divide(b).multiply(b).toBigInteger());
+            }
+        }
+
+        ECFieldElement zero = new ECFieldElement.F2m(m, k1, k2, k3, BigInteger.ZERO);
+        ECFieldElement one = new ECFieldElement.F2m(m, k1, k2, k3, BigInteger.ONE);
+
+        assertTrue("zero", zero.isZero());
+        assertEquals("zero square", zero, zero.square());
+        assertEquals("one square", one, one.square());
+        assertEquals("one invert", one, one.invert());
+    }
+
+    /**
+     * Tests the fields of the binary curves in <code>SECNamedCurves</code>.
+     */
+    public void testNamedCurveFields()
+    {
+        Enumeration curveEnum = SECNamedCurves.getNames();
+        while (curveEnum.hasMoreElements())
+        {
+            String name = (String) curveEnum.nextElement();
+            X9ECParameters x9ECParameters = SECNamedCurves.getByName(name);
+            ECCurve curve = x9ECParameters.getCurve();
+
+            if (curve instanceof ECCurve.F2m)
+            {
+                ECCurve.F2m f2m = (ECCurve.F2m)curve;
+
+                implTestField(f2m.getM(), f2m.getK1(), f2m.getK2(), f2m.getK3(), 100);
+            }
+        }
+    }
+
+    /**
+     * Tests fields whose middle terms are too close to z^m for word at a time reduction.
+     */
+    public void testSmallFields()
+    {
+        implTestField(4, 1, 0, 0, 50);
+        implTestField(7, 1, 0, 0, 50);
+        implTestField(8, 1, 3, 4, 50);
+        implTestField(65, 18, 0, 0, 50);
+        implTestField(127, 1, 0, 0, 50);
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite(F2mFieldElementTest.class);
+    }
+}
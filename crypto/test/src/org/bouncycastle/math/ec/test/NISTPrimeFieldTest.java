@@ -0,0 +1,173 @@
+package org.bouncycastle.math.ec.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.bouncycastle.asn1.nist.NISTNamedCurves;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECFieldElement;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.NISTFpCurve;
+import org.bouncycastle.math.ec.NISTFpFieldElement;
+import org.bouncycastle.math.ec.NISTPrimeField;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Test the fixed width NIST prime field arithmetic against the BigInteger based
+ * {@link org.bouncycastle.math.ec.ECFieldElement.Fp ECFieldElement.Fp}.
+ */
+public class NISTPrimeFieldTest extends TestCase
+{
+    private SecureRandom secRand = new SecureRandom();
+
+    private static final NISTPrimeField[] FIELDS = { NISTPrimeField.P256, NISTPrimeField.P384, NISTPrimeField.P521 };
+
+    private BigInteger randomElement(BigInteger p)
+    {
+        BigInteger x;
+        do
+        {
+            x = new BigInteger(p.bitLength(), secRand);
+        }
+        while (x.compareTo(p) >= 0);
+
+        return x;
+    }
+
+    private void implTestArithmetic(NISTPrimeField field, BigInteger x, BigInteger y)
+    {
+        BigInteger p = field.getP();
+
+        ECFieldElement a = new NISTFpFieldElement(field, x);
+        ECFieldElement b = new NISTFpFieldElement(field, y);
+        ECFieldElement refA = new ECFieldElement.Fp(p, x);
+        ECFieldElement refB = new ECFieldElement.Fp(p, y);
+
+        assertEquals("add", refA.add(refB).toBigInteger(), a.add(b).toBigInteger());
+        assertEquals("subtract", refA.subtract(refB).toBigInteger(), a.subtract(b).toBigInteger());
+        assertEquals("multiply", refA.multiply(refB).toBigInteger(), a.multiply(b).toBigInteger());
+        assertEquals("square", refA.square().toBigInteger(), a.square().toBigInteger());
+        assertEquals("negate", refA.negate().toBigInteger(), a.negate().toBigInteger());
+        assertEquals("chained", refA.multiply(refB).add(refA).square().subtract(refB).toBigInteger(),
+            a.multiply(b).add(a).square().subtract(b).toBigInteger());
+
+        // mixed representations
+        assertEquals("mixed multiply", refA.multiply(refB).toBigInteger(), a.multiply(refB).toBigInteger());
+        assertEquals("equals", refA, a);
+        assertEquals("equals", a, refA);
+        assertEquals("hashCode", refA.hashCode(), a.hashCode());
+
+        if (y.signum() != 0)
+        {
+            assertEquals("divide", refA.divide(refB).toBigInteger(), a.divide(b).toBigInteger());
+            assertEquals("invert", refB.invert().toBigInteger(), b.invert().toBigInteger());
+        }
+        else
+        {
+            try
+            {
+                b.invert();
+                fail("zero inverted");
+            }
+            catch (ArithmeticException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Tests the arithmetic operations for random elements and the values
+     * around the edges of the field.
+     */
+    public void testArithmetic()
+    {
+        for (int i = 0; i != FIELDS.length; i++)
+        {
+            NISTPrimeField field = FIELDS[i];
+            BigInteger p = field.getP();
+            BigInteger[] edges = {
+                BigInteger.valueOf(0), BigInteger.valueOf(1), BigInteger.valueOf(2),
+                p.subtract(BigInteger.valueOf(1)), p.subtract(BigInteger.valueOf(2)),
+                p.shiftRight(1), BigInteger.valueOf(1).shiftLeft(p.bitLength() - 1)
+            };
+
+            for (int j = 0; j != edges.length; j++)
+            {
+                for (int k = 0; k != edges.length; k++)
+                {
+                    implTestArithmetic(field, edges[j], edges[k]);
+                }
+            }
+
+            for (int j = 0; j != 1000; j++)
+            {
+                implTestArithmetic(field, randomElement(p), randomElement(p));
+            }
+        }
+    }
+
+    public void testSqrt()
+    {
+        for (int i = 0; i != FIELDS.length; i++)
+        {
+            NISTPrimeField field = FIELDS[i];
+
+            for (int j = 0; j != 100; j++)
+            {
+                ECFieldElement x = new NISTFpFieldElement(field, randomElement(field.getP()));
+                ECFieldElement root = x.square().sqrt();
+
+                assertNotNull(root);
+                assertEquals("sqrt", x.square(), root.square());
+
+                // -1 is not a square mod p = 3 mod 4, so neither is -x^2
+                if (!x.isZero())
+                {
+                    assertNull("non-square", x.square().negate().sqrt());
+                }
+            }
+        }
+    }
+
+    /**
+     * Check the named curves use the NIST fields, and give the same results as the
+     * generic curve.
+     */
+    public void testNamedCurves()
+    {
+        String[] names = { "P-256", "P-384", "P-521" };
+
+        for (int i = 0; i != names.length; i++)
+        {
+            X9ECParameters x9 = NISTNamedCurves.getByName(names[i]);
+            ECCurve curve = x9.getCurve();
+
+            assertTrue(names[i] + " not using NIST field", curve instanceof NISTFpCurve);
+
+            ECCurve.Fp ref = new ECCurve.Fp(((ECCurve.Fp)curve).getQ(),
+                curve.getA().toBigInteger(), curve.getB().toBigInteger());
+            ECPoint refG = ref.decodePoint(x9.getG().getEncoded());
+
+            assertEquals("curves differ", ref, curve);
+
+            BigInteger k = new BigInteger(x9.getN().bitLength(), secRand);
+
+            ECPoint q = x9.getG().multiply(k);
+            ECPoint refQ = refG.multiply(k);
+
+            assertTrue("multiply", Arrays.areEqual(refQ.getEncoded(), q.getEncoded()));
+            assertEquals("decode", q, curve.decodePoint(new ECPoint.Fp(curve, q.getX(), q.getY(), true).getEncoded()));
+        }
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite(NISTPrimeFieldTest.class);
+    }
+}